@@ -0,0 +1,132 @@
+package com.android.helper.utils.preference;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 在设备上对比{@link SharedPreferencesEngine}和{@link MappedPreferenceEngine}在1k、10k个key时的耗时：
+ * <ol>
+ *     1：一次写入所有的key
+ *     2：逐个修改key，每次修改都是单独的一批，对应频繁调用PreferenceHelper的场景
+ *     3：读取所有的key
+ *     4：重新打开文件，SharedPreferences在进程内有缓存，只统计内存映射的实现
+ * </ol>
+ * SharedPreferences的apply()是异步写入的，计时的最后使用一次commit()等待之前的写入全部完成。
+ * 结果通过logcat输出，TAG为PreferenceBenchmark。
+ */
+@RunWith(AndroidJUnit4.class)
+public class MappedPreferenceEngineBenchmarkTest {
+
+    private static final String TAG = "PreferenceBenchmark";
+    private static final String FILE_NAME = "preference_benchmark";
+    private static final int UPDATES = 1000;
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        clean();
+    }
+
+    @After
+    public void tearDown() {
+        clean();
+    }
+
+    @Test
+    public void keys1k() {
+        compare(1000);
+    }
+
+    @Test
+    public void keys10k() {
+        compare(10000);
+    }
+
+    private void compare(int count) {
+        Map<String, Object> values = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            values.put("key_" + i, "value_" + i);
+        }
+
+        SharedPreferencesEngine preferences = new SharedPreferencesEngine(mContext, FILE_NAME);
+        File file = MappedPreferenceEngine.getFile(mContext, FILE_NAME);
+        MappedPreferenceEngine mapped = new MappedPreferenceEngine(file);
+
+        long spWrite = measure(() -> {
+            preferences.write(values, false);
+            sync();
+        });
+        long mappedWrite = measure(() -> mapped.write(values, false));
+
+        long spUpdate = measure(() -> {
+            for (int i = 0; i < UPDATES; i++) {
+                preferences.write(Collections.singletonMap("key_" + (i % count), "update_" + i), false);
+            }
+            sync();
+        });
+        long mappedUpdate = measure(() -> {
+            for (int i = 0; i < UPDATES; i++) {
+                mapped.write(Collections.singletonMap("key_" + (i % count), "update_" + i), false);
+            }
+        });
+
+        long spRead = measure(() -> readAll(preferences, count));
+        long mappedRead = measure(() -> readAll(mapped, count));
+
+        long[] reopened = new long[1];
+        long mappedLoad = measure(() -> reopened[0] = new MappedPreferenceEngine(file).getAll().size());
+        assertEquals(count, reopened[0]);
+        assertEquals(preferences.getString("key_0", null), mapped.getString("key_0", null));
+
+        print(count + "个key 一次写入", spWrite, mappedWrite);
+        print(count + "个key 逐个修改" + UPDATES + "次", spUpdate, mappedUpdate);
+        print(count + "个key 读取全部", spRead, mappedRead);
+        Log.i(TAG, String.format(Locale.CHINA, "%d个key 重新打开  内存映射: %.2f ms", count, mappedLoad / 1e6));
+    }
+
+    private void readAll(PreferenceEngine engine, int count) {
+        for (int i = 0; i < count; i++) {
+            engine.getString("key_" + i, null);
+        }
+    }
+
+    /**
+     * 等待SharedPreferences之前所有的apply()写入磁盘
+     */
+    private void sync() {
+        mContext.getSharedPreferences(FILE_NAME, Context.MODE_PRIVATE).edit().putLong("sync", System.nanoTime()).commit();
+    }
+
+    private void clean() {
+        mContext.getSharedPreferences(FILE_NAME, Context.MODE_PRIVATE).edit().clear().commit();
+        MappedPreferenceEngine.getFile(mContext, FILE_NAME).delete();
+    }
+
+    private static long measure(Runnable task) {
+        long start = System.nanoTime();
+        task.run();
+        return System.nanoTime() - start;
+    }
+
+    private static void print(String name, long preferences, long mapped) {
+        Log.i(TAG, String.format(Locale.CHINA, "%s  SharedPreferences: %.2f ms  内存映射: %.2f ms", name, preferences / 1e6, mapped / 1e6));
+    }
+}
@@ -0,0 +1,124 @@
+package com.android.helper.utils.room;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.android.helper.interfaces.room.RoomInsertListener;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 验证{@link RoomWriteBatcher}在同一批操作中有一个违反约束的时候，其他操作的结果依旧正确。
+ * <p>
+ * 插入的方法和Room生成的代码一样，在自己的嵌套事务中执行，失败的时候外层的事务会被标记为失败。
+ */
+@RunWith(AndroidJUnit4.class)
+public class RoomWriteBatcherTest {
+
+    private SQLiteDatabase mDatabase;
+
+    @Before
+    public void setUp() {
+        mDatabase = SQLiteDatabase.create(null);
+        mDatabase.execSQL("CREATE TABLE user (id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT NOT NULL UNIQUE)");
+    }
+
+    @After
+    public void tearDown() {
+        mDatabase.close();
+    }
+
+    @Test
+    public void constraintViolationOnlyFailsItself() throws InterruptedException {
+        RoomWriteBatcher batcher = new RoomWriteBatcher(RoomExecutor.getInstance().getWriter());
+        batcher.setTransaction(body -> {
+            mDatabase.beginTransaction();
+            try {
+                body.run();
+                mDatabase.setTransactionSuccessful();
+            } finally {
+                mDatabase.endTransaction();
+            }
+        });
+
+        String[] names = {"a", "b", "a", "c"};
+        Result[] results = new Result[names.length];
+        CountDownLatch latch = new CountDownLatch(names.length);
+        for (int i = 0; i < names.length; i++) {
+            results[i] = new Result(names[i], latch);
+            batcher.enqueue(new RoomWriteBatcher.InsertOp(results[i]));
+        }
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+        assertTrue(results[0].success);
+        assertTrue(results[1].success);
+        assertFalse(results[2].success);
+        assertEquals(-1, results[2].id);
+        assertTrue(results[3].success);
+
+        // 返回成功的id都必须真实的存在于数据库中
+        assertEquals(3, count(null));
+        for (Result result : results) {
+            if (result.success) {
+                assertEquals(1, count(String.valueOf(result.id)));
+            }
+        }
+    }
+
+    private int count(String id) {
+        String sql = id == null ? "SELECT COUNT(*) FROM user" : "SELECT COUNT(*) FROM user WHERE id = ?";
+        try (Cursor cursor = mDatabase.rawQuery(sql, id == null ? null : new String[]{id})) {
+            cursor.moveToFirst();
+            return cursor.getInt(0);
+        }
+    }
+
+    /**
+     * 和Room生成的插入方法一样，在嵌套的事务中插入数据
+     */
+    private final class Result implements RoomInsertListener {
+        private final String mName;
+        private final CountDownLatch mLatch;
+        boolean success;
+        long id;
+
+        Result(String name, CountDownLatch latch) {
+            mName = name;
+            mLatch = latch;
+        }
+
+        @Override
+        public long insert() {
+            mDatabase.beginTransaction();
+            try {
+                ContentValues values = new ContentValues();
+                values.put("name", mName);
+                long row = mDatabase.insertOrThrow("user", null, values);
+                mDatabase.setTransactionSuccessful();
+                return row;
+            } finally {
+                mDatabase.endTransaction();
+            }
+        }
+
+        @Override
+        public void onResult(boolean success, long id, String errorMsg) {
+            this.success = success;
+            this.id = id;
+            mLatch.countDown();
+        }
+    }
+}
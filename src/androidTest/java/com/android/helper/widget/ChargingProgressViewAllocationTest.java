@@ -0,0 +1,65 @@
+package com.android.helper.widget;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Debug;
+import android.view.View;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 验证{@link ChargingProgressView#onDraw(Canvas)}在每一帧中不会创建对象：
+ * 先绘制一次预热，然后使用{@link Debug}统计当前线程连续绘制多帧的对象分配数量。
+ */
+@RunWith(AndroidJUnit4.class)
+public class ChargingProgressViewAllocationTest {
+
+    private static final int FRAMES = 100;
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void onDrawDoesNotAllocate() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+            ChargingProgressView view = new ChargingProgressView(context, null);
+            view.setInterval(0.2f, 0.9f);
+            view.setCurrentSoc(0.8f);
+            view.setOptimumValue(0.8f);
+            view.setRemainingChargeTime("剩余1小时20分钟");
+
+            // 覆盖进度为空、进行中、充满三种绘制的分支
+            for (float percentage : new float[]{0f, 0.35f, 1f}) {
+                view.setPercentage(percentage);
+                layout(view);
+                Bitmap bitmap = Bitmap.createBitmap(view.getMeasuredWidth(), view.getMeasuredHeight(), Bitmap.Config.ARGB_8888);
+                Canvas canvas = new Canvas(bitmap);
+                view.draw(canvas);
+
+                Debug.resetThreadAllocCount();
+                Debug.startAllocCounting();
+                for (int i = 0; i < FRAMES; i++) {
+                    view.draw(canvas);
+                }
+                Debug.stopAllocCounting();
+                assertEquals("进度为" + percentage + "的时候onDraw创建了对象", 0, Debug.getThreadAllocCount());
+                bitmap.recycle();
+            }
+        });
+    }
+
+    private static void layout(View view) {
+        int width = View.MeasureSpec.makeMeasureSpec(1080, View.MeasureSpec.EXACTLY);
+        int height = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        // 顶部的高度在测量的时候逐步累加，测量两次之后位置才稳定
+        view.measure(width, height);
+        view.measure(width, height);
+        view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+    }
+}
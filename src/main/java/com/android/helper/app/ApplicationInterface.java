@@ -2,6 +2,7 @@ package com.android.helper.app;
 
 import android.app.Application;
 
+import okhttp3.EventListener;
 import okhttp3.Interceptor;
 
 /**
@@ -45,4 +46,18 @@ public interface ApplicationInterface {
      * @return 设置公用的拦截器
      */
     Interceptor[] getInterceptors();
+
+    /**
+     * @return 设置公用的请求事件监听，例如统计请求耗时的{@link com.android.helper.httpclient.HttpMetricsListener#FACTORY}，默认不设置
+     */
+    default EventListener.Factory getEventListenerFactory() {
+        return null;
+    }
+
+    /**
+     * @return 需要在启动的时候后台预加载的地址文件，assets中的文件名字，例如：address.json，默认不预加载
+     */
+    default String getPreloadAddressFile() {
+        return null;
+    }
 }
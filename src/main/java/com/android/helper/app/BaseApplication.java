@@ -1,12 +1,20 @@
 package com.android.helper.app;
 
 import android.app.Application;
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
 
 import androidx.fragment.app.FragmentActivity;
 
 import com.android.helper.utils.ScreenUtil;
+import com.android.helper.utils.address.AddressUtil;
+import com.android.helper.utils.preference.PreferenceStore;
 import com.android.refresh.app.ApplicationManager;
 
+import okhttp3.EventListener;
 import okhttp3.Interceptor;
 
 /**
@@ -57,6 +65,31 @@ public class BaseApplication {
         ApplicationManager.init(getApplication());
 
         ScreenUtil.getScreenHeight(getApplication());
+
+        // 后台预加载地址数据，打开选择器的时候不需要再解析
+        String addressFile = mApplication.getPreloadAddressFile();
+        if (!TextUtils.isEmpty(addressFile)) {
+            AddressUtil.preload(getApplication(), addressFile);
+        }
+
+        // 应用进入后台的时候，把配置中还没有落盘的修改交给写入线程立刻写入，不能在主线程中同步写入磁盘
+        getApplication().registerComponentCallbacks(new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+                    PreferenceStore.flushAllAsync();
+                }
+            }
+
+            @Override
+            public void onConfigurationChanged(@NonNull Configuration newConfig) {
+            }
+
+            @Override
+            public void onLowMemory() {
+                PreferenceStore.flushAllAsync();
+            }
+        });
     }
     // </editor-fold>
 
@@ -104,6 +137,14 @@ public class BaseApplication {
         return interceptors;
     }
 
+    public EventListener.Factory getEventListenerFactory() {
+        EventListener.Factory factory = null;
+        if (!isNull()) {
+            factory = mApplication.getEventListenerFactory();
+        }
+        return factory;
+    }
+
     public int getAppBarStatusColor() {
         int color = 0;
         if (mAppBarStatusListener != null) {
@@ -0,0 +1,352 @@
+package com.android.helper.common;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.android.common.utils.LogUtil;
+import com.android.helper.interfaces.listener.EventMessageListener;
+
+import org.greenrobot.eventbus.EventBus;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * {@link EventMessage}的消息分发器，用来替代EventBus中反射查找订阅方法的方式
+ * <ol>
+ *     1：使用消息的code注册监听，发送消息的时候只会通知注册了这个code的监听，不需要反射，也不会产生装箱的对象。
+ *     2：注册表是一个不可变的开放寻址表，注册和移除的时候复制一份新的表，发送消息的时候直接读取，不需要加锁。
+ *     3：支持{@link ThreadMode}指定回调的线程。
+ *     4：为了兼容已经使用@Subscribe接收EventMessage的页面，默认同时转发一份给EventBus，全部迁移之后可以使用{@link #setForwardToEventBus(boolean)}关闭。
+ * </ol>
+ * 使用：
+ * <pre>
+ *     EventDispatcher.getInstance().register(this, CommonConstants.CODE_DIALOG_SHOW, EventDispatcher.ThreadMode.MAIN, message -> {});
+ *     EventDispatcher.getInstance().post(new EventMessage(CommonConstants.CODE_DIALOG_SHOW));
+ * </pre>
+ */
+public final class EventDispatcher {
+
+    private static volatile EventDispatcher INSTANCE;
+    private static final Subscription[] EMPTY = new Subscription[0];
+
+    private final Object mLock = new Object();
+    private volatile Table mTable = new Table(16);
+    private volatile boolean mForwardToEventBus = true;
+    private volatile Handler mHandler;
+    private volatile ExecutorService mBackground;
+
+    EventDispatcher() {
+    }
+
+    public static EventDispatcher getInstance() {
+        if (INSTANCE == null) {
+            synchronized (EventDispatcher.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new EventDispatcher();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * @param forward 发送消息的时候，是否同时转发给EventBus，默认为true
+     */
+    public void setForwardToEventBus(boolean forward) {
+        mForwardToEventBus = forward;
+    }
+
+    /**
+     * 注册消息的监听，同一个监听对同一个code重复注册的时候，只会保留最后一次的线程模式
+     *
+     * @param code     消息的code
+     * @param mode     回调的线程
+     * @param listener 消息的回调
+     */
+    public void register(int code, @NonNull ThreadMode mode, @NonNull EventMessageListener listener) {
+        synchronized (mLock) {
+            Table table = mTable;
+            Subscription[] old = table.get(code);
+            Subscription[] subscriptions = new Subscription[old.length + 1];
+            int size = 0;
+            for (Subscription subscription : old) {
+                if (subscription.mListener != listener) {
+                    subscriptions[size++] = subscription;
+                }
+            }
+            subscriptions[size++] = new Subscription(mode, listener);
+            if (size < subscriptions.length) {
+                Subscription[] copy = new Subscription[size];
+                System.arraycopy(subscriptions, 0, copy, 0, size);
+                subscriptions = copy;
+            }
+            mTable = table.with(code, subscriptions);
+        }
+    }
+
+    /**
+     * 注册消息的监听，在页面销毁的时候自动移除
+     *
+     * @param owner    关联的页面
+     * @param code     消息的code
+     * @param mode     回调的线程
+     * @param listener 消息的回调
+     */
+    public void register(@NonNull LifecycleOwner owner, int code, @NonNull ThreadMode mode, @NonNull EventMessageListener listener) {
+        if (owner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) {
+            return;
+        }
+        register(code, mode, listener);
+        owner.getLifecycle().addObserver(new LifecycleEventObserver() {
+            @Override
+            public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+                if (event == Lifecycle.Event.ON_DESTROY) {
+                    unregister(code, listener);
+                    source.getLifecycle().removeObserver(this);
+                }
+            }
+        });
+    }
+
+    /**
+     * 移除指定code的监听
+     */
+    public void unregister(int code, @NonNull EventMessageListener listener) {
+        synchronized (mLock) {
+            Table table = mTable;
+            Subscription[] old = table.get(code);
+            int index = indexOf(old, listener);
+            if (index >= 0) {
+                mTable = table.with(code, remove(old, index));
+            }
+        }
+    }
+
+    /**
+     * 移除这个监听注册的所有code
+     */
+    public void unregister(@NonNull EventMessageListener listener) {
+        synchronized (mLock) {
+            // 遍历原来的表，修改写入新的表，with可能会重新排列或者扩容，不能边遍历边修改同一个表
+            Table snapshot = mTable;
+            Table table = snapshot;
+            for (int i = 0; i < snapshot.mKeys.length; i++) {
+                Subscription[] old = snapshot.mValues[i];
+                if (old != null) {
+                    int index = indexOf(old, listener);
+                    if (index >= 0) {
+                        table = table.with(snapshot.mKeys[i], remove(old, index));
+                    }
+                }
+            }
+            mTable = table;
+        }
+    }
+
+    /**
+     * @return 是否有监听注册了这个code
+     */
+    public boolean hasListener(int code) {
+        return mTable.get(code).length > 0;
+    }
+
+    /**
+     * 发送消息，可以在任意线程中调用
+     */
+    public void post(EventMessage message) {
+        if (message == null) {
+            return;
+        }
+        Subscription[] subscriptions = mTable.get(message.getCode());
+        for (Subscription subscription : subscriptions) {
+            deliver(subscription, message);
+        }
+        if (mForwardToEventBus) {
+            EventBus.getDefault().post(message);
+        }
+    }
+
+    private void deliver(Subscription subscription, EventMessage message) {
+        switch (subscription.mMode) {
+            case MAIN:
+                if (isMainThread()) {
+                    invoke(subscription, message);
+                } else {
+                    getHandler().post(() -> invoke(subscription, message));
+                }
+                break;
+            case MAIN_ORDERED:
+                getHandler().post(() -> invoke(subscription, message));
+                break;
+            case BACKGROUND:
+                if (isMainThread()) {
+                    getBackground().execute(() -> invoke(subscription, message));
+                } else {
+                    invoke(subscription, message);
+                }
+                break;
+            default:
+                invoke(subscription, message);
+                break;
+        }
+    }
+
+    private static void invoke(Subscription subscription, EventMessage message) {
+        try {
+            subscription.mListener.onEvent(message);
+        } catch (Exception e) {
+            LogUtil.e("EventDispatcher分发消息失败：" + message + "  error：" + e.getMessage());
+        }
+    }
+
+    private static boolean isMainThread() {
+        return Looper.myLooper() == Looper.getMainLooper();
+    }
+
+    private Handler getHandler() {
+        if (mHandler == null) {
+            synchronized (mLock) {
+                if (mHandler == null) {
+                    mHandler = new Handler(Looper.getMainLooper());
+                }
+            }
+        }
+        return mHandler;
+    }
+
+    private ExecutorService getBackground() {
+        if (mBackground == null) {
+            synchronized (mLock) {
+                if (mBackground == null) {
+                    mBackground = Executors.newSingleThreadExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, "event-dispatcher");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return mBackground;
+    }
+
+    private static int indexOf(Subscription[] subscriptions, EventMessageListener listener) {
+        for (int i = 0; i < subscriptions.length; i++) {
+            if (subscriptions[i].mListener == listener) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Subscription[] remove(Subscription[] subscriptions, int index) {
+        if (subscriptions.length == 1) {
+            return EMPTY;
+        }
+        Subscription[] copy = new Subscription[subscriptions.length - 1];
+        System.arraycopy(subscriptions, 0, copy, 0, index);
+        System.arraycopy(subscriptions, index + 1, copy, index, copy.length - index);
+        return copy;
+    }
+
+    /**
+     * 回调的线程
+     */
+    public enum ThreadMode {
+        /**
+         * 在发送消息的线程中直接回调
+         */
+        POSTING,
+        /**
+         * 在主线程中回调，如果发送的时候就在主线程，则直接回调
+         */
+        MAIN,
+        /**
+         * 始终通过Handler排队之后在主线程中回调，和发送的顺序一致
+         */
+        MAIN_ORDERED,
+        /**
+         * 在子线程中回调，如果发送的时候就在子线程，则直接回调，否则在一个单独的后台线程中按顺序回调
+         */
+        BACKGROUND
+    }
+
+    private static final class Subscription {
+        final ThreadMode mMode;
+        final EventMessageListener mListener;
+
+        Subscription(ThreadMode mode, EventMessageListener listener) {
+            mMode = mode;
+            mListener = listener;
+        }
+    }
+
+    /**
+     * 开放寻址表，key是消息的code，value是监听的数组。
+     * 表在发布之后就不再修改，修改的时候重新创建一个新的表，没有监听的code直接丢弃，所以不需要处理删除的占位
+     */
+    private static final class Table {
+        final int[] mKeys;
+        final Subscription[][] mValues;
+        int mSize;
+
+        Table(int capacity) {
+            mKeys = new int[capacity];
+            mValues = new Subscription[capacity][];
+        }
+
+        Subscription[] get(int code) {
+            int mask = mKeys.length - 1;
+            int index = hash(code) & mask;
+            Subscription[] value;
+            while ((value = mValues[index]) != null) {
+                if (mKeys[index] == code) {
+                    return value;
+                }
+                index = (index + 1) & mask;
+            }
+            return EMPTY;
+        }
+
+        /**
+         * @return 把code对应的监听替换成subscriptions之后的新表，当前的表不会改变
+         */
+        Table with(int code, Subscription[] subscriptions) {
+            int capacity = 16;
+            while ((mSize + 1) * 2 > capacity) {
+                capacity <<= 1;
+            }
+            Table table = new Table(capacity);
+            for (int i = 0; i < mKeys.length; i++) {
+                if (mValues[i] != null && mKeys[i] != code) {
+                    table.put(mKeys[i], mValues[i]);
+                }
+            }
+            if (subscriptions.length > 0) {
+                table.put(code, subscriptions);
+            }
+            return table;
+        }
+
+        private void put(int code, Subscription[] subscriptions) {
+            int mask = mKeys.length - 1;
+            int index = hash(code) & mask;
+            while (mValues[index] != null) {
+                index = (index + 1) & mask;
+            }
+            mKeys[index] = code;
+            mValues[index] = subscriptions;
+            mSize++;
+        }
+
+        private static int hash(int code) {
+            int h = code * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
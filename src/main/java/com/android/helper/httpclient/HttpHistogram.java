@@ -0,0 +1,117 @@
+package com.android.helper.httpclient;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @author : 流星
+ * @CreateDate: 2026/10/17-13:45
+ * @Description: 固定内存、无锁的耗时直方图，参考HdrHistogram的分桶方式
+ * <ol>
+ *     1：数值的单位是微秒，小于32的数值每个值一个桶，大于等于32的数值按照2的幂分段，每段再分成16个子桶，相对误差不超过1/16。
+ *     2：最大可以记录2^31微秒（大约35分钟），超出的数值会记录到最后一个桶中。
+ *     3：一共{@link #BUCKET_COUNT}个桶，写入只需要一次原子自增，多个线程同时写入不需要加锁。
+ * </ol>
+ */
+public final class HttpHistogram {
+
+    private static final int SUB_BUCKET_COUNT = 32;
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT / 2;
+    private static final long MAX_VALUE = (1L << 31) - 1;
+    static final int BUCKET_COUNT = bucketIndex(MAX_VALUE) + 1;
+
+    private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong mCount = new AtomicLong();
+    private final AtomicLong mSum = new AtomicLong();
+    private final AtomicLong mMax = new AtomicLong();
+
+    /**
+     * @param micros 需要记录的耗时，单位是微秒，小于0的数值会被忽略
+     */
+    public void record(long micros) {
+        if (micros < 0) {
+            return;
+        }
+        long value = Math.min(micros, MAX_VALUE);
+        mBuckets.incrementAndGet(bucketIndex(value));
+        mCount.incrementAndGet();
+        mSum.addAndGet(value);
+
+        long max;
+        do {
+            max = mMax.get();
+        } while (value > max && !mMax.compareAndSet(max, value));
+    }
+
+    public long getCount() {
+        return mCount.get();
+    }
+
+    /**
+     * @return 最大耗时，单位是微秒
+     */
+    public long getMax() {
+        return mMax.get();
+    }
+
+    /**
+     * @return 平均耗时，单位是微秒
+     */
+    public long getMean() {
+        long count = mCount.get();
+        return count == 0 ? 0 : mSum.get() / count;
+    }
+
+    /**
+     * @param percentile 百分位，例如50、95、99
+     * @return 对应百分位的耗时，单位是微秒，返回的是所在桶的上限，没有数据的时候返回0
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = mCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        double p = Math.max(0, Math.min(100, percentile));
+        long target = Math.max(1, (long) Math.ceil(p / 100 * count));
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += mBuckets.get(i);
+            if (total >= target) {
+                return Math.min(highestEquivalentValue(i), mMax.get());
+            }
+        }
+        return mMax.get();
+    }
+
+    /**
+     * 清空所有的数据
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mBuckets.set(i, 0);
+        }
+        mCount.set(0);
+        mSum.set(0);
+        mMax.set(0);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        // 保留最高的5位，剩下的位数作为分段
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - 4;
+        int top = (int) (value >>> shift);
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF + (top - SUB_BUCKET_HALF);
+    }
+
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int offset = index - SUB_BUCKET_COUNT;
+        int shift = offset / SUB_BUCKET_HALF + 1;
+        long top = offset % SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+        return ((top + 1) << shift) - 1;
+    }
+}
@@ -2,17 +2,11 @@ package com.android.helper.httpclient;
 
 import android.text.TextUtils;
 
-import com.android.common.utils.LogUtil;
-import com.android.helper.app.BaseApplication;
-import com.google.gson.JsonObject;
-
 import java.io.EOFException;
 import java.io.IOException;
-import java.net.URLDecoder;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.nio.charset.UnsupportedCharsetException;
-import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 import okhttp3.Headers;
@@ -25,140 +19,139 @@ import okhttp3.Response;
 import okhttp3.ResponseBody;
 import okhttp3.internal.http.HttpHeaders;
 import okio.Buffer;
-import okio.BufferedSource;
 
 /**
  * 自定义的日志拦截器
+ * <ol>
+ *     1：拦截器本身不保存任何请求的状态，每个请求都会生成一个不可变的{@link HttpLogRecord}，多个请求并发的时候不会互相覆盖。
+ *     2：日志的格式化和输出都交给{@link HttpLogWriter}的后台线程，不占用OkHttp的分发线程。
+ *     3：请求体和返回内容最多只截取{@link Builder#setMaxBodyBytes(long)}个字节，并且可以通过{@link Builder#setSampleRate(float)}按比例采样。
+ *     4：返回内容使用{@link HttpLogResponseBody}在调用者读取的时候顺带截取，流关闭之后才输出日志，所以只有返回内容被读取或者关闭之后才会看到日志。
+ * </ol>
  */
 public class HttpLogInterceptor implements Interceptor {
 
     private static final Charset UTF8 = StandardCharsets.UTF_8;
 
-    private JsonObject mHeards;// 请求头
-    private String mRequestBody;// 请求到的数据
-    private String mParameter = "";// 请求参数
-    private String mPath;// 请求路径
-    private String decodeHeard;
-    private String mMethod;
+    /**
+     * 默认截取内容的最大字节数
+     */
+    public static final long DEFAULT_MAX_BODY_BYTES = 64 * 1024;
+
+    private final long mMaxBodyBytes;// 截取内容的最大字节数
+    private final float mSampleRate;// 截取内容的采样率，范围是0到1
+
+    public HttpLogInterceptor() {
+        this(new Builder());
+    }
+
+    public HttpLogInterceptor(Builder builder) {
+        mMaxBodyBytes = builder.mMaxBodyBytes;
+        mSampleRate = builder.mSampleRate;
+    }
 
     @Override
     public Response intercept(Chain chain) throws IOException {
         Request request = chain.request();
-        RequestBody requestBody = request.body();
-        boolean hasRequestBody = requestBody != null;
-
-        // 请求方法
-        mMethod = request.method();
         HttpUrl url = request.url();
-        String path = url.encodedPath();
-        if (!TextUtils.isEmpty(path)) {
-            String baseUrl = BaseApplication.getInstance().getBaseUrl();
-            if (path.contains(baseUrl)) {
-                mPath = path.replace(baseUrl, "");
-            } else {
-                mPath = path;
-            }
-        }
+        Headers headers = request.headers();
+        // 当前的请求是否需要截取内容
+        boolean sampled = isSampled();
 
-        String host = url.host();
         // 请求参数
-        String parameters = url.encodedQuery();
-        if (!TextUtils.isEmpty(parameters)) {
-            assert parameters != null;
-            mParameter = "{ " + parameters.replace("&", " , ") + " }";
+        String parameter = "";
+        String query = url.encodedQuery();
+        if (!TextUtils.isEmpty(query)) {
+            parameter = "{ " + query.replace("&", " , ") + " }";
         }
 
-        // 获取请求头信息
-        Headers headers = request.headers();
-        if (headers.size() > 0) {
-            mHeards = new JsonObject();
-            for (int i = 0, count = headers.size(); i < count; i++) {
-                String name = headers.name(i);
-                if (!"Content-Type".equalsIgnoreCase(name) && !"Content-Length".equalsIgnoreCase(name)) {
-                    String value = headers.value(i);
-                    this.mHeards.addProperty(name, value);
+        RequestBody requestBody = request.body();
+        if (requestBody != null) {
+            if (bodyEncoded(headers)) {
+                parameter = "(encoded body omitted)";
+            } else if (!sampled) {
+                parameter = "(body not sampled)";
+            } else if (requestBody.contentLength() > mMaxBodyBytes) {
+                parameter = "(" + requestBody.contentLength() + "-byte body omitted)";
+            } else {
+                Buffer buffer = new Buffer();
+                requestBody.writeTo(buffer);
+                if (isPlaintext(buffer)) {
+                    parameter = buffer.readString(Math.min(buffer.size(), mMaxBodyBytes), getCharset(requestBody.contentType()));
                 }
             }
         }
 
-        if (!hasRequestBody) {
-        } else if (bodyEncoded(request.headers())) {
-            LogUtil.e("----net6", "----> END " + "  " + request.method() + " (encoded body omitted)");
-        } else {
-            Buffer buffer = new Buffer();
-            requestBody.writeTo(buffer);
-
-            Charset charset = UTF8;
-            MediaType contentType = requestBody.contentType();
-            if (contentType != null) {
-                charset = contentType.charset(UTF8);
-            }
-
-            if (isPlaintext(buffer)) {
-                mParameter = buffer.readString(charset);
-            }
-        }
-
         long startNs = System.nanoTime();
         Response response;
         try {
             response = chain.proceed(request);
         } catch (Exception e) {
-            LogUtil.e("----net10", "<-- 连接错误: " + e.getMessage());
+            HttpLogWriter.getInstance()
+                    .offer(new HttpLogRecord(request.method(), url, headers, parameter, 0, 0, null, e.getMessage()));
             throw e;
         }
 
         // 请求时长
         long tookMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs);
 
-        ResponseBody responseBody = response.body();
-        assert responseBody != null;
-        long contentLength = responseBody.contentLength();
-        // 装填码
+        String method = request.method();
         int code = response.code();
-
-        if (!HttpHeaders.hasBody(response)) {
-            LogUtil.e("----net12", "<---- END " + "HTTP");
+        ResponseBody responseBody = response.body();
+        if (responseBody == null || !HttpHeaders.hasBody(response)) {
+            offer(method, url, headers, parameter, tookMs, code, "END HTTP");
         } else if (bodyEncoded(response.headers())) {
-            LogUtil.e("----net13", "<---- END " + "HTTP (encoded body omitted)");
+            offer(method, url, headers, parameter, tookMs, code, "(encoded body omitted)");
+        } else if (!sampled || responseBody.contentLength() == 0) {
+            offer(method, url, headers, parameter, tookMs, code, null);
         } else {
-            BufferedSource source = responseBody.source();
-            source.request(Long.MAX_VALUE); // Buffer the entire body.
-            Buffer buffer = source.buffer();
-
-            Charset charset = UTF8;
-            MediaType contentType = responseBody.contentType();
-            if (contentType != null) {
-                try {
-                    charset = contentType.charset(UTF8);
-                } catch (UnsupportedCharsetException e) {
-                    return response;
+            // 调用者读取数据的同时截取前面的内容，流关闭的时候再输出日志，不会提前把整个返回内容读到内存中
+            Charset charset = getCharset(responseBody.contentType());
+            String finalParameter = parameter;
+            HttpLogResponseBody body = new HttpLogResponseBody(responseBody, mMaxBodyBytes, (capture, totalBytes) -> {
+                String content = null;
+                if (isPlaintext(capture)) {
+                    content = capture.readString(charset);
+                    if (totalBytes > mMaxBodyBytes) {
+                        content += "...(" + totalBytes + " bytes)";
+                    }
+                } else if (totalBytes > 0) {
+                    content = "(" + totalBytes + "-byte binary body omitted)";
                 }
-            }
+                offer(method, url, headers, finalParameter, tookMs, code, content);
+            });
+            response = response.newBuilder()
+                    .body(body)
+                    .build();
+        }
+        return response;
+    }
 
-            if (!isPlaintext(buffer)) {
-                return response;
-            }
+    private static void offer(String method, HttpUrl url, Headers headers, String parameter, long tookMs, int code, String content) {
+        HttpLogWriter.getInstance()
+                .offer(new HttpLogRecord(method, url, headers, parameter, tookMs, code, content, null));
+    }
 
-            if (contentLength != 0) {
-                assert charset != null;
-                mRequestBody = buffer.clone().readString(charset);
-            }
+    private boolean isSampled() {
+        if (mSampleRate >= 1f) {
+            return true;
         }
+        if (mSampleRate <= 0f) {
+            return false;
+        }
+        return ThreadLocalRandom.current()
+                .nextFloat() < mSampleRate;
+    }
 
-        // 解析成最新的请求头
-        try {
-            if (mHeards != null && mHeards.size() > 0) {
-                decodeHeard = URLDecoder.decode(mHeards.toString(), "UTF-8");
-            } else {
-                decodeHeard = "";
+    private static Charset getCharset(MediaType contentType) {
+        Charset charset = UTF8;
+        if (contentType != null) {
+            try {
+                charset = contentType.charset(UTF8);
+            } catch (Exception ignored) {
             }
-        } catch (Exception ignored) {
         }
-
-        LogUtil.e(String.format(Locale.CHINA, "请求方式:【 %s 】" + "%n请求地址:【 %s 】" + "%n请求域名:【 %s 】" + "%n请求路径:【 %s 】" + "%n请求头  :【 %s 】" + "%n请求参数:【 %s 】" + "%n响应时间:【 %s ms 】" + "%n响应码: 【 %s 】" + "%n返回内容:【 %s 】 ", mMethod, url, host, mPath, decodeHeard, mParameter, tookMs, code, mRequestBody));
-
-        return response;
+        return charset == null ? UTF8 : charset;
     }
 
     /**
@@ -191,4 +184,29 @@ public class HttpLogInterceptor implements Interceptor {
         String contentEncoding = headers.get("Content-Encoding");
         return contentEncoding != null && !contentEncoding.equalsIgnoreCase("identity");
     }
+
+    public static class Builder {
+        private long mMaxBodyBytes = DEFAULT_MAX_BODY_BYTES;
+        private float mSampleRate = 1f;
+
+        /**
+         * @param maxBodyBytes 请求体和返回内容最多截取的字节数，超出的部分不会出现在日志中
+         */
+        public Builder setMaxBodyBytes(long maxBodyBytes) {
+            mMaxBodyBytes = Math.max(0, maxBodyBytes);
+            return this;
+        }
+
+        /**
+         * @param sampleRate 截取内容的采样率，范围是0到1，1代表每个请求都截取，0代表只记录请求信息，不截取内容
+         */
+        public Builder setSampleRate(float sampleRate) {
+            mSampleRate = Math.max(0f, Math.min(1f, sampleRate));
+            return this;
+        }
+
+        public HttpLogInterceptor build() {
+            return new HttpLogInterceptor(this);
+        }
+    }
 }
@@ -0,0 +1,132 @@
+package com.android.helper.httpclient;
+
+import android.text.TextUtils;
+
+import com.android.helper.app.BaseApplication;
+
+import java.net.URLDecoder;
+import java.util.Locale;
+
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
+
+/**
+ * @author : 流星
+ * @CreateDate: 2026/10/17-10:12
+ * @Description: 单次请求的日志记录，所有字段在构造的时候就已经固定，不可修改，多个请求之间不会互相覆盖。
+ * 拼接字符串、解码请求头这些耗时的操作，全部放到{@link HttpLogWriter}的后台线程中去执行。
+ */
+public final class HttpLogRecord {
+
+    private final String mMethod;// 请求方式
+    private final HttpUrl mUrl;// 请求地址
+    private final Headers mHeaders;// 请求头，OkHttp的Headers本身就是不可变的，可以直接持有
+    private final String mParameter;// 请求参数
+    private final long mTookMs;// 响应时间
+    private final int mCode;// 响应码
+    private final String mResponseBody;// 返回内容，最多只会截取指定的字节数
+    private final String mError;// 连接错误的信息
+
+    HttpLogRecord(String method, HttpUrl url, Headers headers, String parameter, long tookMs, int code, String responseBody, String error) {
+        this.mMethod = method;
+        this.mUrl = url;
+        this.mHeaders = headers;
+        this.mParameter = parameter;
+        this.mTookMs = tookMs;
+        this.mCode = code;
+        this.mResponseBody = responseBody;
+        this.mError = error;
+    }
+
+    public String getMethod() {
+        return mMethod;
+    }
+
+    public HttpUrl getUrl() {
+        return mUrl;
+    }
+
+    public Headers getHeaders() {
+        return mHeaders;
+    }
+
+    public String getParameter() {
+        return mParameter;
+    }
+
+    public long getTookMs() {
+        return mTookMs;
+    }
+
+    public int getCode() {
+        return mCode;
+    }
+
+    public String getResponseBody() {
+        return mResponseBody;
+    }
+
+    public String getError() {
+        return mError;
+    }
+
+    /**
+     * @return 请求路径，如果包含了基类的url，则会去掉基类的url
+     */
+    private String getPath() {
+        String path = mUrl.encodedPath();
+        if (!TextUtils.isEmpty(path)) {
+            String baseUrl = BaseApplication.getInstance()
+                    .getBaseUrl();
+            if (!TextUtils.isEmpty(baseUrl) && path.contains(baseUrl)) {
+                path = path.replace(baseUrl, "");
+            }
+        }
+        return path;
+    }
+
+    /**
+     * @return 解码之后的请求头，过滤掉Content-Type和Content-Length
+     */
+    private String getDecodeHeaders() {
+        if (mHeaders == null || mHeaders.size() <= 0) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = 0, count = mHeaders.size(); i < count; i++) {
+            String name = mHeaders.name(i);
+            if (!"Content-Type".equalsIgnoreCase(name) && !"Content-Length".equalsIgnoreCase(name)) {
+                if (builder.length() > 1) {
+                    builder.append(",");
+                }
+                builder.append("\"")
+                        .append(name)
+                        .append("\":\"")
+                        .append(mHeaders.value(i))
+                        .append("\"");
+            }
+        }
+        builder.append("}");
+        String heards = builder.toString();
+        try {
+            heards = URLDecoder.decode(heards, "UTF-8");
+        } catch (Exception ignored) {
+        }
+        return heards;
+    }
+
+    /**
+     * @return 格式化之后的日志内容，只会在后台线程中调用
+     */
+    String format() {
+        if (!TextUtils.isEmpty(mError)) {
+            return String.format(Locale.CHINA, "请求方式:【 %s 】" + "%n请求地址:【 %s 】" + "%n请求参数:【 %s 】" + "%n连接错误:【 %s 】", mMethod, mUrl, mParameter, mError);
+        }
+        return String.format(Locale.CHINA, "请求方式:【 %s 】" + "%n请求地址:【 %s 】" + "%n请求域名:【 %s 】" + "%n请求路径:【 %s 】" + "%n请求头  :【 %s 】" + "%n请求参数:【 %s 】" + "%n响应时间:【 %s ms 】" + "%n响应码: 【 %s 】" + "%n返回内容:【 %s 】 ", mMethod, mUrl, mUrl.host(), getPath(), getDecodeHeaders(), mParameter, mTookMs, mCode, mResponseBody);
+    }
+
+    @Override
+    public String toString() {
+        return format();
+    }
+}
@@ -0,0 +1,115 @@
+package com.android.helper.httpclient;
+
+import java.io.IOException;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * @author : 流星
+ * @CreateDate: 2026/10/17-11:05
+ * @Description: 边读边截取内容的ResponseBody
+ * <ol>
+ *     1：不会提前把返回内容读到内存中，调用者读取多少，这里就转发多少，只是在转发的同时复制前面的{@link #mMaxBytes}个字节。
+ *     2：当数据读取完毕，或者流被关闭的时候，才会回调{@link OnCaptureListener}，并且只会回调一次。
+ *     3：大文件下载的时候，内存中最多只会多出{@link #mMaxBytes}个字节。
+ * </ol>
+ */
+public class HttpLogResponseBody extends ResponseBody {
+
+    private final ResponseBody mDelegate;
+    private final long mMaxBytes;
+    private final OnCaptureListener mListener;
+    private BufferedSource mSource;
+
+    public HttpLogResponseBody(ResponseBody delegate, long maxBytes, OnCaptureListener listener) {
+        this.mDelegate = delegate;
+        this.mMaxBytes = maxBytes;
+        this.mListener = listener;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return mDelegate.contentType();
+    }
+
+    @Override
+    public long contentLength() {
+        return mDelegate.contentLength();
+    }
+
+    @Override
+    public BufferedSource source() {
+        if (mSource == null) {
+            mSource = Okio.buffer(new CaptureSource(mDelegate.source()));
+        }
+        return mSource;
+    }
+
+    private final class CaptureSource extends ForwardingSource {
+
+        private final Buffer mCapture = new Buffer();// 截取到的内容
+        private long mTotalBytes;// 一共读取的字节数
+        private boolean mFinished;
+
+        CaptureSource(Source delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public long read(Buffer sink, long byteCount) throws IOException {
+            long read;
+            try {
+                read = super.read(sink, byteCount);
+            } catch (IOException e) {
+                finish();
+                throw e;
+            }
+            if (read == -1) {
+                finish();
+                return read;
+            }
+
+            long remain = mMaxBytes - mCapture.size();
+            if (remain > 0) {
+                // 新读取到的数据在sink的末尾
+                sink.copyTo(mCapture, sink.size() - read, Math.min(read, remain));
+            }
+            mTotalBytes += read;
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                finish();
+            }
+        }
+
+        private void finish() {
+            if (mFinished) {
+                return;
+            }
+            mFinished = true;
+            if (mListener != null) {
+                mListener.onCapture(mCapture, mTotalBytes);
+            }
+        }
+    }
+
+    public interface OnCaptureListener {
+
+        /**
+         * @param capture    截取到的内容，最多只有指定的字节数
+         * @param totalBytes 调用者实际读取的字节数
+         */
+        void onCapture(Buffer capture, long totalBytes);
+    }
+}
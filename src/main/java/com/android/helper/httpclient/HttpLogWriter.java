@@ -0,0 +1,89 @@
+package com.android.helper.httpclient;
+
+import com.android.common.utils.LogUtil;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author : 流星
+ * @CreateDate: 2026/10/17-10:20
+ * @Description: 网络日志的后台写入器
+ * <ol>
+ *     1：内部使用一个固定容量的环形队列，拦截器只负责把{@link HttpLogRecord}放进去，不会阻塞OkHttp的分发线程。
+ *     2：只有一个后台线程去消费队列，格式化和打印日志都在这个线程中完成。
+ *     3：队列满了之后，新的日志会被直接丢弃，并记录丢弃的数量，保证请求量很大的时候，日志不会拖慢请求。
+ * </ol>
+ */
+public final class HttpLogWriter {
+
+    private static final String TAG = "HttpLogWriter";
+    /**
+     * 默认的队列容量
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private static volatile HttpLogWriter INSTANCE;
+
+    private final ArrayBlockingQueue<HttpLogRecord> mQueue;
+    private final AtomicLong mDropCount = new AtomicLong();
+
+    private HttpLogWriter(int capacity) {
+        mQueue = new ArrayBlockingQueue<>(capacity);
+        Thread thread = new Thread(this::drain, "http-log-writer");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    public static HttpLogWriter getInstance() {
+        if (INSTANCE == null) {
+            synchronized (HttpLogWriter.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new HttpLogWriter(DEFAULT_CAPACITY);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * @param record 单次请求的日志
+     * @return 放入队列成功返回true，队列满了返回false，日志会被丢弃
+     */
+    public boolean offer(HttpLogRecord record) {
+        if (record == null) {
+            return false;
+        }
+        boolean offer = mQueue.offer(record);
+        if (!offer) {
+            mDropCount.incrementAndGet();
+        }
+        return offer;
+    }
+
+    /**
+     * @return 因为队列满了而被丢弃，并且还没有输出提示的日志数量
+     */
+    public long getDropCount() {
+        return mDropCount.get();
+    }
+
+    private void drain() {
+        while (true) {
+            try {
+                HttpLogRecord record = mQueue.take();
+                LogUtil.e(record.format());
+
+                long drop = mDropCount.getAndSet(0);
+                if (drop > 0) {
+                    LogUtil.e(TAG, "日志队列已满，丢弃了 " + drop + " 条网络日志！");
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (Throwable throwable) {
+                LogUtil.e(TAG, "网络日志输出异常：" + throwable.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.android.helper.httpclient;
+
+import android.text.TextUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author : 流星
+ * @CreateDate: 2026/10/17-14:05
+ * @Description: 网络请求耗时的统计中心，按照 域名 + 路径 分别统计每个阶段的耗时
+ * <ol>
+ *     1：数据来源于{@link HttpMetricsListener}，不需要打开日志也可以统计。
+ *     2：路径中纯数字的片段会被替换成{id}，避免同一个接口因为参数不同被统计成多个接口。
+ *     3：最多统计{@link #MAX_ENDPOINTS}个接口，超出之后同一个域名下的其他接口会合并到 域名 + "/*" 中，保证内存是固定的。
+ *     4：使用方法：HttpMetrics.getInstance().getPercentile(host, path, HttpPhase.TTFB, 95)
+ * </ol>
+ */
+public final class HttpMetrics {
+
+    /**
+     * 最多统计的接口数量
+     */
+    public static final int MAX_ENDPOINTS = 128;
+    private static volatile HttpMetrics INSTANCE;
+
+    private final ConcurrentHashMap<String, Endpoint> mEndpoints = new ConcurrentHashMap<>();
+
+    private HttpMetrics() {
+    }
+
+    public static HttpMetrics getInstance() {
+        if (INSTANCE == null) {
+            synchronized (HttpMetrics.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new HttpMetrics();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * @return 获取指定接口的统计数据，如果接口还没有数据，则会创建一个新的对象
+     */
+    Endpoint obtain(String host, String path) {
+        String normalize = normalizePath(path);
+        String key = host + normalize;
+        Endpoint endpoint = mEndpoints.get(key);
+        if (endpoint == null) {
+            if (mEndpoints.size() >= MAX_ENDPOINTS) {
+                normalize = "/*";
+                key = host + normalize;
+            }
+            Endpoint value = new Endpoint(host, normalize);
+            endpoint = mEndpoints.putIfAbsent(key, value);
+            if (endpoint == null) {
+                endpoint = value;
+            }
+        }
+        return endpoint;
+    }
+
+    /**
+     * @return 指定接口的统计数据，没有数据的时候返回null
+     */
+    public Endpoint getEndpoint(String host, String path) {
+        return mEndpoints.get(host + normalizePath(path));
+    }
+
+    /**
+     * @return 所有的接口统计数据
+     */
+    public List<Endpoint> getEndpoints() {
+        return new ArrayList<>(mEndpoints.values());
+    }
+
+    /**
+     * @param host       域名
+     * @param path       路径
+     * @param phase      请求的阶段
+     * @param percentile 百分位，例如50、95、99
+     * @return 对应百分位的耗时，单位是毫秒，没有数据的时候返回0
+     */
+    public double getPercentile(String host, String path, HttpPhase phase, double percentile) {
+        Endpoint endpoint = getEndpoint(host, path);
+        if (endpoint == null) {
+            return 0;
+        }
+        return endpoint.getHistogram(phase)
+                .getValueAtPercentile(percentile) / 1000d;
+    }
+
+    /**
+     * 清空所有的统计数据
+     */
+    public void clear() {
+        mEndpoints.clear();
+    }
+
+    /**
+     * @return 按照p95的总时长从大到小排列的统计信息，方便直接输出到日志中查找慢接口
+     */
+    public String dump() {
+        List<Endpoint> endpoints = getEndpoints();
+        endpoints.sort((o1, o2) -> Long.compare(o2.getHistogram(HttpPhase.TOTAL)
+                .getValueAtPercentile(95), o1.getHistogram(HttpPhase.TOTAL)
+                .getValueAtPercentile(95)));
+        StringBuilder builder = new StringBuilder();
+        for (Endpoint endpoint : endpoints) {
+            builder.append(endpoint)
+                    .append("\n");
+        }
+        return builder.toString();
+    }
+
+    static String normalizePath(String path) {
+        if (TextUtils.isEmpty(path)) {
+            return "/";
+        }
+        StringBuilder builder = null;
+        int start = 0;
+        int length = path.length();
+        for (int i = 0; i <= length; i++) {
+            if (i == length || path.charAt(i) == '/') {
+                if (i > start && isNumber(path, start, i)) {
+                    // 第一次遇到数字的片段时，才去拼接新的路径
+                    if (builder == null) {
+                        builder = new StringBuilder(length);
+                        builder.append(path, 0, start);
+                    }
+                    builder.append("{id}");
+                } else if (builder != null) {
+                    builder.append(path, start, i);
+                }
+                if (builder != null && i < length) {
+                    builder.append('/');
+                }
+                start = i + 1;
+            }
+        }
+        return builder == null ? path : builder.toString();
+    }
+
+    private static boolean isNumber(String path, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = path.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 单个接口的统计数据
+     */
+    public static final class Endpoint {
+
+        private final String mHost;
+        private final String mPath;
+        private final HttpHistogram[] mHistograms = new HttpHistogram[HttpPhase.values().length];
+        private final AtomicLong mFailCount = new AtomicLong();
+
+        Endpoint(String host, String path) {
+            this.mHost = host;
+            this.mPath = path;
+            for (int i = 0; i < mHistograms.length; i++) {
+                mHistograms[i] = new HttpHistogram();
+            }
+        }
+
+        public String getHost() {
+            return mHost;
+        }
+
+        public String getPath() {
+            return mPath;
+        }
+
+        public HttpHistogram getHistogram(HttpPhase phase) {
+            return mHistograms[phase.ordinal()];
+        }
+
+        /**
+         * @return 请求失败的次数
+         */
+        public long getFailCount() {
+            return mFailCount.get();
+        }
+
+        void record(HttpPhase phase, long micros) {
+            mHistograms[phase.ordinal()].record(micros);
+        }
+
+        void fail() {
+            mFailCount.incrementAndGet();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            builder.append(mHost)
+                    .append(mPath)
+                    .append(" count:")
+                    .append(getHistogram(HttpPhase.TOTAL).getCount())
+                    .append(" fail:")
+                    .append(getFailCount());
+            for (HttpPhase phase : HttpPhase.values()) {
+                HttpHistogram histogram = getHistogram(phase);
+                if (histogram.getCount() > 0) {
+                    builder.append(String.format(Locale.CHINA, " %s[p50:%.1f p95:%.1f p99:%.1f]ms", phase, histogram.getValueAtPercentile(50) / 1000d, histogram.getValueAtPercentile(95) / 1000d, histogram.getValueAtPercentile(99) / 1000d));
+                }
+            }
+            return builder.toString();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.android.helper.httpclient;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.HttpUrl;
+import okhttp3.Protocol;
+import okhttp3.Request;
+
+/**
+ * @author : 流星
+ * @CreateDate: 2026/10/17-14:30
+ * @Description: 统计单次请求各个阶段耗时的监听，每个请求都会创建一个新的对象，请求结束的时候把数据汇总到{@link HttpMetrics}中
+ * <ol>
+ *     使用方法：
+ *     1：在{@link com.android.helper.app.ApplicationInterface#getEventListenerFactory()}中返回{@link #FACTORY}。
+ *     2：或者直接在OkHttpClient.Builder中调用eventListenerFactory(HttpMetricsListener.FACTORY)。
+ *     3：查询数据使用{@link HttpMetrics#getPercentile(String, String, HttpPhase, double)}或者{@link HttpMetrics#dump()}。
+ * </ol>
+ */
+public class HttpMetricsListener extends EventListener {
+
+    public static final EventListener.Factory FACTORY = call -> new HttpMetricsListener();
+
+    private HttpMetrics.Endpoint mEndpoint;
+    private long mCallStart;
+    private long mDnsStart;
+    private long mConnectStart;
+    private long mSecureConnectStart;
+    private long mRequestStart;
+    private long mRequestEnd;
+    private long mResponseBodyStart;
+
+    private static long now() {
+        return System.nanoTime() / 1000;
+    }
+
+    private void record(HttpPhase phase, long start) {
+        if (mEndpoint != null && start > 0) {
+            mEndpoint.record(phase, now() - start);
+        }
+    }
+
+    @Override
+    public void callStart(Call call) {
+        mCallStart = now();
+        HttpUrl url = call.request()
+                .url();
+        mEndpoint = HttpMetrics.getInstance()
+                .obtain(url.host(), url.encodedPath());
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        mDnsStart = now();
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+        record(HttpPhase.DNS, mDnsStart);
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        mConnectStart = now();
+    }
+
+    @Override
+    public void secureConnectStart(Call call) {
+        mSecureConnectStart = now();
+    }
+
+    @Override
+    public void secureConnectEnd(Call call, Handshake handshake) {
+        record(HttpPhase.TLS, mSecureConnectStart);
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        record(HttpPhase.CONNECT, mConnectStart);
+    }
+
+    @Override
+    public void requestHeadersStart(Call call) {
+        mRequestStart = now();
+    }
+
+    @Override
+    public void requestHeadersEnd(Call call, Request request) {
+        mRequestEnd = now();
+    }
+
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+        mRequestEnd = now();
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+        if (mRequestStart > 0 && mRequestEnd > 0) {
+            if (mEndpoint != null) {
+                mEndpoint.record(HttpPhase.REQUEST_WRITE, mRequestEnd - mRequestStart);
+            }
+            record(HttpPhase.TTFB, mRequestEnd);
+        }
+        mRequestStart = 0;
+        mRequestEnd = 0;
+    }
+
+    @Override
+    public void responseBodyStart(Call call) {
+        mResponseBodyStart = now();
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        record(HttpPhase.BODY_READ, mResponseBodyStart);
+    }
+
+    @Override
+    public void callEnd(Call call) {
+        record(HttpPhase.TOTAL, mCallStart);
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        if (mEndpoint != null) {
+            mEndpoint.fail();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.android.helper.httpclient;
+
+/**
+ * @author : 流星
+ * @CreateDate: 2026/10/17-13:40
+ * @Description: 单次请求的各个耗时阶段
+ */
+public enum HttpPhase {
+    /**
+     * 域名解析
+     */
+    DNS,
+    /**
+     * 建立连接，包含了TLS握手的时间
+     */
+    CONNECT,
+    /**
+     * TLS握手
+     */
+    TLS,
+    /**
+     * 写入请求头和请求体
+     */
+    REQUEST_WRITE,
+    /**
+     * 请求写完之后，到收到第一个响应头的时间
+     */
+    TTFB,
+    /**
+     * 读取返回内容
+     */
+    BODY_READ,
+    /**
+     * 请求的总时长
+     */
+    TOTAL
+}
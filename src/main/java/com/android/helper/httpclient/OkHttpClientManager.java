@@ -0,0 +1,174 @@
+package com.android.helper.httpclient;
+
+import com.android.helper.app.BaseApplication;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * @author : 流星
+ * @CreateDate: 2026/10/17-15:20
+ * @Description: 全局共享的OkHttpClient
+ * <ol>
+ *     1：整个项目只使用一个连接池和一个分发器，连接可以复用，HTTP/2可以多路复用，不会每次请求都去创建新的线程池。
+ *     2：需要修改配置的话，在第一次使用之前调用{@link #setBuilder(Builder)}，否则使用默认的配置。
+ *     3：公用的拦截器和事件监听来自{@link BaseApplication#getInterceptors()}和{@link BaseApplication#getEventListenerFactory()}。
+ *     4：如果需要单独的超时时间或者拦截器，使用{@link #newBuilder()}，得到的Builder依旧共享同一个连接池和分发器。
+ * </ol>
+ */
+public final class OkHttpClientManager {
+
+    private static volatile OkHttpClientManager INSTANCE;
+    private Builder mBuilder = new Builder();
+    private volatile OkHttpClient mClient;
+
+    private OkHttpClientManager() {
+    }
+
+    public static OkHttpClientManager getInstance() {
+        if (INSTANCE == null) {
+            synchronized (OkHttpClientManager.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new OkHttpClientManager();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * @param builder 设置连接池和分发器的配置，如果已经创建过了client，会使用新的配置重新创建
+     */
+    public synchronized OkHttpClientManager setBuilder(Builder builder) {
+        if (builder != null) {
+            mBuilder = builder;
+            mClient = null;
+        }
+        return this;
+    }
+
+    /**
+     * @return 全局共享的OkHttpClient
+     */
+    public OkHttpClient getClient() {
+        OkHttpClient client = mClient;
+        if (client == null) {
+            synchronized (this) {
+                client = mClient;
+                if (client == null) {
+                    client = createClient();
+                    mClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    /**
+     * @return 基于共享client的Builder，修改超时、拦截器之后，依旧使用同一个连接池和分发器
+     */
+    public OkHttpClient.Builder newBuilder() {
+        return getClient().newBuilder();
+    }
+
+    /**
+     * 同步发送一个HEAD请求，不会下载返回内容，需要在子线程中调用，使用完毕之后需要关闭Response。
+     * 请求不使用压缩，返回的Content-Length就是原始数据的大小
+     *
+     * @param url 请求的地址
+     * @return 返回的结果
+     */
+    public Response head(String url) throws IOException {
+        Request request = new Request.Builder().url(url)
+                .header("Accept-Encoding", "identity")
+                .head()
+                .build();
+        return getClient().newCall(request)
+                .execute();
+    }
+
+    private OkHttpClient createClient() {
+        Builder builder = mBuilder;
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(builder.mMaxRequests);
+        dispatcher.setMaxRequestsPerHost(builder.mMaxRequestsPerHost);
+
+        OkHttpClient.Builder clientBuilder = new OkHttpClient.Builder().dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(builder.mMaxIdleConnections, builder.mKeepAliveSeconds, TimeUnit.SECONDS))
+                .connectTimeout(builder.mConnectTimeoutSeconds, TimeUnit.SECONDS)
+                .readTimeout(builder.mReadTimeoutSeconds, TimeUnit.SECONDS)
+                .writeTimeout(builder.mWriteTimeoutSeconds, TimeUnit.SECONDS)
+                .retryOnConnectionFailure(true);
+
+        BaseApplication application = BaseApplication.getInstance();
+        Interceptor[] interceptors = application.getInterceptors();
+        if (interceptors != null) {
+            for (Interceptor interceptor : interceptors) {
+                if (interceptor != null) {
+                    clientBuilder.addInterceptor(interceptor);
+                }
+            }
+        }
+        EventListener.Factory factory = application.getEventListenerFactory();
+        if (factory != null) {
+            clientBuilder.eventListenerFactory(factory);
+        }
+        return clientBuilder.build();
+    }
+
+    public static class Builder {
+        private int mMaxIdleConnections = 5;
+        private long mKeepAliveSeconds = 5 * 60;
+        private int mMaxRequests = 64;
+        private int mMaxRequestsPerHost = 5;
+        private long mConnectTimeoutSeconds = 15;
+        private long mReadTimeoutSeconds = 30;
+        private long mWriteTimeoutSeconds = 30;
+
+        /**
+         * @param maxIdleConnections 连接池中最多保留的空闲连接数
+         * @param keepAliveSeconds   空闲连接保留的时间，单位是秒
+         */
+        public Builder setConnectionPool(int maxIdleConnections, long keepAliveSeconds) {
+            mMaxIdleConnections = maxIdleConnections;
+            mKeepAliveSeconds = keepAliveSeconds;
+            return this;
+        }
+
+        /**
+         * @param maxRequests 同时执行的最大请求数
+         */
+        public Builder setMaxRequests(int maxRequests) {
+            mMaxRequests = maxRequests;
+            return this;
+        }
+
+        /**
+         * @param maxRequestsPerHost 同一个域名同时执行的最大请求数
+         */
+        public Builder setMaxRequestsPerHost(int maxRequestsPerHost) {
+            mMaxRequestsPerHost = maxRequestsPerHost;
+            return this;
+        }
+
+        /**
+         * @param connectTimeoutSeconds 连接超时，单位是秒
+         * @param readTimeoutSeconds    读取超时，单位是秒
+         * @param writeTimeoutSeconds   写入超时，单位是秒
+         */
+        public Builder setTimeout(long connectTimeoutSeconds, long readTimeoutSeconds, long writeTimeoutSeconds) {
+            mConnectTimeoutSeconds = connectTimeoutSeconds;
+            mReadTimeoutSeconds = readTimeoutSeconds;
+            mWriteTimeoutSeconds = writeTimeoutSeconds;
+            return this;
+        }
+    }
+}
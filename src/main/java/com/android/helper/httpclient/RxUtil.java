@@ -5,11 +5,13 @@ import androidx.fragment.app.FragmentActivity;
 
 import com.android.common.utils.LogUtil;
 import com.android.helper.interfaces.lifecycle.BaseLifecycleObserver;
+import com.android.helper.utils.tick.Countdown;
+import com.android.helper.utils.tick.TickService;
+import com.android.helper.utils.tick.TickTask;
 
 import java.util.concurrent.TimeUnit;
 
 import io.reactivex.FlowableTransformer;
-import io.reactivex.Observable;
 import io.reactivex.ObservableTransformer;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.Disposable;
@@ -19,7 +21,7 @@ public class RxUtil implements BaseLifecycleObserver {
 
     private FragmentActivity mActivity;
     private Fragment mFragment;
-    private Disposable mSubscribeCountdown;
+    private Disposable mTimer;
 
     public RxUtil(Builder builder) {
         if (builder != null) {
@@ -63,7 +65,7 @@ public class RxUtil implements BaseLifecycleObserver {
      *
      * @param totalTime    总的时长，单位是毫秒
      * @param initialDelay 第一次发送的延迟时间，单位是毫秒
-     * @param period       间隔的时间，单位是毫秒，这里只是指定数值
+     * @param period       剩余时间每变化多少毫秒回调一次，单位是毫秒，这里只是指定数值
      *                     <ui>
      *                     间隔时间的单位，TimeUnit是一个枚举类型，直接调用需要使用的单位即可，如：TimeUnit.MINUTES
      *                     1毫秒 ： {@link TimeUnit#MILLISECONDS}
@@ -74,34 +76,29 @@ public class RxUtil implements BaseLifecycleObserver {
      *                     </ui>
      */
     public void countdown(long totalTime, long initialDelay, long period, CountdownListener countdownListener) {
-        /*
-         * 第一个参数：总的倒计时数据
-         * 第二个参数：当前的计数器
-         * 第三个参数：当前的倒计时
-         */
-        long[] countdown = {totalTime, 0, 0};
-
-        mSubscribeCountdown = Observable.interval(initialDelay, period, TimeUnit.MILLISECONDS)
-                .compose(RxUtil.getSchedulerObservable())
-                .map(aLong -> { // 转换数据，把倒计时的数据发送出去
-                    // 当前的计数器
-                    countdown[1] = aLong + 1;
-
-                    // 总计数每次减一秒
-                    countdown[0] -= 1000;
-
-                    return countdown[0];
-                })
-                .takeUntil(aLong -> { // 条件处理器，用来中断倒计时
-                    // takeUntil takeUntil
-                    return countdown[0] < 0;
-                })
-                .subscribe(aLong -> { // 发送结果
-                    countdown[2] = aLong;
-                    if (countdownListener != null) {
-                        countdownListener.countdown(mSubscribeCountdown, countdown[1], countdown[2]);
-                    }
-                });
+        cancelTick();
+        // 剩余的时间根据结束的时间计算，不会因为卡顿产生误差，每个period回调一次，结束的时候回调一次0
+        Countdown countdown = new Countdown(totalTime, period, new Countdown.OnCountdownListener() {
+            @Override
+            public void onTick(Countdown countdown, long remaining) {
+                if (countdownListener != null) {
+                    countdownListener.countdown(countdown, countdown.getCount(), remaining);
+                }
+            }
+
+            @Override
+            public void onFinish(Countdown countdown) {
+                if (countdownListener != null) {
+                    countdownListener.countdown(countdown, countdown.getCount(), 0);
+                }
+            }
+        });
+        if (mActivity != null) {
+            countdown.bind(mActivity);
+        } else if (mFragment != null) {
+            countdown.bind(mFragment);
+        }
+        mTimer = countdown.start(initialDelay);
     }
 
     /**
@@ -111,20 +108,37 @@ public class RxUtil implements BaseLifecycleObserver {
      * @param counterListener 计数器的回调
      */
     public void counter(long totalTime, long initialDelay, long period, CounterListener counterListener) {
-        mSubscribeCountdown = Observable.interval(initialDelay, period, TimeUnit.MILLISECONDS)
-                .compose(RxUtil.getSchedulerObservable())
-                .takeUntil(aLong -> { // 条件处理器，用来中断倒计时,
-                    if (totalTime != 0) {
-                        return aLong * period >= totalTime;
-                    } else {
-                        return false;
-                    }
-                })
-                .subscribe(aLong -> { // 发送结果
-                    if (counterListener != null) {
-                        counterListener.counter(mSubscribeCountdown, aLong);
-                    }
-                });
+        cancelTick();
+        mTimer = bindLifecycle(TickService.getInstance().schedule(initialDelay, period, (task, count) -> {
+            // 计数器从0开始
+            long counter = count - 1;
+            if (counterListener != null) {
+                counterListener.counter(task, counter);
+            }
+            // 条件处理器，用来中断计数器
+            if (totalTime != 0 && counter * period >= totalTime) {
+                task.cancel();
+            }
+        }));
+    }
+
+    /**
+     * 定时任务关联页面的生命周期，页面不可见的时候暂停，页面销毁的时候取消
+     */
+    private TickTask bindLifecycle(TickTask task) {
+        if (mActivity != null) {
+            task.bind(mActivity);
+        } else if (mFragment != null) {
+            task.bind(mFragment);
+        }
+        return task;
+    }
+
+    private void cancelTick() {
+        if (mTimer != null) {
+            mTimer.dispose();
+            mTimer = null;
+        }
     }
 
     @Override
@@ -156,11 +170,7 @@ public class RxUtil implements BaseLifecycleObserver {
     public void onDestroy() {
         LogUtil.e("rxUtil ---> onDestroy");
         // 中断的操作
-        if (mSubscribeCountdown != null) {
-            if (!mSubscribeCountdown.isDisposed()) {
-                mSubscribeCountdown.dispose();
-            }
-        }
+        cancelTick();
     }
 
     public static class Builder {
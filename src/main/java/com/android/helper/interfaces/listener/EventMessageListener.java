@@ -0,0 +1,11 @@
+package com.android.helper.interfaces.listener;
+
+import com.android.helper.common.EventMessage;
+
+/**
+ * {@link com.android.helper.common.EventDispatcher}的消息回调
+ */
+public interface EventMessageListener {
+
+    void onEvent(EventMessage message);
+}
@@ -0,0 +1,15 @@
+package com.android.helper.interfaces.room;
+
+/**
+ * 批量插入数据的回调，对应@Dao中 long[] insertAll(List&lt;T&gt; list) 这类的方法
+ */
+public interface RoomInsertAllListener {
+
+    long[] insertAll();
+
+    /**
+     * @param ids room插入成功后返回的id集合，顺序和插入的数据一致，某一条插入失败的时候对应的id为-1，
+     *            如果整体插入失败，则返回一个空的数组
+     */
+    void onResult(boolean success, long[] ids, String errorMsg);
+}
@@ -0,0 +1,15 @@
+package com.android.helper.interfaces.room;
+
+/**
+ * 执行Room事务的对象，一般直接使用RoomDatabase的runInTransaction方法，例如：
+ * <pre>
+ *     RoomUtil.getInstance().setTransaction(RoomManager.getInstance()::runInTransaction);
+ * </pre>
+ */
+public interface RoomTransaction {
+
+    /**
+     * @param body 需要在同一个事务中执行的操作，抛出异常的时候整个事务都会回滚
+     */
+    void runInTransaction(Runnable body);
+}
@@ -7,11 +7,10 @@ import android.text.TextUtils;
 import com.android.helper.httpclient.RxUtil;
 import com.android.helper.interfaces.listener.CallBackListener;
 
-import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 
 import io.reactivex.BackpressureStrategy;
 import io.reactivex.Flowable;
@@ -19,6 +18,8 @@ import io.reactivex.FlowableEmitter;
 import io.reactivex.FlowableOnSubscribe;
 import io.reactivex.annotations.NonNull;
 import io.reactivex.subscribers.DisposableSubscriber;
+import okio.BufferedSource;
+import okio.Okio;
 
 public class AssetsUtil {
 
@@ -91,25 +92,18 @@ public class AssetsUtil {
     }
 
     /**
+     * 一次性读取整个文件再去掉换行符，和按行读取之后再拼接的结果一致，不需要逐行的创建字符串
+     *
      * @param context  上下文
      * @param fileName assets中的文件名字,全文见路径，例如：address.json
      */
     public String getJsonForAssets(Context context, String fileName) {
         String result = "";  // 数据的结果
         if ((context != null) && (!TextUtils.isEmpty(fileName))) {
-            StringBuilder stringBuilder = new StringBuilder();
-            try {
-                AssetManager assetManager = context.getAssets();
-                BufferedReader bf = new BufferedReader(new InputStreamReader(assetManager.open(fileName)));
-                String line;
-                while ((line = bf.readLine()) != null) {
-                    stringBuilder.append(line);
-                }
-                result = stringBuilder.toString();
-                return result;
+            try (BufferedSource source = Okio.buffer(Okio.source(context.getAssets().open(fileName)))) {
+                result = StreamUtil.removeLineBreaks(source.readString(StandardCharsets.UTF_8));
             } catch (IOException e) {
                 e.printStackTrace();
-
             }
         }
         return result;
@@ -1,61 +1,80 @@
 package com.android.helper.utils;
 
-import java.util.Timer;
-import java.util.TimerTask;
+import com.android.helper.utils.tick.Countdown;
 
-public class CountdownTimer extends Timer {
+/**
+ * 倒计时，使用{@link Countdown}根据结束的时间计算剩余的时间，不会因为卡顿产生误差，
+ * 注册到全局共享的TickService中，不会再为每个倒计时单独创建一个Timer线程，回调在主线程中执行
+ */
+public class CountdownTimer {
 
     private final long interval; // time in milliseconds
     private final long totalTime; // time in milliseconds
     private final Callback callback;
-    private final CountdownTimer this_;
     public boolean pause = false;
     private long remainTime;
     private long elapsedTime = 0;
+    private Countdown mCountdown;
 
     public CountdownTimer(int interval, int countdownTime, Callback callback) {
         this.interval = interval;
         this.totalTime = countdownTime;
         this.callback = callback;
-        this_ = this;
     }
 
     public void start() {
-        super.schedule(new CountdownTask(), 0, interval);
+        cancel();
+        mCountdown = new Countdown(totalTime, interval, new Countdown.OnCountdownListener() {
+            @Override
+            public void onTick(Countdown countdown, long remaining) {
+                remainTime = remaining;
+                elapsedTime = totalTime - remaining;
+                callback.onTick(elapsedTime, remainTime);
+            }
+
+            @Override
+            public void onFinish(Countdown countdown) {
+                remainTime = 0;
+                elapsedTime = totalTime;
+                callback.onFinish();
+            }
+        }).start();
     }
 
+    /**
+     * 暂停的时候冻结剩余的时间，不会继续唤醒
+     */
     public void pause() {
         this.pause = true;
+        if (mCountdown != null) {
+            mCountdown.pause();
+        }
     }
 
     public void resume() {
         this.pause = false;
+        if (mCountdown != null) {
+            mCountdown.resume();
+        }
     }
 
     public boolean isPause() {
         return this.pause;
     }
 
+    /**
+     * 停止倒计时，不会再回调
+     */
+    public void cancel() {
+        if (mCountdown != null) {
+            mCountdown.dispose();
+            mCountdown = null;
+        }
+    }
+
     public interface Callback {
         void onTick(long elapsedTime, long remainTime);
 
         void onFinish();
     }
-
-    public class CountdownTask extends TimerTask {
-
-        @Override
-        public void run() {
-            if (!pause) {
-                elapsedTime = interval + elapsedTime;
-                remainTime = totalTime - elapsedTime;
-            }
-            if (elapsedTime > totalTime) {
-                this_.cancel();
-                callback.onFinish();
-            } else if (!pause) {
-                callback.onTick(elapsedTime, remainTime);
-            }
-        }
-    }
 }
@@ -4,6 +4,10 @@ import android.graphics.Paint;
 import android.graphics.Rect;
 import android.text.TextUtils;
 
+/**
+ * 自定义view的工具类，文字的测量结果由{@link TextMetricsCache}缓存，在onDraw、onMeasure中需要宽高的时候，
+ * 优先使用{@link #measureText(Paint, String)}，不会创建数组
+ */
 public class CustomViewUtil {
 
     /**
@@ -12,29 +16,29 @@ public class CustomViewUtil {
      * @return 根据画笔和内容返回baseLine的基线, 适用于view写在开始的位置
      */
     public static float getBaseLine(Paint paint, String content) {
-        if (paint == null || (TextUtils.isEmpty(content))) {
-            return 0f;
-        }
-        Rect rect = new Rect();
-        paint.getTextBounds(content, 0, content.length(), rect);
-        return (float) Math.abs(rect.top);
+        return TextMetricsCache.getInstance().getBaseLine(paint, content);
+    }
+
+    /**
+     * @param paint   画笔
+     * @param content 文字内容
+     * @return 文字的宽高，使用{@link TextMetricsCache#width(long)}、{@link TextMetricsCache#height(long)}读取
+     */
+    public static long measureText(Paint paint, String content) {
+        return TextMetricsCache.getInstance().measure(paint, content);
     }
 
     /**
      * @param paint   画笔
      * @param content 文字内容
-     * @return 根据画笔和文字去获取text的宽高  【0】：宽  【1】：高
+     * @return 根据画笔和文字去获取text的宽高  【0】：宽  【1】：高，每次都会创建数组，频繁调用的地方使用{@link #measureText(Paint, String)}
      */
     public static float[] getTextSize(Paint paint, String content) {
         if (paint == null || (TextUtils.isEmpty(content))) {
             return null;
         }
-        float[] ints = new float[2];
-        Rect rect = new Rect();
-        paint.getTextBounds(content, 0, content.length(), rect);
-        ints[0] = rect.width();
-        ints[1] = rect.height();
-        return ints;
+        long size = TextMetricsCache.getInstance().measure(paint, content);
+        return new float[]{TextMetricsCache.width(size), TextMetricsCache.height(size)};
     }
 
     /**
@@ -55,12 +59,7 @@ public class CustomViewUtil {
      * @return 获取文字的高度
      */
     public static float getTextHeight(Paint paint, String content) {
-        if ((paint != null) && (!TextUtils.isEmpty(content))) {
-            Rect rect = new Rect();
-            paint.getTextBounds(content, 0, content.length(), rect);
-            return rect.height();
-        }
-        return 0;
+        return TextMetricsCache.height(TextMetricsCache.getInstance().measure(paint, content));
     }
 
     /**
@@ -69,12 +68,7 @@ public class CustomViewUtil {
      * @return 获取文字的宽度
      */
     public static float getTextWidth(Paint paint, String content) {
-        if ((paint != null) && (!TextUtils.isEmpty(content))) {
-            Rect rect = new Rect();
-            paint.getTextBounds(content, 0, content.length(), rect);
-            return rect.width();
-        }
-        return 0;
+        return TextMetricsCache.width(TextMetricsCache.getInstance().measure(paint, content));
     }
 
     /**
@@ -16,26 +16,17 @@ import androidx.lifecycle.Lifecycle;
 
 import com.android.common.utils.LogUtil;
 import com.android.helper.app.BaseApplication;
+import com.android.helper.httpclient.OkHttpClientManager;
 import com.android.helper.interfaces.lifecycle.BaseLifecycleObserver;
+import com.android.helper.utils.download.DownloadListener;
+import com.android.helper.utils.download.FileDownloader;
 
-import org.jetbrains.annotations.NotNull;
-
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.nio.charset.Charset;
 
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
 import okhttp3.Response;
-import okhttp3.ResponseBody;
 
 /**
  * 使用说明：
@@ -153,31 +144,39 @@ public class FileUtil implements BaseLifecycleObserver {
     }
 
     /**
+     * 使用共享的OkHttpClient发送HEAD请求，只获取响应头，不会下载文件内容，需要在子线程中调用
+     *
      * @param url 文件地址的url
-     * @return 根据url 获取远程文件的大小
+     * @return 根据url 获取远程文件的大小，获取失败的时候返回0
      */
     public long getFileSizeForUrl(String url) {
-        final long[] contentLength = {0};
-        Request.Builder builder = new Request.Builder().url(url);
-        OkHttpClient okHttpClient = new OkHttpClient();
-        Call call = okHttpClient.newCall(builder.build());
-        call.enqueue(new Callback() {
-            @Override
-            public void onFailure(@NotNull Call call, @NotNull IOException e) {
-            }
-
-            @Override
-            public void onResponse(@NotNull Call call, @NotNull Response response) throws IOException {
-                if (response.isSuccessful()) {
-                    ResponseBody body = response.body();
-                    if (body != null) {
-                        contentLength[0] = body.contentLength();
-                        response.close();
-                    }
+        long contentLength = 0;
+        try (Response response = OkHttpClientManager.getInstance()
+                .head(url)) {
+            if (response.isSuccessful()) {
+                String length = response.header("Content-Length");
+                if (!TextUtils.isEmpty(length)) {
+                    contentLength = Long.parseLong(length);
                 }
             }
-        });
-        return contentLength[0];
+        } catch (Exception e) {
+            LogUtil.e(TAG, "获取文件大小失败：" + e.getMessage());
+        }
+        return contentLength;
+    }
+
+    /**
+     * 多段并行下载一个文件，支持断点续传，下载中断之后再次调用会从断点继续，更多的配置使用{@link FileDownloader.Builder}
+     *
+     * @param url      文件地址的url
+     * @param file     下载完成之后保存的文件
+     * @param listener 下载的回调，在主线程中回调
+     * @return 下载的对象，可以用来取消下载
+     */
+    public FileDownloader download(String url, File file, DownloadListener listener) {
+        return new FileDownloader.Builder(url, file).setListener(listener)
+                .build()
+                .start();
     }
 
     /**
@@ -288,6 +287,8 @@ public class FileUtil implements BaseLifecycleObserver {
     }
 
     /**
+     * 使用Okio写入，不需要自己去创建缓冲区，写入完毕之后会关闭输入流
+     *
      * @param file        指定的文件
      * @param inputStream 输入流
      * @return 把一个IO流的内容，写入指定的文件夹内，如果是Android 11的版本，无法直接写入到Sd卡的目录中，除非给予足够的权限
@@ -295,31 +296,11 @@ public class FileUtil implements BaseLifecycleObserver {
     public boolean writeInputStreamToFile(File file, InputStream inputStream) {
         boolean isSuccess = false;
         if ((file != null) && (inputStream != null)) {
-            BufferedInputStream in = null;
-            BufferedOutputStream out = null;
             try {
-                in = new BufferedInputStream(inputStream);
-                out = new BufferedOutputStream(new FileOutputStream(file));
-                int len = -1;
-                byte[] b = new byte[1024];
-                while ((len = in.read(b)) != -1) {
-                    out.write(b, 0, len);
-                }
+                StreamUtil.writeToFile(inputStream, file);
                 isSuccess = true;
             } catch (IOException e) {
                 e.printStackTrace();
-                isSuccess = false;
-            } finally {
-                try {
-                    if (in != null) {
-                        in.close();
-                    }
-                    if (out != null) {
-                        out.close();
-                    }
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
             }
         }
         return isSuccess;
@@ -333,62 +314,52 @@ public class FileUtil implements BaseLifecycleObserver {
     public boolean writeContentToFile(File file, String content) {
         boolean isSuccess = false;
         if ((file != null) && (!TextUtils.isEmpty(content)) && (checkSdStatus())) {
-            FileOutputStream outStream = null;
             try {
-                outStream = new FileOutputStream(file);
-                outStream.write(content.getBytes());
+                StreamUtil.writeToFile(content, Charset.defaultCharset(), file);
                 isSuccess = true;
             } catch (Exception e) {
                 e.printStackTrace();
-                isSuccess = false;
-            } finally {
-                try {
-                    if (outStream != null) {
-                        outStream.close();
-                    }
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
             }
         }
         return isSuccess;
     }
 
     /**
+     * 一次性读取文件的内容，大于{@link StreamUtil#MAPPED_READ_THRESHOLD}的文件使用内存映射读取，和之前按行读取的结果一样，换行符会被去掉
+     *
      * @param file 指定的文件
      * @return 获取指定路径中文件的内容，把内容转换为String字符串，适用于单纯的文本内容
      */
     public String getContentForFile(File file) {
         String result = "";
         if ((file != null) && (file.exists())) {
-            FileInputStream mInputStream = null;
-            BufferedReader mReader = null;
             try {
-                mInputStream = new FileInputStream(file);
-                mReader = new BufferedReader(new InputStreamReader(mInputStream));
-                StringBuilder builder = new StringBuilder();
-                String timeLine;
-                while ((timeLine = mReader.readLine()) != null) {
-                    builder.append(timeLine);
-                }
-                result = builder.toString();
+                result = StreamUtil.readStringWithoutLineBreaks(file, Charset.defaultCharset());
             } catch (Exception e) {
                 e.printStackTrace();
-            } finally {
-                try {
-                    if (mInputStream != null) {
-                        mInputStream.close();
-                    }
-                    if (mReader != null) {
-                        mReader.close();
-                    }
-                } catch (Exception ignored) {
-                }
             }
         }
         return result;
     }
 
+    /**
+     * @param source 原始的文件
+     * @param target 目标文件，存在的时候会被覆盖
+     * @return 使用FileChannel复制文件，数据直接在内核中传输，复制成功返回true
+     */
+    public boolean copyFile(File source, File target) {
+        boolean isSuccess = false;
+        if ((source != null) && (source.exists()) && (target != null)) {
+            try {
+                StreamUtil.copyFile(source, target);
+                isSuccess = true;
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return isSuccess;
+    }
+
     /**
      * @return 检测是否拥有文件的所有访问权限
      */
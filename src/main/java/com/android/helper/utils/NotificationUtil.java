@@ -27,6 +27,8 @@ import androidx.core.app.NotificationManagerCompat;
 import com.android.common.utils.LogUtil;
 import com.android.helper.R;
 import com.android.helper.interfaces.listener.ViewCallBackListener;
+import com.android.helper.utils.tick.TickService;
+import com.android.helper.utils.tick.TickTask;
 
 /**
  * <ol>
@@ -133,6 +135,7 @@ public class NotificationUtil {
     private int mChannelImportance;                     // 渠道的等级,默认是等级3，会提示声音
     private int mRemoteViewsLayout;                     // 状态栏布局
     private long mIntervalTime;                         // 轮询的间隔
+    private TickTask mLoopTask;                         // 轮询的定时任务，注册在全局共享的TickService中
     private boolean mVibrate;                           // 震动
     private boolean mSound;                             // 是否发出声音，默认发出
     private Service mService;                           // 服务类
@@ -379,9 +382,20 @@ public class NotificationUtil {
      */
     public void stopAllLoop() {
         mHandler.removeCallbacksAndMessages(null);
+        cancelLoopTask();
         LogUtil.e("停止了轮训消息的发送！");
     }
 
+    /**
+     * 取消正在执行的轮询任务，开始新的轮询之前必须先调用，避免同时存在多个轮询
+     */
+    private void cancelLoopTask() {
+        if (mLoopTask != null) {
+            mLoopTask.cancel();
+            mLoopTask = null;
+        }
+    }
+
     /**
      * @return 取消指定的通知
      */
@@ -520,30 +534,29 @@ public class NotificationUtil {
                         break;
                     case CODE_WHAT_SEND_START_FOREGROUND_LOOP:
                         LogUtil.e("开始了服务消息的轮询发送！");
-                        if (mService != null) {
-                            mService.startForeground(id, mNotification);
-                            Message message = mHandler.obtainMessage();
-                            message.what = CODE_WHAT_SEND_START_FOREGROUND_LOOP;
-                            message.arg1 = id;
-                            mHandler.sendMessageDelayed(message, mIntervalTime);
-                        }
-                        // 轮询的回调
-                        if (mOnHandlerLoopListener != null) {
-                            mOnHandlerLoopListener.onLoop();
-                        }
+                        cancelLoopTask();
+                        mLoopTask = TickService.getInstance().schedule(0, mIntervalTime, (task, count) -> {
+                            if ((mService != null) && (mNotification != null)) {
+                                mService.startForeground(id, mNotification);
+                            } else {
+                                task.cancel();
+                            }
+                            // 轮询的回调
+                            if (mOnHandlerLoopListener != null) {
+                                mOnHandlerLoopListener.onLoop();
+                            }
+                        });
                         break;
                     case CODE_WHAT_SEND_START_NOTIFICATION_LOOP:
                         LogUtil.e("开始了---消息---的轮询发送！");
-                        removeMessages(CODE_WHAT_SEND_START_NOTIFICATION_LOOP);
-                        Message message1 = mHandler.obtainMessage();
-                        message1.what = CODE_WHAT_SEND_START_NOTIFICATION_LOOP;
-                        message1.arg1 = id;
-                        sendNotification(id);
-                        mHandler.sendMessageDelayed(message1, mIntervalTime);
-                        // 轮询的回调
-                        if (mOnHandlerLoopListener != null) {
-                            mOnHandlerLoopListener.onLoop();
-                        }
+                        cancelLoopTask();
+                        mLoopTask = TickService.getInstance().schedule(0, mIntervalTime, (task, count) -> {
+                            sendNotification(id);
+                            // 轮询的回调
+                            if (mOnHandlerLoopListener != null) {
+                                mOnHandlerLoopListener.onLoop();
+                            }
+                        });
                         break;
                 }
             }
@@ -1,113 +1,99 @@
 package com.android.helper.utils;
 
 import android.content.Context;
-import android.content.SharedPreferences;
-import android.content.SharedPreferences.Editor;
+
+import com.android.helper.utils.preference.PreferenceEngine;
+import com.android.helper.utils.preference.PreferenceStore;
 
 /**
  * SharedPreferences操作工具包<br>
+ * 写入的数据先保存在内存中，立刻就可以读取到，一帧之内的多次写入合并之后在单独的写入线程中落盘，
+ * 不会在调用的线程中同步的写文件。需要同时修改多个key的时候使用{@link #edit(Context, String)}。
  */
 public class PreferenceHelper {
 
+    /**
+     * 替换底层的存储引擎，需要在Application中第一次使用之前设置，
+     * 例如使用{@link com.android.helper.utils.preference.MappedPreferenceEngine#FACTORY}替换成内存映射的存储，
+     * 替换之后不会迁移SharedPreferences中已经存在的数据
+     */
+    public static void setEngine(PreferenceEngine.Factory factory) {
+        PreferenceStore.setEngineFactory(factory);
+    }
+
+    /**
+     * @return 同时修改多个key的编辑器，调用apply之后一次性生效
+     */
+    public static PreferenceStore.Editor edit(Context context, String fileName) {
+        return PreferenceStore.get(context, fileName).edit();
+    }
+
+    /**
+     * 立刻把这个文件中还没有落盘的修改同步写入磁盘，会阻塞当前的线程
+     */
+    public static void flush(Context context, String fileName) {
+        PreferenceStore.get(context, fileName).flush();
+    }
+
     public static void write(Context context, String fileName, String k, int v) {
-        SharedPreferences preference = context.getSharedPreferences(fileName,
-                Context.MODE_PRIVATE);
-        Editor editor = preference.edit();
-        editor.putInt(k, v);
-        editor.commit();
+        edit(context, fileName).putInt(k, v).apply();
     }
 
     public static void write(Context context, String fileName, String k,
                              boolean v) {
-        SharedPreferences preference = context.getSharedPreferences(fileName,
-                Context.MODE_PRIVATE);
-        Editor editor = preference.edit();
-        editor.putBoolean(k, v);
-        editor.commit();
+        edit(context, fileName).putBoolean(k, v).apply();
     }
 
     public static void write(Context context, String fileName, String k,
                              String v) {
-        SharedPreferences preference = context.getSharedPreferences(fileName,
-                Context.MODE_PRIVATE);
-        Editor editor = preference.edit();
-        editor.putString(k, v);
-        editor.commit();
+        edit(context, fileName).putString(k, v).apply();
     }
 
     public static void write(Context context, String fileName, String k, long v) {
-        SharedPreferences preference = context.getSharedPreferences(fileName,
-                Context.MODE_PRIVATE);
-        Editor editor = preference.edit();
-        editor.putLong(k, v);
-        editor.commit();
+        edit(context, fileName).putLong(k, v).apply();
     }
 
     public static int readInt(Context context, String fileName, String k) {
-        SharedPreferences preference = context.getSharedPreferences(fileName,
-                Context.MODE_PRIVATE);
-        return preference.getInt(k, 0);
+        return readInt(context, fileName, k, 0);
     }
 
     public static int readInt(Context context, String fileName, String k,
                               int defv) {
-        SharedPreferences preference = context.getSharedPreferences(fileName,
-                Context.MODE_PRIVATE);
-        return preference.getInt(k, defv);
+        return PreferenceStore.get(context, fileName).getInt(k, defv);
     }
 
     public static long readLong(Context context, String fileName, String k) {
-        SharedPreferences preference = context.getSharedPreferences(fileName,
-                Context.MODE_PRIVATE);
-        return preference.getLong(k, 0L);
+        return readLong(context, fileName, k, 0L);
     }
 
     public static long readLong(Context context, String fileName, String k,
                                 long defv) {
-        SharedPreferences preference = context.getSharedPreferences(fileName,
-                Context.MODE_PRIVATE);
-        return preference.getLong(k, defv);
+        return PreferenceStore.get(context, fileName).getLong(k, defv);
     }
 
     public static boolean readBoolean(Context context, String fileName, String k) {
-        SharedPreferences preference = context.getSharedPreferences(fileName,
-                Context.MODE_PRIVATE);
-        return preference.getBoolean(k, false);
+        return readBoolean(context, fileName, k, false);
     }
 
     public static boolean readBoolean(Context context, String fileName,
                                       String k, boolean defBool) {
-        SharedPreferences preference = context.getSharedPreferences(fileName,
-                Context.MODE_PRIVATE);
-        return preference.getBoolean(k, defBool);
+        return PreferenceStore.get(context, fileName).getBoolean(k, defBool);
     }
 
     public static String readString(Context context, String fileName, String k) {
-        SharedPreferences preference = context.getSharedPreferences(fileName,
-                Context.MODE_PRIVATE);
-        return preference.getString(k, null);
+        return readString(context, fileName, k, null);
     }
 
     public static String readString(Context context, String fileName, String k,
                                     String defV) {
-        SharedPreferences preference = context.getSharedPreferences(fileName,
-                Context.MODE_PRIVATE);
-        return preference.getString(k, defV);
+        return PreferenceStore.get(context, fileName).getString(k, defV);
     }
 
     public static void remove(Context context, String fileName, String k) {
-        SharedPreferences preference = context.getSharedPreferences(fileName,
-                Context.MODE_PRIVATE);
-        Editor editor = preference.edit();
-        editor.remove(k);
-        editor.commit();
+        edit(context, fileName).remove(k).apply();
     }
 
     public static void clean(Context cxt, String fileName) {
-        SharedPreferences preference = cxt.getSharedPreferences(fileName,
-                Context.MODE_PRIVATE);
-        Editor editor = preference.edit();
-        editor.clear();
-        editor.commit();
+        edit(cxt, fileName).clear().apply();
     }
-}
\ No newline at end of file
+}
@@ -3,16 +3,38 @@ package com.android.helper.utils;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.Okio;
+
 /**
  * 数据流的工具类
+ * <ol>
+ *     1：文件之间的复制使用{@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}，数据不需要经过Java层的缓冲区。
+ *     2：输入流写入文件使用Okio的{@link BufferedSink#writeAll(okio.Source)}，使用Okio内部的分段缓冲池，不需要每次都去创建byte[]。
+ *     3：大文件的读取使用{@link #mapFile(File)}内存映射，由系统按页加载，不需要经过read的循环。
+ *     4：这里的方法都不依赖Android的类，可以直接在电脑的JVM上做性能对比。
+ * </ol>
  */
 public class StreamUtil {
 
+    /**
+     * 超过这个大小的文件，读取的时候使用内存映射
+     */
+    public static final long MAPPED_READ_THRESHOLD = 1024 * 1024;
+
     /**
      * @param inputStream 输入流的数据
      * @return 把一个InputStream中的数据转换成一个字符串数据
@@ -54,4 +76,155 @@ public class StreamUtil {
         }
         return null;
     }
+
+    /**
+     * 使用FileChannel的transferTo复制文件，目标文件存在的时候会被覆盖
+     *
+     * @param source 原始的文件
+     * @param target 目标文件
+     * @return 复制的字节数
+     */
+    public static long copyFile(@NotNull File source, @NotNull File target) throws IOException {
+        try (FileChannel in = new FileInputStream(source).getChannel(); FileChannel out = new FileOutputStream(target).getChannel()) {
+            long size = in.size();
+            long position = 0;
+            // transferTo单次传输的数量可能小于请求的数量，需要循环直到全部传输完毕
+            while (position < size) {
+                long count = in.transferTo(position, size - position, out);
+                if (count <= 0) {
+                    break;
+                }
+                position += count;
+            }
+            return position;
+        }
+    }
+
+    /**
+     * 使用Okio把输入流的数据写入文件，目标文件存在的时候会被覆盖，写入完毕之后会关闭输入流
+     *
+     * @param inputStream 输入流
+     * @param target      目标文件
+     * @return 写入的字节数
+     */
+    public static long writeToFile(@NotNull InputStream inputStream, @NotNull File target) throws IOException {
+        try (BufferedSource source = Okio.buffer(Okio.source(inputStream)); BufferedSink sink = Okio.buffer(Okio.sink(target))) {
+            return sink.writeAll(source);
+        }
+    }
+
+    /**
+     * 使用Okio把字符串写入文件，目标文件存在的时候会被覆盖
+     *
+     * @param content 写入的内容
+     * @param charset 字符集
+     * @param target  目标文件
+     */
+    public static void writeToFile(@NotNull String content, @NotNull Charset charset, @NotNull File target) throws IOException {
+        try (BufferedSink sink = Okio.buffer(Okio.sink(target))) {
+            sink.writeString(content, charset);
+        }
+    }
+
+    /**
+     * 使用Okio一次性读取文件的内容
+     *
+     * @param file    指定的文件
+     * @param charset 字符集
+     * @return 文件的全部内容，包含换行符
+     */
+    public static String readString(@NotNull File file, @NotNull Charset charset) throws IOException {
+        try (BufferedSource source = Okio.buffer(Okio.source(file))) {
+            return source.readString(charset);
+        }
+    }
+
+    /**
+     * 以只读的方式把文件映射到内存中，适用于大文件，数据由系统按页加载，不占用堆内存，映射之后关闭文件依旧可以读取
+     *
+     * @param file 指定的文件
+     * @return 只读的内存映射
+     */
+    public static MappedByteBuffer mapFile(@NotNull File file) throws IOException {
+        try (RandomAccessFile accessFile = new RandomAccessFile(file, "r"); FileChannel channel = accessFile.getChannel()) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * 使用内存映射读取文件的内容
+     *
+     * @param file    指定的文件
+     * @param charset 字符集
+     * @return 文件的全部内容，包含换行符
+     */
+    public static String readStringMapped(@NotNull File file, @NotNull Charset charset) throws IOException {
+        // 一次性批量拷贝之后再解码，比CharsetDecoder逐段解码要快很多
+        return new String(readBytesMapped(file), charset);
+    }
+
+    /**
+     * 读取文件的全部字节，大于{@link #MAPPED_READ_THRESHOLD}的文件从内存映射中一次性拷贝，小文件使用Okio读取
+     *
+     * @param file 指定的文件
+     * @return 文件的全部字节
+     */
+    public static byte[] readBytes(@NotNull File file) throws IOException {
+        if (file.length() > MAPPED_READ_THRESHOLD) {
+            return readBytesMapped(file);
+        }
+        try (BufferedSource source = Okio.buffer(Okio.source(file))) {
+            return source.readByteArray();
+        }
+    }
+
+    private static byte[] readBytesMapped(@NotNull File file) throws IOException {
+        MappedByteBuffer buffer = mapFile(file);
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * 读取文件的内容并去掉所有的换行符，和按行读取之后再拼接的结果一致。
+     * 对于UTF-8、GBK这类兼容ASCII的字符集，直接在字节数组中去掉换行符，只需要解码一次。
+     *
+     * @param file    指定的文件
+     * @param charset 字符集
+     * @return 去掉换行符之后的文件内容
+     */
+    public static String readStringWithoutLineBreaks(@NotNull File file, @NotNull Charset charset) throws IOException {
+        byte[] bytes = readBytes(file);
+        if ("\n".getBytes(charset).length != 1) {
+            return removeLineBreaks(new String(bytes, charset));
+        }
+        int length = 0;
+        for (byte b : bytes) {
+            if (b != '\n' && b != '\r') {
+                bytes[length++] = b;
+            }
+        }
+        return new String(bytes, 0, length, charset);
+    }
+
+    /**
+     * @return 去掉字符串中所有的换行符，和按行读取之后再拼接的结果保持一致
+     */
+    public static String removeLineBreaks(@NotNull String content) {
+        if (content.indexOf('\n') < 0 && content.indexOf('\r') < 0) {
+            return content;
+        }
+        StringBuilder builder = new StringBuilder(content.length());
+        int start = 0;
+        for (int i = 0, length = content.length(); i < length; i++) {
+            char c = content.charAt(i);
+            if (c == '\n' || c == '\r') {
+                // 整段的拷贝，避免逐个字符的追加
+                builder.append(content, start, i);
+                start = i + 1;
+            }
+        }
+        builder.append(content, start, content.length());
+        return builder.toString();
+    }
 }
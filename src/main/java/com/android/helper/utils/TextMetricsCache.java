@@ -0,0 +1,253 @@
+package com.android.helper.utils;
+
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+import android.text.TextUtils;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 文字测量结果的缓存，自定义view每一帧都去测量同样的文字的时候，不需要重复的调用getTextBounds，也不需要创建Rect和float[]
+ * <ol>
+ *     1：缓存的key是画笔中影响测量结果的属性（字体、字号、缩放、倾斜、字间距、flags）加上文字内容，画笔的属性改变之后会自动重新测量。
+ *     2：按照最近最少使用的顺序淘汰，最多保存{@link #DEFAULT_MAX_SIZE}条，可以通过{@link #setMaxSize(int)}修改。
+ *     3：查询使用的key和测量使用的Rect都是每个线程一份，命中缓存的时候不会创建任何对象。
+ *     4：宽高通过{@link #measure(Paint, String)}打包成一个long返回，使用{@link #width(long)}、{@link #height(long)}读取。
+ *     5：列表一次性测量很多条文字的时候使用{@link #measure(Paint, List, int, int, float[], float[])}，结果直接写入数组。
+ * </ol>
+ */
+public final class TextMetricsCache {
+
+    public static final int DEFAULT_MAX_SIZE = 512;
+
+    private static final TextMetricsCache INSTANCE = new TextMetricsCache();
+
+    private final ThreadLocal<Scratch> mScratch = new ThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue() {
+            return new Scratch();
+        }
+    };
+
+    private final LinkedHashMap<Key, Bounds> mCache = new LinkedHashMap<Key, Bounds>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Bounds> eldest) {
+            return size() > mMaxSize;
+        }
+    };
+
+    private int mMaxSize = DEFAULT_MAX_SIZE;
+
+    private TextMetricsCache() {
+    }
+
+    public static TextMetricsCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param maxSize 最多缓存的条数
+     */
+    public void setMaxSize(int maxSize) {
+        synchronized (mCache) {
+            mMaxSize = Math.max(1, maxSize);
+            // 缩小的时候淘汰最久没有使用的数据
+            while (mCache.size() > mMaxSize) {
+                Key eldest = mCache.keySet().iterator().next();
+                mCache.remove(eldest);
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (mCache) {
+            mCache.clear();
+        }
+    }
+
+    /**
+     * @return 文字的宽高，内容为空的时候返回0
+     */
+    public long measure(Paint paint, String content) {
+        Bounds bounds = get(paint, content);
+        return bounds == null ? 0 : pack(bounds.right - bounds.left, bounds.bottom - bounds.top);
+    }
+
+    /**
+     * @return 文字的基线，也就是文字顶部到基线的距离，和{@link CustomViewUtil#getBaseLine(Paint, String)}一致
+     */
+    public int getBaseLine(Paint paint, String content) {
+        Bounds bounds = get(paint, content);
+        return bounds == null ? 0 : Math.abs(bounds.top);
+    }
+
+    /**
+     * 批量测量文字的基线和高度，第i条文字的结果写入baseLines[i]和heights[i]，内容为空的时候写入0。
+     * 命中缓存的文字直接使用缓存的结果，没有命中的文字测量之后不写入缓存，避免几千条文字把其他view正在使用的数据挤掉。
+     *
+     * @param start 开始的位置，包含
+     * @param end   结束的位置，不包含
+     */
+    public void measure(Paint paint, List<String> contents, int start, int end, float[] baseLines, float[] heights) {
+        Scratch scratch = mScratch.get();
+        Key lookup = scratch.key;
+        Rect rect = scratch.rect;
+        for (int i = start; i < end; i++) {
+            String content = contents.get(i);
+            if (paint == null || TextUtils.isEmpty(content)) {
+                baseLines[i] = 0;
+                heights[i] = 0;
+                continue;
+            }
+            Bounds bounds;
+            synchronized (mCache) {
+                bounds = mCache.get(lookup.set(paint, content));
+            }
+            int top;
+            int bottom;
+            if (bounds != null) {
+                top = bounds.top;
+                bottom = bounds.bottom;
+            } else {
+                paint.getTextBounds(content, 0, content.length(), rect);
+                top = rect.top;
+                bottom = rect.bottom;
+            }
+            baseLines[i] = Math.abs(top);
+            heights[i] = bottom - top;
+        }
+        lookup.text = null;
+    }
+
+    /**
+     * 把文字的边界写入指定的Rect，和{@link Paint#getTextBounds(String, int, int, Rect)}一致
+     */
+    public void getTextBounds(Paint paint, String content, Rect out) {
+        Bounds bounds = get(paint, content);
+        if (bounds == null) {
+            out.setEmpty();
+        } else {
+            out.set(bounds.left, bounds.top, bounds.right, bounds.bottom);
+        }
+    }
+
+    /**
+     * @return {@link #measure(Paint, String)}结果中的宽度
+     */
+    public static int width(long size) {
+        return (int) (size >>> 32);
+    }
+
+    /**
+     * @return {@link #measure(Paint, String)}结果中的高度
+     */
+    public static int height(long size) {
+        return (int) size;
+    }
+
+    private static long pack(int width, int height) {
+        return ((long) width << 32) | (height & 0xFFFFFFFFL);
+    }
+
+    private Bounds get(Paint paint, String content) {
+        if (paint == null || TextUtils.isEmpty(content)) {
+            return null;
+        }
+        Scratch scratch = mScratch.get();
+        Key lookup = scratch.key.set(paint, content);
+        Bounds bounds;
+        synchronized (mCache) {
+            bounds = mCache.get(lookup);
+        }
+        if (bounds == null) {
+            // 测量放在锁的外面，同一个文字被多个线程同时测量的时候结果也是一样的
+            Rect rect = scratch.rect;
+            paint.getTextBounds(content, 0, content.length(), rect);
+            bounds = new Bounds(rect);
+            Key key = new Key().set(paint, content);
+            synchronized (mCache) {
+                mCache.put(key, bounds);
+            }
+        }
+        lookup.text = null;
+        return bounds;
+    }
+
+    /**
+     * 每个线程自己的查询key和测量区域
+     */
+    private static final class Scratch {
+        final Key key = new Key();
+        final Rect rect = new Rect();
+    }
+
+    private static final class Bounds {
+        final int left;
+        final int top;
+        final int right;
+        final int bottom;
+
+        Bounds(Rect rect) {
+            left = rect.left;
+            top = rect.top;
+            right = rect.right;
+            bottom = rect.bottom;
+        }
+    }
+
+    private static final class Key {
+        Typeface typeface;
+        float textSize;
+        float textScaleX;
+        float textSkewX;
+        float letterSpacing;
+        int flags;
+        String text;
+        int hash;
+
+        Key set(Paint paint, String content) {
+            typeface = paint.getTypeface();
+            textSize = paint.getTextSize();
+            textScaleX = paint.getTextScaleX();
+            textSkewX = paint.getTextSkewX();
+            letterSpacing = paint.getLetterSpacing();
+            flags = paint.getFlags();
+            text = content;
+            int h = System.identityHashCode(typeface);
+            h = 31 * h + Float.floatToIntBits(textSize);
+            h = 31 * h + Float.floatToIntBits(textScaleX);
+            h = 31 * h + Float.floatToIntBits(textSkewX);
+            h = 31 * h + Float.floatToIntBits(letterSpacing);
+            h = 31 * h + flags;
+            hash = 31 * h + content.hashCode();
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return hash == key.hash
+                    && typeface == key.typeface
+                    && textSize == key.textSize
+                    && textScaleX == key.textScaleX
+                    && textSkewX == key.textSkewX
+                    && letterSpacing == key.letterSpacing
+                    && flags == key.flags
+                    && text.equals(key.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,422 @@
+package com.android.helper.utils.address;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+
+import androidx.annotation.NonNull;
+
+import com.android.common.utils.LogUtil;
+import com.android.helper.utils.StreamUtil;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.reactivex.schedulers.Schedulers;
+import okio.BufferedSink;
+import okio.Okio;
+
+/**
+ * 省市区数据的二进制缓存
+ * <ol>
+ *     1：第一次使用的时候用JsonReader流式的解析assets中的json，不需要把整个文件读成字符串，也不需要Gson逐个对象的转换，
+ *     解析之后写入files/address目录下的二进制文件。
+ *     2：之后直接使用内存映射读取二进制文件，只需要校验文件头，不需要再次解析。
+ *     3：名字在使用的时候才解码，解码之后缓存起来，{@link #getProvinces()}、{@link #getCities()}、{@link #getAreas()}
+ *     返回的都是只读的视图，可以直接设置给选择器，不需要创建三层嵌套的List。
+ *     4：应用更新之后assets中的数据可能发生变化，文件头中记录了应用的更新时间，不一致的时候重新生成。
+ * </ol>
+ * 文件格式，所有的数字都是大端的int：
+ * <pre>
+ *     文件头：magic version stamp(long) provinceCount cityCount areaCount
+ *     cityStart[provinceCount + 1]：每个省份第一个城市的下标
+ *     areaStart[cityCount + 1]：每个城市第一个区县的下标
+ *     nameStart[provinceCount + cityCount + areaCount + 1]：按照省份、城市、区县的顺序，每个名字在字符区中的偏移
+ *     字符区：所有名字UTF-8编码之后的字节
+ * </pre>
+ */
+public final class AddressTree {
+
+    private static final int MAGIC = 0x41444452; // ADDR
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 28;
+
+    private static final Map<String, AddressTree> TREES = new HashMap<>();
+
+    private final ByteBuffer mBuffer;
+    private final int mProvinceCount;
+    private final int mCityCount;
+    private final int mAreaCount;
+    private final int mCityStartOffset;
+    private final int mAreaStartOffset;
+    private final int mNameStartOffset;
+    private final int mNamesOffset;
+    private final String[] mNames; // 已经解码的名字
+
+    private final List<String> mProvinces;
+    private final List<List<String>> mCities;
+    private final List<List<List<String>>> mAreas;
+
+    private AddressTree(ByteBuffer buffer) {
+        mBuffer = buffer;
+        mProvinceCount = buffer.getInt(16);
+        mCityCount = buffer.getInt(20);
+        mAreaCount = buffer.getInt(24);
+        mCityStartOffset = HEADER_SIZE;
+        mAreaStartOffset = mCityStartOffset + (mProvinceCount + 1) * 4;
+        mNameStartOffset = mAreaStartOffset + (mCityCount + 1) * 4;
+        mNamesOffset = mNameStartOffset + (mProvinceCount + mCityCount + mAreaCount + 1) * 4;
+        mNames = new String[mProvinceCount + mCityCount + mAreaCount];
+
+        mProvinces = new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return getProvinceName(index);
+            }
+
+            @Override
+            public int size() {
+                return mProvinceCount;
+            }
+        };
+        mCities = new AbstractList<List<String>>() {
+            @Override
+            public List<String> get(int index) {
+                return cities(index);
+            }
+
+            @Override
+            public int size() {
+                return mProvinceCount;
+            }
+        };
+        mAreas = new AbstractList<List<List<String>>>() {
+            @Override
+            public List<List<String>> get(int province) {
+                return new AbstractList<List<String>>() {
+                    @Override
+                    public List<String> get(int index) {
+                        return areas(province, index);
+                    }
+
+                    @Override
+                    public int size() {
+                        return getCityCount(province);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return mProvinceCount;
+            }
+        };
+    }
+
+    /**
+     * @return 已经加载到内存中的数据，没有加载的时候返回null，不会阻塞
+     */
+    public static AddressTree peek(String fileName) {
+        synchronized (TREES) {
+            return TREES.get(fileName);
+        }
+    }
+
+    /**
+     * 在后台线程中提前加载，建议在Application中调用，打开选择器的时候就不需要再等待
+     *
+     * @param fileName assets中的文件名字，例如：address.json
+     */
+    public static void preload(@NonNull Context context, @NonNull String fileName) {
+        Context applicationContext = context.getApplicationContext();
+        Schedulers.io().scheduleDirect(() -> load(applicationContext, fileName));
+    }
+
+    /**
+     * 加载数据，会读写文件，需要在子线程中调用，同一个文件只会加载一次
+     *
+     * @param fileName assets中的文件名字，例如：address.json
+     * @return 加载失败的时候返回null
+     */
+    public static synchronized AddressTree load(@NonNull Context context, @NonNull String fileName) {
+        AddressTree tree = peek(fileName);
+        if (tree != null) {
+            return tree;
+        }
+        long stamp = getStamp(context);
+        File file = new File(new File(context.getFilesDir(), "address"), fileName + ".bin");
+        try {
+            ByteBuffer buffer = null;
+            if (file.exists()) {
+                buffer = StreamUtil.mapFile(file);
+                if (!isValid(buffer, stamp)) {
+                    buffer = null;
+                }
+            }
+            if (buffer == null) {
+                generate(context, fileName, stamp, file);
+                buffer = StreamUtil.mapFile(file);
+                if (!isValid(buffer, stamp)) {
+                    LogUtil.e("地址缓存文件校验失败：" + file);
+                    return null;
+                }
+            }
+            tree = new AddressTree(buffer);
+            synchronized (TREES) {
+                TREES.put(fileName, tree);
+            }
+            return tree;
+        } catch (Exception e) {
+            LogUtil.e("加载地址数据失败：" + e.getMessage());
+            file.delete();
+            return null;
+        }
+    }
+
+    public int getProvinceCount() {
+        return mProvinceCount;
+    }
+
+    public String getProvinceName(int province) {
+        return getName(province);
+    }
+
+    public int getCityCount(int province) {
+        return cityStart(province + 1) - cityStart(province);
+    }
+
+    public String getCityName(int province, int city) {
+        return getName(mProvinceCount + cityStart(province) + city);
+    }
+
+    public int getAreaCount(int province, int city) {
+        int index = cityStart(province) + city;
+        return areaStart(index + 1) - areaStart(index);
+    }
+
+    public String getAreaName(int province, int city, int area) {
+        return getName(mProvinceCount + mCityCount + areaStart(cityStart(province) + city) + area);
+    }
+
+    /**
+     * @return 省份的名字，对应选择器的第一级
+     */
+    public List<String> getProvinces() {
+        return mProvinces;
+    }
+
+    /**
+     * @return 每个省份的城市，对应选择器的第二级
+     */
+    public List<List<String>> getCities() {
+        return mCities;
+    }
+
+    /**
+     * @return 每个城市的区县，对应选择器的第三级
+     */
+    public List<List<List<String>>> getAreas() {
+        return mAreas;
+    }
+
+    private List<String> cities(int province) {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return getCityName(province, index);
+            }
+
+            @Override
+            public int size() {
+                return getCityCount(province);
+            }
+        };
+    }
+
+    private List<String> areas(int province, int city) {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return getAreaName(province, city, index);
+            }
+
+            @Override
+            public int size() {
+                return getAreaCount(province, city);
+            }
+        };
+    }
+
+    private int cityStart(int province) {
+        return mBuffer.getInt(mCityStartOffset + province * 4);
+    }
+
+    private int areaStart(int city) {
+        return mBuffer.getInt(mAreaStartOffset + city * 4);
+    }
+
+    private String getName(int index) {
+        String name = mNames[index];
+        if (name == null) {
+            int start = mBuffer.getInt(mNameStartOffset + index * 4);
+            int end = mBuffer.getInt(mNameStartOffset + index * 4 + 4);
+            byte[] bytes = new byte[end - start];
+            ByteBuffer buffer = mBuffer.duplicate();
+            buffer.position(mNamesOffset + start);
+            buffer.get(bytes);
+            name = new String(bytes, StandardCharsets.UTF_8);
+            mNames[index] = name;
+        }
+        return name;
+    }
+
+    private static boolean isValid(ByteBuffer buffer, long stamp) {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getLong(8) != stamp) {
+            return false;
+        }
+        long provinceCount = buffer.getInt(16);
+        long cityCount = buffer.getInt(20);
+        long areaCount = buffer.getInt(24);
+        if (provinceCount < 0 || cityCount < 0 || areaCount < 0) {
+            return false;
+        }
+        long namesOffset = HEADER_SIZE + (provinceCount + 1 + cityCount + 1 + provinceCount + cityCount + areaCount + 1) * 4;
+        if (namesOffset > buffer.capacity()) {
+            return false;
+        }
+        // 最后一个偏移就是字符区的长度，文件被截断的时候重新生成
+        int namesLength = buffer.getInt((int) namesOffset - 4);
+        return namesOffset + namesLength == buffer.capacity();
+    }
+
+    /**
+     * @return 应用的更新时间，应用更新之后重新生成缓存
+     */
+    private static long getStamp(Context context) {
+        try {
+            return context.getPackageManager().getPackageInfo(context.getPackageName(), 0).lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 流式的解析json，写入临时文件之后再重命名，避免生成到一半的文件被读取
+     */
+    private static void generate(Context context, String fileName, long stamp, File file) throws IOException {
+        List<String> provinces = new ArrayList<>();
+        List<String> cities = new ArrayList<>();
+        List<String> areas = new ArrayList<>();
+        List<Integer> cityStart = new ArrayList<>();
+        List<Integer> areaStart = new ArrayList<>();
+
+        try (JsonReader reader = new JsonReader(new InputStreamReader(context.getAssets().open(fileName), StandardCharsets.UTF_8))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                cityStart.add(cities.size());
+                String province = "";
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String key = reader.nextName();
+                    if ("name".equals(key)) {
+                        province = nextString(reader);
+                    } else if ("city".equals(key) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            readCity(reader, cities, areas, areaStart);
+                        }
+                        reader.endArray();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+                provinces.add(province);
+            }
+            reader.endArray();
+        }
+        cityStart.add(cities.size());
+        areaStart.add(areas.size());
+
+        File dir = file.getParentFile();
+        if (dir != null && !dir.exists()) {
+            dir.mkdirs();
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        try (BufferedSink sink = Okio.buffer(Okio.sink(temp))) {
+            sink.writeInt(MAGIC);
+            sink.writeInt(VERSION);
+            sink.writeLong(stamp);
+            sink.writeInt(provinces.size());
+            sink.writeInt(cities.size());
+            sink.writeInt(areas.size());
+            for (int start : cityStart) {
+                sink.writeInt(start);
+            }
+            for (int start : areaStart) {
+                sink.writeInt(start);
+            }
+            List<byte[]> names = new ArrayList<>(provinces.size() + cities.size() + areas.size());
+            encode(provinces, names);
+            encode(cities, names);
+            encode(areas, names);
+            int offset = 0;
+            sink.writeInt(offset);
+            for (byte[] name : names) {
+                offset += name.length;
+                sink.writeInt(offset);
+            }
+            for (byte[] name : names) {
+                sink.write(name);
+            }
+        }
+        if (!temp.renameTo(file)) {
+            throw new IOException("rename failed: " + temp);
+        }
+    }
+
+    private static void readCity(JsonReader reader, List<String> cities, List<String> areas, List<Integer> areaStart) throws IOException {
+        areaStart.add(areas.size());
+        String city = "";
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            if ("name".equals(key)) {
+                city = nextString(reader);
+            } else if ("area".equals(key) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    areas.add(nextString(reader));
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        cities.add(city);
+    }
+
+    private static String nextString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return "";
+        }
+        return reader.nextString();
+    }
+
+    private static void encode(List<String> values, List<byte[]> names) {
+        for (String value : values) {
+            names.add(value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -22,11 +22,10 @@ import androidx.lifecycle.Lifecycle;
 import com.android.common.utils.LogUtil;
 import com.android.helper.R;
 import com.android.helper.common.CommonConstants;
+import com.android.helper.common.EventDispatcher;
 import com.android.helper.common.EventMessage;
 import com.android.helper.interfaces.lifecycle.BaseLifecycleObserver;
 
-import org.greenrobot.eventbus.EventBus;
-
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.util.HashSet;
@@ -190,14 +189,14 @@ public class DialogUtil implements BaseLifecycleObserver {
                     if (mShowListener != null) {
                         mShowListener.onShow(dialog);
                     }
-                    EventBus.getDefault().post(new EventMessage(CommonConstants.CODE_DIALOG_SHOW));
+                    EventDispatcher.getInstance().post(new EventMessage(CommonConstants.CODE_DIALOG_SHOW));
                 });
                 // dialog 关闭时候的监听
                 mDialog.setOnDismissListener(dialog -> {
                     if (mDismissListener != null) {
                         mDismissListener.onDismiss(dialog);
                     }
-                    EventBus.getDefault().post(new EventMessage(CommonConstants.CODE_DIALOG_DISMISS));
+                    EventDispatcher.getInstance().post(new EventMessage(CommonConstants.CODE_DIALOG_DISMISS));
                 });
             }
         }
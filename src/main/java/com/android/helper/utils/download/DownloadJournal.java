@@ -0,0 +1,167 @@
+package com.android.helper.utils.download;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * @author : 流星
+ * @CreateDate: 2026/10/17-16:15
+ * @Description: 分段下载的进度记录文件
+ * <ol>
+ *     1：文件的格式为：魔数、版本号、文件总大小、ETag、分段的数量，然后是每个分段的 起始位置、结束位置、已下载的字节数。
+ *     2：头部只在创建的时候写入一次，之后每次只更新对应分段的已下载字节数，每次只写8个字节。
+ *     3：读取的时候如果文件大小或者ETag和服务器的不一致，说明远程文件已经变了，需要重新下载。
+ * </ol>
+ */
+final class DownloadJournal {
+
+    private static final int MAGIC = 0x444C4A4E;
+    private static final int VERSION = 1;
+
+    private final RandomAccessFile mFile;
+    private final long mTotalLength;
+    private final String mETag;
+    private final long[] mStarts;
+    private final long[] mEnds;
+    private final long[] mDownloaded;
+    private final long mSegmentOffset;// 分段数据在文件中开始的位置
+
+    private DownloadJournal(RandomAccessFile file, long totalLength, String eTag, long[] starts, long[] ends, long[] downloaded, long segmentOffset) {
+        this.mFile = file;
+        this.mTotalLength = totalLength;
+        this.mETag = eTag;
+        this.mStarts = starts;
+        this.mEnds = ends;
+        this.mDownloaded = downloaded;
+        this.mSegmentOffset = segmentOffset;
+    }
+
+    /**
+     * @return 读取已经存在的进度记录，如果不存在或者和服务器的文件不一致，返回null
+     */
+    static DownloadJournal open(File file, long totalLength, String eTag) {
+        if (!file.exists()) {
+            return null;
+        }
+        RandomAccessFile accessFile = null;
+        try {
+            accessFile = new RandomAccessFile(file, "rw");
+            if (accessFile.readInt() != MAGIC || accessFile.readInt() != VERSION) {
+                accessFile.close();
+                return null;
+            }
+            long length = accessFile.readLong();
+            String tag = accessFile.readUTF();
+            if (length != totalLength || !tag.equals(eTag == null ? "" : eTag)) {
+                accessFile.close();
+                return null;
+            }
+            int count = accessFile.readInt();
+            long[] starts = new long[count];
+            long[] ends = new long[count];
+            long[] downloaded = new long[count];
+            long offset = accessFile.getFilePointer();
+            for (int i = 0; i < count; i++) {
+                starts[i] = accessFile.readLong();
+                ends[i] = accessFile.readLong();
+                downloaded[i] = accessFile.readLong();
+            }
+            return new DownloadJournal(accessFile, totalLength, tag, starts, ends, downloaded, offset);
+        } catch (IOException e) {
+            try {
+                if (accessFile != null) {
+                    accessFile.close();
+                }
+            } catch (IOException ignored) {
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 创建一个新的进度记录，会覆盖掉旧的文件
+     *
+     * @param segmentCount 分段的数量，最后一段包含了除不尽的部分
+     */
+    static DownloadJournal create(File file, long totalLength, String eTag, int segmentCount) throws IOException {
+        if (file.exists() && !file.delete()) {
+            throw new IOException("无法删除旧的进度文件：" + file);
+        }
+        String tag = eTag == null ? "" : eTag;
+        long[] starts = new long[segmentCount];
+        long[] ends = new long[segmentCount];
+        long[] downloaded = new long[segmentCount];
+        long size = totalLength / segmentCount;
+        for (int i = 0; i < segmentCount; i++) {
+            starts[i] = i * size;
+            ends[i] = (i == segmentCount - 1) ? totalLength - 1 : (i + 1) * size - 1;
+        }
+
+        RandomAccessFile accessFile = new RandomAccessFile(file, "rw");
+        accessFile.writeInt(MAGIC);
+        accessFile.writeInt(VERSION);
+        accessFile.writeLong(totalLength);
+        accessFile.writeUTF(tag);
+        accessFile.writeInt(segmentCount);
+        long offset = accessFile.getFilePointer();
+        for (int i = 0; i < segmentCount; i++) {
+            accessFile.writeLong(starts[i]);
+            accessFile.writeLong(ends[i]);
+            accessFile.writeLong(0);
+        }
+        return new DownloadJournal(accessFile, totalLength, tag, starts, ends, downloaded, offset);
+    }
+
+    int getSegmentCount() {
+        return mStarts.length;
+    }
+
+    long getStart(int index) {
+        return mStarts[index];
+    }
+
+    long getEnd(int index) {
+        return mEnds[index];
+    }
+
+    synchronized long getDownloaded(int index) {
+        return mDownloaded[index];
+    }
+
+    /**
+     * @return 所有分段已经下载的字节数
+     */
+    synchronized long getTotalDownloaded() {
+        long total = 0;
+        for (long downloaded : mDownloaded) {
+            total += downloaded;
+        }
+        return total;
+    }
+
+    long getTotalLength() {
+        return mTotalLength;
+    }
+
+    String getETag() {
+        return mETag;
+    }
+
+    /**
+     * 更新指定分段已经下载的字节数，只会写入8个字节
+     */
+    synchronized void update(int index, long downloaded) throws IOException {
+        mDownloaded[index] = downloaded;
+        // 每个分段占用3个long，已下载的字节数是第三个
+        mFile.seek(mSegmentOffset + index * 24L + 16);
+        mFile.writeLong(downloaded);
+    }
+
+    synchronized void close() {
+        try {
+            mFile.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.android.helper.utils.download;
+
+import java.io.File;
+
+/**
+ * @author : 流星
+ * @CreateDate: 2026/10/17-16:10
+ * @Description: 文件下载的回调，所有的方法都在主线程中回调
+ */
+public interface DownloadListener {
+
+    /**
+     * @param current 已经下载的字节数
+     * @param total   文件的总大小，获取不到的时候为-1
+     */
+    void onProgress(long current, long total);
+
+    /**
+     * @param file 下载完成的文件
+     */
+    void onSuccess(File file);
+
+    /**
+     * @param throwable 下载失败的原因，已经下载的进度会保存下来，再次下载的时候会从断点继续
+     */
+    void onFailure(Throwable throwable);
+}
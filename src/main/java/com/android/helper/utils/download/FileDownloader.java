@@ -0,0 +1,463 @@
+package com.android.helper.utils.download;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.text.TextUtils;
+
+import com.android.common.utils.LogUtil;
+import com.android.helper.httpclient.OkHttpClientManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+
+/**
+ * @author : 流星
+ * @CreateDate: 2026/10/17-16:30
+ * @Description: 支持断点续传的多段并行下载
+ * <ol>
+ *     1：先发送HEAD请求获取文件大小和ETag，如果服务器支持Range，就把文件分成多段，每段使用一个请求并行下载。
+ *     2：所有的分段直接写入一个提前分配好大小的临时文件（文件名 + .tmp）中，使用FileChannel按照位置写入，不需要合并文件。
+ *     3：每段的进度保存在进度文件（文件名 + .journal）中，下载中断之后，再次下载同一个文件会从断点继续。
+ *     4：服务器不支持Range或者获取不到文件大小的时候，退化为单个请求下载，这种情况不支持断点续传。
+ *     HEAD和分段的请求都使用Accept-Encoding: identity，否则OkHttp会默认请求gzip，压缩之后的长度和分段都不能对应原始的文件，
+ *     服务器依旧返回了Content-Encoding的时候，HEAD退化为单个请求下载，分段的请求直接失败。
+ *     5：进度的回调按照{@link Builder#setProgressInterval(long)}的间隔节流，所有的回调都在主线程中。
+ *     6：请求使用{@link OkHttpClientManager}共享的client，并发的数量同时受到分发器中单个域名的请求数量限制。
+ * </ol>
+ * 使用方法：
+ * <pre>
+ *     new FileDownloader.Builder(url, file).setThreadCount(3).setListener(listener).build().start();
+ * </pre>
+ */
+public class FileDownloader {
+
+    private static final String TAG = "FileDownloader";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String mUrl;
+    private final File mFile;
+    private final File mTempFile;
+    private final File mJournalFile;
+    private final int mThreadCount;
+    private final long mMinSegmentSize;
+    private final long mProgressInterval;
+    private final DownloadListener mListener;
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final List<Call> mCalls = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean mFinished = new AtomicBoolean();
+    private final AtomicLong mCurrent = new AtomicLong();
+    private final AtomicLong mLastProgressTime = new AtomicLong();
+    private final AtomicInteger mRemaining = new AtomicInteger();
+    private volatile boolean mCanceled;
+    private volatile long mTotal = -1;
+    private DownloadJournal mJournal;
+    private RandomAccessFile mDataFile;
+    private FileChannel mChannel;
+
+    private FileDownloader(Builder builder) {
+        mUrl = builder.mUrl;
+        mFile = builder.mFile;
+        mTempFile = new File(mFile.getPath() + ".tmp");
+        mJournalFile = new File(mFile.getPath() + ".journal");
+        mThreadCount = builder.mThreadCount;
+        mMinSegmentSize = builder.mMinSegmentSize;
+        mProgressInterval = builder.mProgressInterval;
+        mListener = builder.mListener;
+    }
+
+    /**
+     * 开始下载，如果存在之前没有下载完的进度，会从断点继续
+     */
+    public FileDownloader start() {
+        File parentFile = mFile.getParentFile();
+        if (parentFile != null && !parentFile.exists()) {
+            boolean mkdirs = parentFile.mkdirs();
+            LogUtil.e(TAG, "创建下载目录：" + mkdirs);
+        }
+
+        Call call = newCall(new Request.Builder().url(mUrl)
+                .header("Accept-Encoding", "identity")
+                .head()
+                .build());
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                fail(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try {
+                    prepare(response);
+                } catch (Throwable throwable) {
+                    fail(throwable);
+                } finally {
+                    response.close();
+                }
+            }
+        });
+        return this;
+    }
+
+    /**
+     * 取消下载，已经下载的进度会保存下来，下次下载同一个文件的时候继续
+     */
+    public void cancel() {
+        mCanceled = true;
+        if (mFinished.compareAndSet(false, true)) {
+            cancelCalls();
+            release();
+        }
+    }
+
+    public boolean isCanceled() {
+        return mCanceled;
+    }
+
+    private Call newCall(Request request) {
+        Call call = OkHttpClientManager.getInstance()
+                .getClient()
+                .newCall(request);
+        mCalls.add(call);
+        return call;
+    }
+
+    private void prepare(Response response) throws IOException {
+        if (mCanceled) {
+            return;
+        }
+        if (!response.isSuccessful()) {
+            throw new IOException("获取文件信息失败，响应码：" + response.code());
+        }
+        long total = -1;
+        String length = response.header("Content-Length");
+        if (!TextUtils.isEmpty(length)) {
+            total = Long.parseLong(length);
+        }
+        boolean acceptRanges = "bytes".equalsIgnoreCase(response.header("Accept-Ranges"));
+        String eTag = response.header("ETag");
+        if (TextUtils.isEmpty(eTag)) {
+            eTag = response.header("Last-Modified");
+        }
+        if (isEncoded(response)) {
+            // 压缩之后的长度不是文件的大小，不能用来分段
+            LogUtil.e(TAG, "服务器返回了压缩的数据：" + response.header("Content-Encoding"));
+            total = -1;
+        }
+        mTotal = total;
+
+        if (total <= 0 || !acceptRanges) {
+            LogUtil.e(TAG, "服务器不支持分段下载，使用单个请求下载：" + mUrl);
+            downloadSingle();
+            return;
+        }
+
+        DownloadJournal journal = null;
+        if (mTempFile.exists() && mTempFile.length() == total) {
+            journal = DownloadJournal.open(mJournalFile, total, eTag);
+        }
+        if (journal == null) {
+            long count = Math.max(1, Math.min(mThreadCount, total / mMinSegmentSize));
+            journal = DownloadJournal.create(mJournalFile, total, eTag, (int) count);
+            if (mTempFile.exists() && !mTempFile.delete()) {
+                throw new IOException("无法删除旧的临时文件：" + mTempFile);
+            }
+        }
+        mJournal = journal;
+
+        // 提前分配好文件的大小，每个分段直接写入自己的位置
+        mDataFile = new RandomAccessFile(mTempFile, "rw");
+        if (mDataFile.length() != total) {
+            mDataFile.setLength(total);
+        }
+        mChannel = mDataFile.getChannel();
+        mCurrent.set(journal.getTotalDownloaded());
+        LogUtil.e(TAG, "开始分段下载，分段数量：" + journal.getSegmentCount() + " 已下载：" + mCurrent.get() + " 总大小：" + total);
+
+        int remaining = 0;
+        for (int i = 0; i < journal.getSegmentCount(); i++) {
+            if (!isSegmentComplete(i)) {
+                remaining++;
+            }
+        }
+        mRemaining.set(remaining);
+        if (remaining == 0) {
+            complete();
+            return;
+        }
+        for (int i = 0; i < journal.getSegmentCount(); i++) {
+            if (!isSegmentComplete(i)) {
+                downloadSegment(i);
+            }
+        }
+    }
+
+    /**
+     * @return 返回的数据是否经过了压缩
+     */
+    private static boolean isEncoded(Response response) {
+        String encoding = response.header("Content-Encoding");
+        return !TextUtils.isEmpty(encoding) && !"identity".equalsIgnoreCase(encoding);
+    }
+
+    private boolean isSegmentComplete(int index) {
+        return mJournal.getStart(index) + mJournal.getDownloaded(index) > mJournal.getEnd(index);
+    }
+
+    private void downloadSegment(int index) {
+        long from = mJournal.getStart(index) + mJournal.getDownloaded(index);
+        long end = mJournal.getEnd(index);
+        Request request = new Request.Builder().url(mUrl)
+                .header("Range", "bytes=" + from + "-" + end)
+                .header("Accept-Encoding", "identity")
+                .build();
+        newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                fail(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try {
+                    if (response.code() != 206) {
+                        throw new IOException("服务器没有返回分段数据，响应码：" + response.code());
+                    }
+                    if (isEncoded(response)) {
+                        // 压缩的分段不能单独解压，写入之后文件会损坏
+                        throw new IOException("分段数据被压缩：" + response.header("Content-Encoding"));
+                    }
+                    ResponseBody body = response.body();
+                    if (body == null) {
+                        throw new IOException("分段数据为空");
+                    }
+                    long downloaded = write(body.source(), from, index, mJournal.getDownloaded(index));
+                    if (mCanceled) {
+                        return;
+                    }
+                    if (mJournal.getStart(index) + downloaded <= end) {
+                        throw new IOException("分段数据不完整：" + index);
+                    }
+                    if (mRemaining.decrementAndGet() == 0) {
+                        complete();
+                    }
+                } catch (Throwable throwable) {
+                    fail(throwable);
+                } finally {
+                    response.close();
+                }
+            }
+        });
+    }
+
+    /**
+     * 把数据写入到临时文件的指定位置
+     *
+     * @param index      分段的下标，单个请求下载的时候为-1，不记录进度
+     * @param downloaded 当前分段已经下载的字节数
+     * @return 写入之后当前分段已经下载的字节数
+     */
+    private long write(BufferedSource source, long position, int index, long downloaded) throws IOException {
+        byte[] bytes = new byte[BUFFER_SIZE];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int read;
+        while (!mCanceled && (read = source.read(bytes)) != -1) {
+            buffer.clear();
+            buffer.limit(read);
+            while (buffer.hasRemaining()) {
+                position += mChannel.write(buffer, position);
+            }
+            downloaded += read;
+            if (index >= 0) {
+                mJournal.update(index, downloaded);
+            }
+            mCurrent.addAndGet(read);
+            progress(false);
+        }
+        return downloaded;
+    }
+
+    private void downloadSingle() throws IOException {
+        if (mTempFile.exists() && !mTempFile.delete()) {
+            throw new IOException("无法删除旧的临时文件：" + mTempFile);
+        }
+        if (mJournalFile.exists()) {
+            boolean delete = mJournalFile.delete();
+            LogUtil.e(TAG, "删除进度文件：" + delete);
+        }
+        mDataFile = new RandomAccessFile(mTempFile, "rw");
+        mChannel = mDataFile.getChannel();
+        mCurrent.set(0);
+        mRemaining.set(1);
+
+        newCall(new Request.Builder().url(mUrl)
+                .build()).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                fail(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try {
+                    ResponseBody body = response.body();
+                    if (!response.isSuccessful() || body == null) {
+                        throw new IOException("下载失败，响应码：" + response.code());
+                    }
+                    write(body.source(), 0, -1, 0);
+                    if (!mCanceled && mRemaining.decrementAndGet() == 0) {
+                        complete();
+                    }
+                } catch (Throwable throwable) {
+                    fail(throwable);
+                } finally {
+                    response.close();
+                }
+            }
+        });
+    }
+
+    private void progress(boolean force) {
+        if (mListener == null) {
+            return;
+        }
+        long now = SystemClock.elapsedRealtime();
+        long last = mLastProgressTime.get();
+        if (force || (now - last >= mProgressInterval && mLastProgressTime.compareAndSet(last, now))) {
+            long current = mCurrent.get();
+            long total = mTotal;
+            mHandler.post(() -> mListener.onProgress(current, total));
+        }
+    }
+
+    private void complete() {
+        if (!mFinished.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            mChannel.force(false);
+            release();
+            if (mJournalFile.exists()) {
+                boolean delete = mJournalFile.delete();
+                LogUtil.e(TAG, "删除进度文件：" + delete);
+            }
+            if (mFile.exists() && !mFile.delete()) {
+                throw new IOException("无法删除旧的文件：" + mFile);
+            }
+            if (!mTempFile.renameTo(mFile)) {
+                throw new IOException("重命名文件失败：" + mTempFile);
+            }
+        } catch (IOException e) {
+            release();
+            postFailure(e);
+            return;
+        }
+        LogUtil.e(TAG, "下载完成：" + mFile);
+        progress(true);
+        if (mListener != null) {
+            mHandler.post(() -> mListener.onSuccess(mFile));
+        }
+    }
+
+    private void fail(Throwable throwable) {
+        if (mFinished.compareAndSet(false, true)) {
+            cancelCalls();
+            release();
+            postFailure(throwable);
+        }
+    }
+
+    private void postFailure(Throwable throwable) {
+        LogUtil.e(TAG, "下载失败：" + throwable.getMessage());
+        if (mListener != null) {
+            mHandler.post(() -> mListener.onFailure(throwable));
+        }
+    }
+
+    private void cancelCalls() {
+        for (Call call : mCalls) {
+            call.cancel();
+        }
+        mCalls.clear();
+    }
+
+    private synchronized void release() {
+        if (mJournal != null) {
+            mJournal.close();
+        }
+        try {
+            if (mDataFile != null) {
+                mDataFile.close();
+            }
+        } catch (IOException ignored) {
+        }
+    }
+
+    public static class Builder {
+        private final String mUrl;
+        private final File mFile;
+        private int mThreadCount = 3;
+        private long mMinSegmentSize = 1024 * 1024;
+        private long mProgressInterval = 300;
+        private DownloadListener mListener;
+
+        /**
+         * @param url  下载的地址
+         * @param file 下载完成之后保存的文件
+         */
+        public Builder(String url, File file) {
+            mUrl = url;
+            mFile = file;
+        }
+
+        /**
+         * @param threadCount 并行下载的分段数量，最终的数量还会受到{@link #setMinSegmentSize(long)}的限制
+         */
+        public Builder setThreadCount(int threadCount) {
+            mThreadCount = Math.max(1, threadCount);
+            return this;
+        }
+
+        /**
+         * @param minSegmentSize 每个分段最小的字节数，小文件没有必要分成多段
+         */
+        public Builder setMinSegmentSize(long minSegmentSize) {
+            mMinSegmentSize = Math.max(1, minSegmentSize);
+            return this;
+        }
+
+        /**
+         * @param progressInterval 进度回调的最小间隔，单位是毫秒
+         */
+        public Builder setProgressInterval(long progressInterval) {
+            mProgressInterval = Math.max(0, progressInterval);
+            return this;
+        }
+
+        public Builder setListener(DownloadListener listener) {
+            mListener = listener;
+            return this;
+        }
+
+        public FileDownloader build() {
+            return new FileDownloader(this);
+        }
+    }
+}
@@ -1,56 +1,36 @@
 package com.android.helper.utils.livedata;
 
-import android.text.TextUtils;
-
-import androidx.annotation.NonNull;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentActivity;
-import androidx.lifecycle.Lifecycle;
-import androidx.lifecycle.LifecycleEventObserver;
-import androidx.lifecycle.LifecycleOwner;
-import androidx.lifecycle.MutableLiveData;
-import androidx.lifecycle.Observer;
-import androidx.lifecycle.ViewModelProvider;
 
 import com.android.common.utils.LogUtil;
-import com.android.helper.app.BaseApplication;
 
-import org.jetbrains.annotations.NotNull;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author : 流星
  * @CreateDate: 2021/12/28-2:45 下午
  * @Description: 使用livedata 去传递数据
+ * <p>
+ * 每个key对应一个单独的{@link LiveDataChannel}，在第一次使用的时候创建，发送数据的时候只会通知监听了这个key的页面，例如：
+ * <pre>
+ *     LiveDataBus.getSingleInstance().with("login", String.class).setSticky(true).observe(this, value -> {});
+ *     LiveDataBus.getSingleInstance().with("login", String.class).post("success");
+ * </pre>
+ * 原来的{@link #postMessage(LiveDataMessage)}、{@link #onMessage(FragmentActivity, LiveDataBusListener)}等方法使用的是
+ * {@link LiveDataMessage}类型对应的通道，粘性并且不会丢失数据。
  */
-public class LiveDataBus implements LifecycleEventObserver {
+public class LiveDataBus {
 
-    private static LiveDataBus liveDataBus;
-    private final String FLAG = "ON_DESTROY";
+    private static volatile LiveDataBus liveDataBus;
     private final String TAG = "LiveDataBus --->";
-    private Observer<LiveDataMessage> mObserver;
-    private MutableLiveData<LiveDataMessage> mLiveData;
+    private final ConcurrentHashMap<String, LiveDataChannel<?>> mChannels = new ConcurrentHashMap<>();
+    private final LiveDataChannel<LiveDataMessage> mMessageChannel;
 
     private LiveDataBus() {
-        FragmentActivity commonLivedata = BaseApplication.getInstance().getCommonLivedata();
-        if (commonLivedata != null) {
-            LiveDataModel liveDataModel = new ViewModelProvider(commonLivedata).get(LiveDataModel.class);
-            mLiveData = liveDataModel.getLiveData();
-            // 公共类数据的监听
-            commonLivedata.getLifecycle().addObserver((LifecycleEventObserver) (source, event) -> {
-                if (TextUtils.equals(event.name(), FLAG)) {
-                    if (mLiveData != null) {
-                        mLiveData = null;
-                    }
-                    if (mObserver != null) {
-                        mObserver = null;
-                    }
-                    if (liveDataBus != null) {
-                        liveDataBus = null;
-                    }
-                    LogUtil.e(TAG, "移除了公共数据的监听对象！");
-                }
-            });
-        }
+        mMessageChannel = with(LiveDataMessage.class)
+                .setSticky(true)
+                .setLossless(true);
     }
 
     public static LiveDataBus getSingleInstance() {
@@ -64,15 +44,56 @@ public class LiveDataBus implements LifecycleEventObserver {
         return liveDataBus;
     }
 
+    /**
+     * @param key 数据通道的key
+     * @return 获取key对应的数据通道，不存在的时候创建一个新的通道，同一个key使用的数据类型必须一致
+     */
+    @SuppressWarnings("unchecked")
+    public <T> LiveDataChannel<T> with(String key) {
+        LiveDataChannel<?> channel = mChannels.get(key);
+        if (channel == null) {
+            LiveDataChannel<?> create = new LiveDataChannel<>(key);
+            channel = mChannels.putIfAbsent(key, create);
+            if (channel == null) {
+                channel = create;
+            }
+        }
+        return (LiveDataChannel<T>) channel;
+    }
+
+    /**
+     * @param key  数据通道的key
+     * @param type 数据的类型，只用来约束泛型
+     * @return 获取key对应的数据通道
+     */
+    public <T> LiveDataChannel<T> with(String key, Class<T> type) {
+        return with(key);
+    }
+
+    /**
+     * @param type 数据的类型，使用类名作为key
+     * @return 获取这个类型对应的数据通道
+     */
+    public <T> LiveDataChannel<T> with(Class<T> type) {
+        return with(type.getName());
+    }
+
+    /**
+     * 移除key对应的数据通道，已经注册的监听不会再收到数据
+     */
+    public void remove(String key) {
+        mChannels.remove(key);
+    }
+
     /**
      * 设置数据
      *
      * @param message 设置发送出去的数据
      */
     public void postMessage(LiveDataMessage message) {
-        if (mLiveData != null && message != null) {
+        if (message != null) {
             LogUtil.e(TAG, "发送了数据的对象：" + message);
-            mLiveData.postValue(message);
+            mMessageChannel.post(message);
         }
     }
 
@@ -82,13 +103,8 @@ public class LiveDataBus implements LifecycleEventObserver {
      * @param listener 数据的回调
      */
     public void onMessage(FragmentActivity activity, LiveDataBusListener listener) {
-        if (mLiveData != null && activity != null) {
-            activity.getLifecycle().addObserver(this);
-            mLiveData.observe(activity, liveDataMessage -> {
-                if (listener != null) {
-                    listener.onLiveDataBus(liveDataMessage);
-                }
-            });
+        if (activity != null && listener != null) {
+            mMessageChannel.observe(activity, listener::onLiveDataBus);
         }
     }
 
@@ -98,13 +114,8 @@ public class LiveDataBus implements LifecycleEventObserver {
      * @param listener 数据的回调
      */
     public void onMessage(Fragment fragment, LiveDataBusListener listener) {
-        if (mLiveData != null && fragment != null) {
-            fragment.getLifecycle().addObserver(this);
-            mLiveData.observe(fragment, liveDataMessage -> {
-                if (listener != null) {
-                    listener.onLiveDataBus(liveDataMessage);
-                }
-            });
+        if (fragment != null && listener != null) {
+            mMessageChannel.observe(fragment, listener::onLiveDataBus);
         }
     }
 
@@ -115,17 +126,8 @@ public class LiveDataBus implements LifecycleEventObserver {
      * @param listener 数据的回调
      */
     public void onForeverMessage(FragmentActivity activity, LiveDataBusListener listener) {
-        if (activity != null) {
-            activity.getLifecycle().addObserver(this);
-        }
-        if (mLiveData != null) {
-            mObserver = message -> {
-                if (listener != null) {
-                    listener.onLiveDataBus(message);
-                }
-            };
-            // 不关联生命周期的数据监听
-            mLiveData.observeForever(mObserver);
+        if (activity != null && listener != null) {
+            mMessageChannel.observeForever(activity, listener::onLiveDataBus);
         }
     }
 
@@ -136,39 +138,8 @@ public class LiveDataBus implements LifecycleEventObserver {
      * @param listener 数据的回调
      */
     public void onForeverMessage(Fragment fragment, LiveDataBusListener listener) {
-        if (fragment != null) {
-            fragment.getLifecycle().addObserver(this);
-        }
-        if (mLiveData != null) {
-            mObserver = message -> {
-                if (listener != null) {
-                    listener.onLiveDataBus(message);
-                }
-            };
-            // 不关联生命周期的数据监听
-            mLiveData.observeForever(mObserver);
-        }
-    }
-
-    @Override
-    public void onStateChanged(@NonNull @NotNull LifecycleOwner source, @NonNull @NotNull Lifecycle.Event event) {
-        // E/ZHGJ: │ event:ON_CREATE
-        // E/ZHGJ: │ event:ON_START
-        // E/ZHGJ: │ event:ON_RESUME
-        // E/ZHGJ: │ event:ON_PAUSE
-        // E/ZHGJ: │ event:ON_STOP
-        // E/ZHGJ: │ event:ON_START
-        // E/ZHGJ: │ event:ON_RESUME
-        // E/ZHGJ: │ event:ON_PAUSE
-        // E/ZHGJ: │ event:ON_STOP
-        // E/ZHGJ: │ event:ON_DESTROY
-        if (TextUtils.equals(event.name(), FLAG)) {
-            if (mLiveData != null) {
-                if (mObserver != null) {
-                    mLiveData.removeObserver(mObserver);
-                    LogUtil.e(TAG, "移除了关联生命周期的监听");
-                }
-            }
+        if (fragment != null && listener != null) {
+            mMessageChannel.observeForever(fragment, listener::onLiveDataBus);
         }
     }
 }
@@ -0,0 +1,258 @@
+package com.android.helper.utils.livedata;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.Observer;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link LiveDataBus}中一个key对应的数据通道，只有监听了这个key的页面才会收到数据
+ * <ol>
+ *     1：任意线程都可以调用{@link #post(Object)}发送数据，数据统一在主线程中分发。
+ *     2：默认模式下，短时间内连续发送的数据只会分发最后一条，和LiveData的postValue一致；
+ *     开启{@link #setLossless(boolean)}之后，所有的数据都会按顺序分发，不会丢失。
+ *     3：开启{@link #setSticky(boolean)}之后，新注册的监听会立刻收到最后一条数据，否则只会收到注册之后发送的数据。
+ *     4：关联生命周期的监听只在页面可见的时候接收数据，页面不可见期间的数据，在页面重新可见的时候只补发最后一条，页面销毁的时候自动移除。
+ *     5：注册和移除监听都需要在主线程中调用。
+ * </ol>
+ *
+ * @param <T> 数据的类型
+ */
+public final class LiveDataChannel<T> {
+
+    private static final Handler HANDLER = new Handler(Looper.getMainLooper());
+
+    private final String mKey;
+    private final CopyOnWriteArrayList<ObserverWrapper> mObservers = new CopyOnWriteArrayList<>();
+    private final ConcurrentLinkedQueue<T> mQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean mScheduled = new AtomicBoolean();
+    private final Runnable mDispatch = this::dispatchQueue;
+    private volatile boolean mSticky;
+    private volatile boolean mLossless;
+
+    // 下面的数据只在主线程中读写
+    private T mLast;
+    private int mVersion;
+
+    LiveDataChannel(String key) {
+        mKey = key;
+    }
+
+    public String getKey() {
+        return mKey;
+    }
+
+    /**
+     * @param sticky 新注册的监听是否立刻收到最后一条数据
+     */
+    public LiveDataChannel<T> setSticky(boolean sticky) {
+        mSticky = sticky;
+        return this;
+    }
+
+    /**
+     * @param lossless 是否按顺序分发所有的数据，关闭的时候连续发送的数据只会分发最后一条
+     */
+    public LiveDataChannel<T> setLossless(boolean lossless) {
+        mLossless = lossless;
+        return this;
+    }
+
+    /**
+     * 发送数据，可以在任意线程中调用
+     *
+     * @param message 发送的数据，为空的时候不处理
+     */
+    public void post(T message) {
+        if (message == null) {
+            return;
+        }
+        mQueue.offer(message);
+        if (mScheduled.compareAndSet(false, true)) {
+            HANDLER.post(mDispatch);
+        }
+    }
+
+    /**
+     * 关联生命周期的数据监听，页面可见的时候才会回调，页面销毁的时候自动移除
+     */
+    public void observe(@NonNull LifecycleOwner owner, @NonNull Observer<? super T> observer) {
+        if (owner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) {
+            return;
+        }
+        LifecycleWrapper wrapper = new LifecycleWrapper(owner, observer);
+        mObservers.add(wrapper);
+        // 添加之后会同步回调一次当前的状态，粘性的数据在这个时候补发
+        owner.getLifecycle().addObserver(wrapper);
+    }
+
+    /**
+     * 不关联生命周期的数据接收，但是在owner销毁的时候会自动移除，避免内存的泄露
+     */
+    public void observeForever(@NonNull LifecycleOwner owner, @NonNull Observer<? super T> observer) {
+        if (owner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) {
+            return;
+        }
+        ForeverWrapper wrapper = new ForeverWrapper(owner, observer);
+        mObservers.add(wrapper);
+        owner.getLifecycle().addObserver(wrapper);
+        wrapper.activate();
+    }
+
+    /**
+     * 不关联生命周期的数据接收，不使用的时候必须调用{@link #removeObserver(Observer)}移除
+     */
+    public void observeForever(@NonNull Observer<? super T> observer) {
+        ForeverWrapper wrapper = new ForeverWrapper(null, observer);
+        mObservers.add(wrapper);
+        wrapper.activate();
+    }
+
+    /**
+     * 移除指定的数据监听
+     */
+    public void removeObserver(@NonNull Observer<? super T> observer) {
+        for (ObserverWrapper wrapper : mObservers) {
+            if (wrapper.mObserver == observer) {
+                wrapper.detach();
+            }
+        }
+    }
+
+    /**
+     * @return 当前监听的数量
+     */
+    public int getObserverCount() {
+        return mObservers.size();
+    }
+
+    /**
+     * 清除最后一条数据，之后注册的监听不会再收到粘性的数据
+     */
+    public void clearSticky() {
+        HANDLER.post(() -> mLast = null);
+    }
+
+    private void dispatchQueue() {
+        mScheduled.set(false);
+        boolean lossless = mLossless;
+        T last = null;
+        T message;
+        while ((message = mQueue.poll()) != null) {
+            if (lossless) {
+                dispatch(message);
+            } else {
+                last = message;
+            }
+        }
+        if (last != null) {
+            dispatch(last);
+        }
+    }
+
+    private void dispatch(T message) {
+        mLast = message;
+        mVersion++;
+        for (ObserverWrapper wrapper : mObservers) {
+            wrapper.considerNotify();
+        }
+    }
+
+    private abstract class ObserverWrapper {
+        final Observer<? super T> mObserver;
+        int mLastVersion;
+
+        ObserverWrapper(Observer<? super T> observer) {
+            mObserver = observer;
+            // 粘性模式下，把版本往前移一位，注册之后就会收到最后一条数据
+            mLastVersion = (mSticky && mLast != null) ? mVersion - 1 : mVersion;
+        }
+
+        abstract boolean isActive();
+
+        void considerNotify() {
+            if (!isActive() || mLastVersion >= mVersion || mLast == null) {
+                return;
+            }
+            mLastVersion = mVersion;
+            mObserver.onChanged(mLast);
+        }
+
+        /**
+         * 变成活跃状态的时候，补发错过的最后一条数据
+         */
+        void activate() {
+            considerNotify();
+        }
+
+        void detach() {
+            mObservers.remove(this);
+        }
+    }
+
+    private class LifecycleWrapper extends ObserverWrapper implements LifecycleEventObserver {
+        private final LifecycleOwner mOwner;
+
+        LifecycleWrapper(LifecycleOwner owner, Observer<? super T> observer) {
+            super(observer);
+            mOwner = owner;
+        }
+
+        @Override
+        boolean isActive() {
+            return mOwner.getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.STARTED);
+        }
+
+        @Override
+        public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+            if (event == Lifecycle.Event.ON_DESTROY) {
+                detach();
+            } else if (isActive()) {
+                activate();
+            }
+        }
+
+        @Override
+        void detach() {
+            super.detach();
+            mOwner.getLifecycle().removeObserver(this);
+        }
+    }
+
+    private class ForeverWrapper extends ObserverWrapper implements LifecycleEventObserver {
+        private final LifecycleOwner mOwner;
+
+        ForeverWrapper(LifecycleOwner owner, Observer<? super T> observer) {
+            super(observer);
+            mOwner = owner;
+        }
+
+        @Override
+        boolean isActive() {
+            return true;
+        }
+
+        @Override
+        public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+            if (event == Lifecycle.Event.ON_DESTROY) {
+                detach();
+            }
+        }
+
+        @Override
+        void detach() {
+            super.detach();
+            if (mOwner != null) {
+                mOwner.getLifecycle().removeObserver(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package com.android.helper.utils.preference;
+
+import android.content.Context;
+
+import com.android.common.utils.LogUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * 基于内存映射的追加写存储引擎，可以替代SharedPreferences，使用方式：
+ * <pre>
+ *     PreferenceHelper.setEngine(MappedPreferenceEngine.FACTORY);
+ * </pre>
+ * <ol>
+ *     1：文件以只追加的日志格式保存，每次修改只在文件的末尾追加一条记录，不需要像SharedPreferences一样重写整个XML文件。
+ *     2：打开的时候顺序读取一遍日志，在内存中建立索引，之后的读取直接从内存中获取，不需要解析XML。
+ *     3：每条记录都带有CRC32校验，进程被杀死等原因导致最后一条记录不完整的时候，从最后一条完整的记录恢复。
+ *     4：一批修改全部写入之后才更新文件头中的有效长度，所以一批修改要么全部生效，要么全部不生效。
+ *     5：日志中的无效记录超过有效数据的时候，把当前的数据重新写入一个新的文件，然后替换原来的文件。
+ * </ol>
+ * 文件格式：
+ * <pre>
+ *     文件头：magic(4) version(4) length(4) reserved(4)
+ *     记录：size(4) crc32(4) type(1) keyLength(4) key value
+ * </pre>
+ */
+public class MappedPreferenceEngine implements PreferenceEngine {
+
+    public static final Factory FACTORY = (context, fileName) -> new MappedPreferenceEngine(getFile(context, fileName));
+
+    private static final int MAGIC = 0x4D4B5650; // MKVP
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int LENGTH_OFFSET = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int PAGE_SIZE = 4096;
+    private static final int MIN_SIZE = 16 * PAGE_SIZE;
+    private static final int COMPACT_THRESHOLD = 64 * 1024; // 小于这个大小的日志不压缩
+
+    private static final byte TYPE_REMOVE = 0;
+    private static final byte TYPE_INT = 1;
+    private static final byte TYPE_LONG = 2;
+    private static final byte TYPE_BOOLEAN = 3;
+    private static final byte TYPE_STRING = 4;
+    private static final byte TYPE_CLEAR = 5;
+
+    private final File mFile;
+    private final HashMap<String, Object> mValues = new HashMap<>();
+    private final CRC32 mCrc = new CRC32();
+    private MappedByteBuffer mBuffer;
+    private int mLength; // 文件头之后有效日志的长度
+    private int mLiveSize; // 当前有效数据重新写入之后的长度
+
+    public MappedPreferenceEngine(File file) {
+        mFile = file;
+        try {
+            load();
+        } catch (IOException e) {
+            LogUtil.e("MappedPreferenceEngine打开文件失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * @return 存储文件的位置，在files目录下的mapped_prefs文件夹中
+     */
+    public static File getFile(Context context, String fileName) {
+        File dir = new File(context.getFilesDir(), "mapped_prefs");
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        return new File(dir, fileName + ".kv");
+    }
+
+    @Override
+    public synchronized boolean contains(String key) {
+        return mValues.containsKey(key);
+    }
+
+    @Override
+    public synchronized int getInt(String key, int defValue) {
+        Object value = mValues.get(key);
+        return value instanceof Integer ? (Integer) value : defValue;
+    }
+
+    @Override
+    public synchronized long getLong(String key, long defValue) {
+        Object value = mValues.get(key);
+        return value instanceof Long ? (Long) value : defValue;
+    }
+
+    @Override
+    public synchronized boolean getBoolean(String key, boolean defValue) {
+        Object value = mValues.get(key);
+        return value instanceof Boolean ? (Boolean) value : defValue;
+    }
+
+    @Override
+    public synchronized String getString(String key, String defValue) {
+        Object value = mValues.get(key);
+        return value instanceof String ? (String) value : defValue;
+    }
+
+    /**
+     * @return 当前所有的数据，主要用于调试
+     */
+    public synchronized Map<String, Object> getAll() {
+        return new HashMap<>(mValues);
+    }
+
+    @Override
+    public synchronized void write(Map<String, Object> changes, boolean clear) {
+        if (mBuffer == null) {
+            return;
+        }
+        // 先更新内存中的索引，中途空间不够触发压缩的时候，压缩的结果已经包含了这一批修改
+        if (clear) {
+            mValues.clear();
+            mLiveSize = 0;
+        }
+        for (Map.Entry<String, Object> entry : changes.entrySet()) {
+            update(entry.getKey(), entry.getValue());
+        }
+        try {
+            if (clear) {
+                append(TYPE_CLEAR, "", null);
+            }
+            for (Map.Entry<String, Object> entry : changes.entrySet()) {
+                append(typeOf(entry.getValue()), entry.getKey(), entry.getValue());
+            }
+            // 全部写入之后再更新有效的长度
+            mBuffer.putInt(LENGTH_OFFSET, mLength);
+            if (mLength > COMPACT_THRESHOLD && mLength > mLiveSize * 2) {
+                compact();
+            }
+        } catch (IOException e) {
+            LogUtil.e("MappedPreferenceEngine写入失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 写入内存映射之后数据就已经交给了系统，进程被杀也不会丢失，sync为true的时候再同步到磁盘，防止断电丢失
+     */
+    @Override
+    public synchronized void write(Map<String, Object> changes, boolean clear, boolean sync) {
+        write(changes, clear);
+        if (sync && mBuffer != null) {
+            mBuffer.force();
+        }
+    }
+
+    private void load() throws IOException {
+        if (mFile.exists() && mFile.length() >= HEADER_SIZE) {
+            map(Math.max(MIN_SIZE, (int) mFile.length()));
+            if (mBuffer.getInt(0) == MAGIC && mBuffer.getInt(4) == VERSION) {
+                int length = mBuffer.getInt(LENGTH_OFFSET);
+                mLength = replay(Math.min(Math.max(0, length), mBuffer.capacity() - HEADER_SIZE));
+                if (mLength != length) {
+                    LogUtil.e("MappedPreferenceEngine数据不完整，恢复到了" + mLength + "字节：" + mFile.getName());
+                    mBuffer.putInt(LENGTH_OFFSET, mLength);
+                }
+                return;
+            }
+            LogUtil.e("MappedPreferenceEngine文件格式错误，重新创建：" + mFile.getName());
+        }
+        map(MIN_SIZE);
+        writeHeader(mBuffer, 0);
+        mLength = 0;
+    }
+
+    /**
+     * 顺序读取日志，遇到不完整或者校验失败的记录就停止
+     *
+     * @return 有效日志的长度
+     */
+    private int replay(int length) {
+        int position = HEADER_SIZE;
+        int end = HEADER_SIZE + length;
+        ByteBuffer buffer = mBuffer.duplicate();
+        while (position + RECORD_HEADER_SIZE <= end) {
+            int size = buffer.getInt(position);
+            int crc = buffer.getInt(position + 4);
+            int start = position + RECORD_HEADER_SIZE;
+            if (size <= 0 || start + size > end || crc != crc(buffer, start, size)) {
+                break;
+            }
+            try {
+                buffer.position(start);
+                byte type = buffer.get();
+                String key = readString(buffer);
+                apply(type, key, buffer);
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                break;
+            }
+            position = start + size;
+        }
+        return position - HEADER_SIZE;
+    }
+
+    private void apply(byte type, String key, ByteBuffer buffer) {
+        Object value;
+        switch (type) {
+            case TYPE_CLEAR:
+                mValues.clear();
+                mLiveSize = 0;
+                return;
+            case TYPE_REMOVE:
+                value = null;
+                break;
+            case TYPE_INT:
+                value = buffer.getInt();
+                break;
+            case TYPE_LONG:
+                value = buffer.getLong();
+                break;
+            case TYPE_BOOLEAN:
+                value = buffer.get() != 0;
+                break;
+            case TYPE_STRING:
+                value = readString(buffer);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown type " + type);
+        }
+        update(key, value);
+    }
+
+    private void update(String key, Object value) {
+        Object old = value == null ? mValues.remove(key) : mValues.put(key, value);
+        if (old != null) {
+            mLiveSize -= recordSize(key, old);
+        }
+        if (value != null) {
+            mLiveSize += recordSize(key, value);
+        }
+    }
+
+    private void append(byte type, String key, Object value) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] stringBytes = value instanceof String ? ((String) value).getBytes(StandardCharsets.UTF_8) : null;
+        int size = 1 + 4 + keyBytes.length + valueSize(value, stringBytes);
+        ensureCapacity(RECORD_HEADER_SIZE + size);
+
+        int position = HEADER_SIZE + mLength;
+        int start = position + RECORD_HEADER_SIZE;
+        ByteBuffer buffer = mBuffer.duplicate();
+        buffer.position(start);
+        buffer.put(type);
+        buffer.putInt(keyBytes.length);
+        buffer.put(keyBytes);
+        if (value instanceof Integer) {
+            buffer.putInt((Integer) value);
+        } else if (value instanceof Long) {
+            buffer.putLong((Long) value);
+        } else if (value instanceof Boolean) {
+            buffer.put((byte) ((Boolean) value ? 1 : 0));
+        } else if (stringBytes != null) {
+            buffer.putInt(stringBytes.length);
+            buffer.put(stringBytes);
+        }
+        buffer.putInt(position, size);
+        buffer.putInt(position + 4, crc(buffer, start, size));
+        mLength += RECORD_HEADER_SIZE + size;
+    }
+
+    /**
+     * 空间不够的时候，先尝试压缩，压缩之后依旧不够的话再扩大文件
+     */
+    private void ensureCapacity(int required) throws IOException {
+        if (HEADER_SIZE + mLength + required <= mBuffer.capacity()) {
+            return;
+        }
+        if (mLength > mLiveSize * 2) {
+            try {
+                compact();
+                if (HEADER_SIZE + mLength + required <= mBuffer.capacity()) {
+                    return;
+                }
+            } catch (IOException e) {
+                // 压缩失败的时候原来的文件保持不变，直接扩大原来的文件继续写入
+                LogUtil.e("MappedPreferenceEngine压缩失败：" + e.getMessage());
+            }
+        }
+        int size = mBuffer.capacity();
+        while (HEADER_SIZE + mLength + required > size) {
+            size *= 2;
+        }
+        map(size);
+    }
+
+    /**
+     * 把当前有效的数据写入一个新的文件，然后替换原来的文件，替换失败的时候继续使用原来的文件，并删除临时的文件
+     */
+    private void compact() throws IOException {
+        File temp = new File(mFile.getPath() + ".tmp");
+        int size = MIN_SIZE;
+        while (HEADER_SIZE + mLiveSize + PAGE_SIZE > size) {
+            size *= 2;
+        }
+        HashMap<String, Object> values = new HashMap<>(mValues);
+        MappedByteBuffer oldBuffer = mBuffer;
+        int oldLength = mLength;
+        boolean success = false;
+        try {
+            // append写入的是mBuffer，临时指向新的文件，替换成功之前原来的映射一直保留
+            try (RandomAccessFile file = new RandomAccessFile(temp, "rw"); FileChannel channel = file.getChannel()) {
+                mBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+            writeHeader(mBuffer, 0);
+            mLength = 0;
+            for (Map.Entry<String, Object> entry : values.entrySet()) {
+                append(typeOf(entry.getValue()), entry.getKey(), entry.getValue());
+            }
+            mBuffer.putInt(LENGTH_OFFSET, mLength);
+            mBuffer.force();
+            if (!temp.renameTo(mFile)) {
+                throw new IOException("rename failed: " + temp);
+            }
+            success = true;
+        } finally {
+            if (!success) {
+                mBuffer = oldBuffer;
+                mLength = oldLength;
+                if (temp.exists() && !temp.delete()) {
+                    LogUtil.e("MappedPreferenceEngine删除临时文件失败：" + temp);
+                }
+            }
+        }
+    }
+
+    private void map(int size) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(mFile, "rw"); FileChannel channel = file.getChannel()) {
+            mBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private static void writeHeader(ByteBuffer buffer, int length) {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(LENGTH_OFFSET, length);
+        buffer.putInt(12, 0);
+    }
+
+    private int crc(ByteBuffer buffer, int start, int size) {
+        ByteBuffer slice = buffer.duplicate();
+        slice.limit(start + size);
+        slice.position(start);
+        mCrc.reset();
+        mCrc.update(slice);
+        return (int) mCrc.getValue();
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("bad length " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte typeOf(Object value) {
+        if (value == null) {
+            return TYPE_REMOVE;
+        } else if (value instanceof Integer) {
+            return TYPE_INT;
+        } else if (value instanceof Long) {
+            return TYPE_LONG;
+        } else if (value instanceof Boolean) {
+            return TYPE_BOOLEAN;
+        }
+        return TYPE_STRING;
+    }
+
+    private static int valueSize(Object value, byte[] stringBytes) {
+        if (value instanceof Integer) {
+            return 4;
+        } else if (value instanceof Long) {
+            return 8;
+        } else if (value instanceof Boolean) {
+            return 1;
+        } else if (stringBytes != null) {
+            return 4 + stringBytes.length;
+        }
+        return 0;
+    }
+
+    /**
+     * @return 记录在文件中的长度，只用来判断是否需要压缩
+     */
+    private static int recordSize(String key, Object value) {
+        return RECORD_HEADER_SIZE + 1 + 4 + utf8Length(key) + (value instanceof String ? 4 + utf8Length((String) value) : valueSize(value, null));
+    }
+
+    /**
+     * @return 字符串按照UTF-8编码之后的字节数，不需要真的去编码
+     */
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0, size = value.length(); i < size; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < size && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,45 @@
+package com.android.helper.utils.preference;
+
+import android.content.Context;
+
+import java.util.Map;
+
+/**
+ * {@link PreferenceStore}底层的存储引擎，默认使用{@link SharedPreferencesEngine}
+ */
+public interface PreferenceEngine {
+
+    boolean contains(String key);
+
+    int getInt(String key, int defValue);
+
+    long getLong(String key, long defValue);
+
+    boolean getBoolean(String key, boolean defValue);
+
+    String getString(String key, String defValue);
+
+    /**
+     * 把一批修改写入存储，只会在{@link PreferenceStore}的写入线程中调用
+     *
+     * @param changes 修改的数据，value为null代表删除这个key
+     * @param clear   是否在写入之前先清空所有的数据
+     */
+    void write(Map<String, Object> changes, boolean clear);
+
+    /**
+     * 把一批修改写入存储，{@link PreferenceStore#flush()}和{@link PreferenceStore.Editor#commit()}的时候sync为true
+     *
+     * @param sync 是否需要等待数据真正写入磁盘之后再返回
+     */
+    default void write(Map<String, Object> changes, boolean clear, boolean sync) {
+        write(changes, clear);
+    }
+
+    /**
+     * 创建存储引擎
+     */
+    interface Factory {
+        PreferenceEngine create(Context context, String fileName);
+    }
+}
@@ -0,0 +1,298 @@
+package com.android.helper.utils.preference;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import com.android.common.utils.LogUtil;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 先写内存、再批量落盘的配置存储
+ * <ol>
+ *     1：写入的数据先放到内存中，立刻就可以读取到，{@link #FLUSH_DELAY_MS}之内的所有修改合并之后，在单独的写入线程中一次性写入存储引擎。
+ *     2：{@link #edit()}可以同时修改多个key，{@link Editor#apply()}的时候一次性生效，读取的时候不会看到只修改了一半的数据。
+ *     3：存储引擎默认是SharedPreferences，可以通过{@link #setEngineFactory(PreferenceEngine.Factory)}替换，必须在第一次使用之前设置。
+ *     4：需要立刻落盘的时候调用{@link #flush()}，会同步的写入磁盘。应用进入后台的时候{@link com.android.helper.app.BaseApplication}会调用{@link #flushAllAsync()}，在写入线程中写入，不会阻塞主线程。
+ * </ol>
+ */
+public final class PreferenceStore {
+
+    /**
+     * 修改之后等待合并的时间，大约是一帧
+     */
+    public static final long FLUSH_DELAY_MS = 16;
+
+    private static final Map<String, PreferenceStore> STORES = new HashMap<>();
+    private static final Object MISSING = new Object();
+    private static final ScheduledThreadPoolExecutor WRITER = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "preference-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static volatile PreferenceEngine.Factory sEngineFactory = SharedPreferencesEngine.FACTORY;
+
+    private final PreferenceEngine mEngine;
+    private final Runnable mFlush = () -> flush(false);
+    private Batch mPending = new Batch(); // 还没有开始写入的修改
+    private Batch mWriting; // 正在写入引擎的修改，写入完成之前读取的时候依旧需要覆盖引擎中的数据
+    private boolean mUnsynced; // 是否有已经写入引擎、但是还没有同步到磁盘的修改
+
+    private PreferenceStore(PreferenceEngine engine) {
+        mEngine = engine;
+    }
+
+    /**
+     * @param factory 存储引擎，必须在第一次使用之前设置，已经创建的文件不会改变
+     */
+    public static void setEngineFactory(@NonNull PreferenceEngine.Factory factory) {
+        sEngineFactory = factory;
+    }
+
+    /**
+     * @return 文件名对应的存储，同一个文件名只会创建一个对象
+     */
+    public static PreferenceStore get(@NonNull Context context, @NonNull String fileName) {
+        synchronized (STORES) {
+            PreferenceStore store = STORES.get(fileName);
+            if (store == null) {
+                store = new PreferenceStore(sEngineFactory.create(context.getApplicationContext(), fileName));
+                STORES.put(fileName, store);
+            }
+            return store;
+        }
+    }
+
+    /**
+     * 在写入线程中把所有文件中还没有落盘的修改写入，不会阻塞当前的线程，适合在主线程中调用
+     */
+    public static void flushAllAsync() {
+        PreferenceStore[] stores;
+        synchronized (STORES) {
+            stores = STORES.values().toArray(new PreferenceStore[0]);
+        }
+        for (PreferenceStore store : stores) {
+            WRITER.execute(store.mFlush);
+        }
+    }
+
+    /**
+     * 把所有文件中还没有落盘的修改立刻同步写入磁盘，会阻塞当前的线程，不要在主线程中调用
+     */
+    public static void flushAll() {
+        PreferenceStore[] stores;
+        synchronized (STORES) {
+            stores = STORES.values().toArray(new PreferenceStore[0]);
+        }
+        for (PreferenceStore store : stores) {
+            store.flush();
+        }
+    }
+
+    public int getInt(String key, int defValue) {
+        Object value = lookup(key);
+        if (value == MISSING) {
+            return mEngine.getInt(key, defValue);
+        }
+        return value instanceof Integer ? (Integer) value : defValue;
+    }
+
+    public long getLong(String key, long defValue) {
+        Object value = lookup(key);
+        if (value == MISSING) {
+            return mEngine.getLong(key, defValue);
+        }
+        return value instanceof Long ? (Long) value : defValue;
+    }
+
+    public boolean getBoolean(String key, boolean defValue) {
+        Object value = lookup(key);
+        if (value == MISSING) {
+            return mEngine.getBoolean(key, defValue);
+        }
+        return value instanceof Boolean ? (Boolean) value : defValue;
+    }
+
+    public String getString(String key, String defValue) {
+        Object value = lookup(key);
+        if (value == MISSING) {
+            return mEngine.getString(key, defValue);
+        }
+        return value instanceof String ? (String) value : defValue;
+    }
+
+    public boolean contains(String key) {
+        Object value = lookup(key);
+        if (value == MISSING) {
+            return mEngine.contains(key);
+        }
+        return value != null;
+    }
+
+    /**
+     * @return 同时修改多个key的编辑器
+     */
+    public Editor edit() {
+        return new Editor(this);
+    }
+
+    /**
+     * 立刻把还没有落盘的修改写入存储引擎，并且等待写入磁盘之后再返回，会阻塞当前的线程。
+     * 调用之前已经被写入线程取走、只是异步写入的修改，也会在返回之前同步到磁盘
+     */
+    public void flush() {
+        flush(true);
+    }
+
+    /**
+     * @param sync 是否等待写入磁盘，写入线程中的批量写入不需要等待
+     */
+    private void flush(boolean sync) {
+        synchronized (this) {
+            // 等待正在写入的修改完成，保证写入的顺序
+            while (mWriting != null) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            // 没有新的修改的时候，如果之前的修改只是异步写入的，依旧需要写入一个空的批次，等待引擎同步到磁盘
+            if (mPending.isEmpty() && !(sync && mUnsynced)) {
+                return;
+            }
+            mWriting = mPending;
+            mPending = new Batch();
+        }
+        boolean success = false;
+        try {
+            mEngine.write(mWriting.mChanges, mWriting.mClear, sync);
+            success = true;
+        } catch (Exception e) {
+            LogUtil.e("PreferenceStore写入失败：" + e.getMessage());
+        } finally {
+            synchronized (this) {
+                if (success) {
+                    mUnsynced = !sync;
+                }
+                mWriting = null;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * @return 内存中的修改，MISSING代表内存中没有，需要读取存储引擎，null代表已经删除
+     */
+    private synchronized Object lookup(String key) {
+        Object value = mPending.lookup(key);
+        if (value == MISSING && mWriting != null) {
+            value = mWriting.lookup(key);
+        }
+        return value;
+    }
+
+    private void commit(Map<String, Object> changes, boolean clear) {
+        boolean schedule;
+        synchronized (this) {
+            schedule = mPending.isEmpty();
+            mPending.merge(changes, clear);
+        }
+        if (schedule) {
+            WRITER.schedule(mFlush, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 一批修改的数据
+     */
+    private static final class Batch {
+        final HashMap<String, Object> mChanges = new HashMap<>();
+        boolean mClear;
+
+        boolean isEmpty() {
+            return !mClear && mChanges.isEmpty();
+        }
+
+        void merge(Map<String, Object> changes, boolean clear) {
+            if (clear) {
+                mChanges.clear();
+                mClear = true;
+            }
+            mChanges.putAll(changes);
+        }
+
+        Object lookup(String key) {
+            if (mChanges.containsKey(key)) {
+                return mChanges.get(key);
+            }
+            return mClear ? null : MISSING;
+        }
+    }
+
+    /**
+     * 同时修改多个key，调用{@link #apply()}之后一次性生效
+     */
+    public static final class Editor {
+        private final PreferenceStore mStore;
+        private final HashMap<String, Object> mChanges = new HashMap<>();
+        private boolean mClear;
+
+        Editor(PreferenceStore store) {
+            mStore = store;
+        }
+
+        public Editor putInt(String key, int value) {
+            mChanges.put(key, value);
+            return this;
+        }
+
+        public Editor putLong(String key, long value) {
+            mChanges.put(key, value);
+            return this;
+        }
+
+        public Editor putBoolean(String key, boolean value) {
+            mChanges.put(key, value);
+            return this;
+        }
+
+        public Editor putString(String key, String value) {
+            mChanges.put(key, value);
+            return this;
+        }
+
+        public Editor remove(String key) {
+            mChanges.put(key, null);
+            return this;
+        }
+
+        /**
+         * 清空所有的数据，和SharedPreferences一致，清空会先于同一个编辑器中的其他修改执行
+         */
+        public Editor clear() {
+            mClear = true;
+            return this;
+        }
+
+        /**
+         * 修改立刻在内存中生效，稍后在写入线程中批量落盘
+         */
+        public void apply() {
+            mStore.commit(mChanges, mClear);
+        }
+
+        /**
+         * 修改立刻在内存中生效，并且等待写入磁盘之后再返回，不要在主线程中调用
+         */
+        public void commit() {
+            apply();
+            mStore.flush();
+        }
+    }
+}
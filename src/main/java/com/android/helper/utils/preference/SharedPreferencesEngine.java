@@ -0,0 +1,78 @@
+package com.android.helper.utils.preference;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.Map;
+
+/**
+ * 基于SharedPreferences的存储引擎，一批修改只会调用一次apply()，需要同步落盘的时候调用commit()
+ */
+public class SharedPreferencesEngine implements PreferenceEngine {
+
+    public static final Factory FACTORY = SharedPreferencesEngine::new;
+
+    private final SharedPreferences mPreferences;
+
+    public SharedPreferencesEngine(Context context, String fileName) {
+        mPreferences = context.getSharedPreferences(fileName, Context.MODE_PRIVATE);
+    }
+
+    @Override
+    public boolean contains(String key) {
+        return mPreferences.contains(key);
+    }
+
+    @Override
+    public int getInt(String key, int defValue) {
+        return mPreferences.getInt(key, defValue);
+    }
+
+    @Override
+    public long getLong(String key, long defValue) {
+        return mPreferences.getLong(key, defValue);
+    }
+
+    @Override
+    public boolean getBoolean(String key, boolean defValue) {
+        return mPreferences.getBoolean(key, defValue);
+    }
+
+    @Override
+    public String getString(String key, String defValue) {
+        return mPreferences.getString(key, defValue);
+    }
+
+    @Override
+    public void write(Map<String, Object> changes, boolean clear) {
+        write(changes, clear, false);
+    }
+
+    @Override
+    public void write(Map<String, Object> changes, boolean clear, boolean sync) {
+        SharedPreferences.Editor editor = mPreferences.edit();
+        if (clear) {
+            editor.clear();
+        }
+        for (Map.Entry<String, Object> entry : changes.entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+            if (value == null) {
+                editor.remove(key);
+            } else if (value instanceof Integer) {
+                editor.putInt(key, (Integer) value);
+            } else if (value instanceof Long) {
+                editor.putLong(key, (Long) value);
+            } else if (value instanceof Boolean) {
+                editor.putBoolean(key, (Boolean) value);
+            } else {
+                editor.putString(key, String.valueOf(value));
+            }
+        }
+        if (sync) {
+            editor.commit();
+        } else {
+            editor.apply();
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.android.helper.utils.room;
+
+import com.android.common.utils.LogUtil;
+
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Room数据库专用的线程池，替代无限扩容的{@link Schedulers#io()}
+ * <ol>
+ *     1：一个写入线程，所有的增删改操作都在这个线程中排队执行，不会出现多个线程同时抢SQLite的写锁。
+ *     2：一个读取线程池，线程数量根据CPU的核心数量决定，最少2个，最多4个，空闲30秒之后回收。
+ *     3：每个线程池都会统计排队的数量和任务的等待时间，等待超过{@link #SLOW_WAIT_MS}的时候会打印日志，
+ *     也可以通过{@link #getWriter()}、{@link #getReader()}获取统计的数据。
+ * </ol>
+ */
+public final class RoomExecutor {
+
+    /**
+     * 任务等待超过这个时间的时候打印日志
+     */
+    public static final long SLOW_WAIT_MS = 100;
+
+    private static volatile RoomExecutor INSTANCE;
+
+    private final Pool mWriter;
+    private final Pool mReader;
+    private final Scheduler mWriteScheduler;
+    private final Scheduler mReadScheduler;
+
+    private RoomExecutor() {
+        ScheduledThreadPoolExecutor writer = new ScheduledThreadPoolExecutor(1, new RoomThreadFactory("room-writer"));
+        writer.setRemoveOnCancelPolicy(true);
+        mWriter = new Pool("writer", writer);
+
+        int readerCount = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        ThreadPoolExecutor reader = new ThreadPoolExecutor(readerCount, readerCount, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new RoomThreadFactory("room-reader"));
+        reader.allowCoreThreadTimeOut(true);
+        mReader = new Pool("reader", reader);
+
+        mWriteScheduler = Schedulers.from(mWriter);
+        mReadScheduler = Schedulers.from(mReader);
+    }
+
+    public static RoomExecutor getInstance() {
+        if (INSTANCE == null) {
+            synchronized (RoomExecutor.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new RoomExecutor();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * @return 写入线程对应的Scheduler，用于增删改或者需要写入的操作
+     */
+    public Scheduler getWriteScheduler() {
+        return mWriteScheduler;
+    }
+
+    /**
+     * @return 读取线程池对应的Scheduler，用于查询的操作
+     */
+    public Scheduler getReadScheduler() {
+        return mReadScheduler;
+    }
+
+    /**
+     * @return 写入线程，可以获取排队的数量和等待的时间
+     */
+    public Pool getWriter() {
+        return mWriter;
+    }
+
+    /**
+     * @return 读取线程池，可以获取排队的数量和等待的时间
+     */
+    public Pool getReader() {
+        return mReader;
+    }
+
+    /**
+     * @return 两个线程池的统计数据，用于打印日志
+     */
+    public String dump() {
+        return mWriter + "\n" + mReader;
+    }
+
+    /**
+     * 带有统计数据的线程池
+     */
+    public static final class Pool implements Executor {
+        private final String mName;
+        private final ThreadPoolExecutor mExecutor;
+        private final AtomicInteger mQueueDepth = new AtomicInteger();
+        private final AtomicInteger mMaxQueueDepth = new AtomicInteger();
+        private final AtomicLong mTaskCount = new AtomicLong();
+        private final AtomicLong mTotalWaitNanos = new AtomicLong();
+        private final AtomicLong mMaxWaitNanos = new AtomicLong();
+
+        Pool(String name, ThreadPoolExecutor executor) {
+            mName = name;
+            mExecutor = executor;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            mExecutor.execute(wrap(command, System.nanoTime()));
+        }
+
+        /**
+         * 延迟执行任务，只有写入线程支持，等待时间从到期的时间开始计算
+         */
+        void schedule(Runnable command, long delayMs) {
+            long due = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+            ((ScheduledThreadPoolExecutor) mExecutor).schedule(wrap(command, due), delayMs, TimeUnit.MILLISECONDS);
+        }
+
+        private Runnable wrap(Runnable command, long readyNanos) {
+            int depth = mQueueDepth.incrementAndGet();
+            int max;
+            while (depth > (max = mMaxQueueDepth.get()) && !mMaxQueueDepth.compareAndSet(max, depth)) {
+                // 更新最大的排队数量
+            }
+            return () -> {
+                mQueueDepth.decrementAndGet();
+                record(System.nanoTime() - readyNanos);
+                command.run();
+            };
+        }
+
+        private void record(long waitNanos) {
+            if (waitNanos < 0) {
+                waitNanos = 0;
+            }
+            mTaskCount.incrementAndGet();
+            mTotalWaitNanos.addAndGet(waitNanos);
+            long max;
+            while (waitNanos > (max = mMaxWaitNanos.get()) && !mMaxWaitNanos.compareAndSet(max, waitNanos)) {
+                // 更新最大的等待时间
+            }
+            long waitMs = TimeUnit.NANOSECONDS.toMillis(waitNanos);
+            if (waitMs >= SLOW_WAIT_MS) {
+                LogUtil.e("Room线程池[" + mName + "]任务等待了" + waitMs + "ms，当前排队数量：" + mQueueDepth.get());
+            }
+        }
+
+        /**
+         * @return 当前排队的任务数量
+         */
+        public int getQueueDepth() {
+            return mQueueDepth.get();
+        }
+
+        /**
+         * @return 出现过的最大排队数量
+         */
+        public int getMaxQueueDepth() {
+            return mMaxQueueDepth.get();
+        }
+
+        /**
+         * @return 已经开始执行的任务数量
+         */
+        public long getTaskCount() {
+            return mTaskCount.get();
+        }
+
+        /**
+         * @return 任务从提交到开始执行的平均等待时间，单位是毫秒
+         */
+        public double getAverageWaitMs() {
+            long count = mTaskCount.get();
+            return count == 0 ? 0 : mTotalWaitNanos.get() / 1e6 / count;
+        }
+
+        /**
+         * @return 任务从提交到开始执行的最大等待时间，单位是毫秒
+         */
+        public double getMaxWaitMs() {
+            return mMaxWaitNanos.get() / 1e6;
+        }
+
+        /**
+         * 清空统计的数据
+         */
+        public void reset() {
+            mMaxQueueDepth.set(mQueueDepth.get());
+            mTaskCount.set(0);
+            mTotalWaitNanos.set(0);
+            mMaxWaitNanos.set(0);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.CHINA, "%s  threads=%d  queue=%d  maxQueue=%d  tasks=%d  avgWait=%.2fms  maxWait=%.2fms",
+                    mName, mExecutor.getPoolSize(), getQueueDepth(), getMaxQueueDepth(), getTaskCount(), getAverageWaitMs(), getMaxWaitMs());
+        }
+    }
+
+    private static final class RoomThreadFactory implements ThreadFactory {
+        private final String mName;
+        private final AtomicInteger mIndex = new AtomicInteger();
+
+        RoomThreadFactory(String name) {
+            mName = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, mName + "-" + mIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -1,14 +1,14 @@
 package com.android.helper.utils.room;
 
-import android.annotation.SuppressLint;
 import android.text.TextUtils;
 
 import com.android.common.utils.LogUtil;
-import com.android.helper.httpclient.RxUtil;
 import com.android.helper.interfaces.room.RoomDeleteListener;
 import com.android.helper.interfaces.room.RoomExecuteListener;
+import com.android.helper.interfaces.room.RoomInsertAllListener;
 import com.android.helper.interfaces.room.RoomInsertListener;
 import com.android.helper.interfaces.room.RoomQueryListener;
+import com.android.helper.interfaces.room.RoomTransaction;
 import com.android.helper.interfaces.room.RoomUpdateListener;
 
 import java.lang.annotation.Retention;
@@ -20,14 +20,21 @@ import java.util.Set;
 import io.reactivex.BackpressureStrategy;
 import io.reactivex.Flowable;
 import io.reactivex.FlowableOnSubscribe;
+import io.reactivex.FlowableTransformer;
+import io.reactivex.Scheduler;
+import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.subscribers.DisposableSubscriber;
 
 /**
  * Room数据库的操作类，适用于不持有观察者对象的操作,适用于普通的异步操作数据库的增删改查操作
+ * <p>
+ * 所有的操作都在{@link RoomExecutor}中执行，增删改使用同一个写入线程，查询使用数量固定的读取线程池，
+ * 线程池的排队数量和等待时间可以通过{@link RoomExecutor#dump()}查看
  */
 public class RoomUtil {
 
     private static volatile RoomUtil INSTANCE;
+    private final RoomWriteBatcher mWriteBatcher = new RoomWriteBatcher(RoomExecutor.getInstance().getWriter());
 
     public RoomUtil() {
     }
@@ -46,45 +53,47 @@ public class RoomUtil {
         return INSTANCE;
     }
 
+    /**
+     * 设置执行事务的对象，设置之后，同一批合并的增删改操作会放到一个事务中执行，只需要提交一次，
+     * 不设置的时候依旧在同一个写入线程中依次执行，例如：
+     * <pre>
+     *     RoomUtil.getInstance().setTransaction(RoomManager.getInstance()::runInTransaction);
+     * </pre>
+     *
+     * @param transaction 执行事务的对象，一般是RoomDatabase的runInTransaction方法
+     */
+    public void setTransaction(RoomTransaction transaction) {
+        mWriteBatcher.setTransaction(transaction);
+    }
+
     /**
      * <p>
      * 1:使用room数据库去插入一条数据局，如果成功了，就会返回插入的id，如果失败了，就返回-1
      * 2：如果使用这个方法的话，@Dao中@insert注解的方法一定要返回一个int 或者 long 类型的对象，否则无法判定是否成功了
+     * 3：增删改的操作都会进入同一个写入线程，短时间内的多个操作会合并到一个事务中执行，结果在主线程中回调
      * </p>
      *
      * @param insertListener room数据库添加数据的回调，如果成功了就返回插入的id,如果失败了，就返回-1
      */
-    @SuppressLint("CheckResult")
     public void insert(RoomInsertListener insertListener) {
         if (insertListener != null) {
-            Flowable
-                    .create((FlowableOnSubscribe<Long>) emitter -> {
-                        try {
-                            long insert = insertListener.insert();
-                            emitter.onNext(insert);
-                        } catch (Exception e) {
-                            emitter.onError(e);
-                        }
-                        emitter.onComplete();
-
-                    }, BackpressureStrategy.LATEST)
-                    .compose(RxUtil.getSchedulerFlowable())
-                    .subscribe(new DisposableSubscriber<Long>() {
-                        @Override
-                        public void onNext(Long aLong) {
-                            insertListener.onResult(true, aLong, "");
-                        }
-
-                        @Override
-                        public void onError(Throwable t) {
-                            LogUtil.e("Room插入数据失败：" + t.getMessage());
-                            insertListener.onResult(false, -1, t.getMessage());
-                        }
+            mWriteBatcher.enqueue(new RoomWriteBatcher.InsertOp(insertListener));
+        }
+    }
 
-                        @Override
-                        public void onComplete() {
-                        }
-                    });
+    /**
+     * <p>
+     * 1：使用room数据库批量插入数据，整个集合只在写入线程中执行一次，结果只回调一次，
+     * 不需要每一条数据都去调用{@link #insert(RoomInsertListener)}
+     * 2：需要在@Dao中@insert的方法中传入集合，并且返回一个long[]类型的id集合，否则无法获取插入的id
+     * 3：批量修改和批量删除的方法本身就返回影响的行数，直接使用{@link #update(RoomUpdateListener)}、{@link #delete(RoomDeleteListener)}即可
+     * </p>
+     *
+     * @param insertAllListener room数据库批量添加数据的回调
+     */
+    public void insertAll(RoomInsertAllListener insertAllListener) {
+        if (insertAllListener != null) {
+            mWriteBatcher.enqueue(new RoomWriteBatcher.InsertAllOp(insertAllListener));
         }
     }
 
@@ -98,34 +107,7 @@ public class RoomUtil {
      */
     public void delete(RoomDeleteListener deleteListener) {
         if (deleteListener != null) {
-            Flowable
-                    .create((FlowableOnSubscribe<Integer>) emitter -> {
-                        try {
-                            int delete = deleteListener.delete();
-                            emitter.onNext(delete);
-                        } catch (Exception e) {
-                            emitter.onError(e);
-                        }
-                        emitter.onComplete();
-
-                    }, BackpressureStrategy.LATEST)
-                    .compose(RxUtil.getSchedulerFlowable())
-                    .subscribe(new DisposableSubscriber<Integer>() {
-                        @Override
-                        public void onNext(Integer integer) {
-                            deleteListener.onResult(true, integer, "");
-                        }
-
-                        @Override
-                        public void onError(Throwable t) {
-                            LogUtil.e("Room删除数据失败：" + t.getMessage());
-                            deleteListener.onResult(false, 0, t.getMessage());
-                        }
-
-                        @Override
-                        public void onComplete() {
-                        }
-                    });
+            mWriteBatcher.enqueue(new RoomWriteBatcher.DeleteOp(deleteListener));
         }
     }
 
@@ -139,34 +121,7 @@ public class RoomUtil {
      */
     public void update(RoomUpdateListener updateListener) {
         if (updateListener != null) {
-            Flowable
-                    .create((FlowableOnSubscribe<Integer>) emitter -> {
-                        try {
-                            int update = updateListener.update();
-                            emitter.onNext(update);
-                        } catch (Exception e) {
-                            emitter.onError(e);
-                        }
-                        emitter.onComplete();
-
-                    }, BackpressureStrategy.LATEST)
-                    .compose(RxUtil.getSchedulerFlowable())
-                    .subscribe(new DisposableSubscriber<Integer>() {
-                        @Override
-                        public void onNext(Integer integer) {
-                            updateListener.onResult(true, integer, "");
-                        }
-
-                        @Override
-                        public void onError(Throwable t) {
-                            LogUtil.e("Room更新数据失败：" + t.getMessage());
-                            updateListener.onResult(false, 0, t.getMessage());
-                        }
-
-                        @Override
-                        public void onComplete() {
-                        }
-                    });
+            mWriteBatcher.enqueue(new RoomWriteBatcher.UpdateOp(updateListener));
         }
     }
 
@@ -192,7 +147,7 @@ public class RoomUtil {
                         emitter.onComplete();
 
                     }, BackpressureStrategy.LATEST) // create方法中多了一个BackpressureStrategy类型的参数
-                    .compose(RxUtil.getSchedulerFlowable())
+                    .compose(scheduler(RoomExecutor.getInstance().getReadScheduler()))
                     .subscribe(new DisposableSubscriber<T>() {
                         @Override
                         public void onNext(T t) {
@@ -212,6 +167,11 @@ public class RoomUtil {
         }
     }
 
+    /**
+     * 执行任意的数据库操作，因为可能包含写入，所以在写入线程中执行，和增删改的操作按照顺序执行
+     *
+     * @param executeListener room数据库执行操作的回调
+     */
     public <T> void execute(RoomExecuteListener<T> executeListener) {
         if (executeListener != null) {
             Flowable
@@ -225,7 +185,7 @@ public class RoomUtil {
                         emitter.onComplete();
 
                     }, BackpressureStrategy.LATEST)
-                    .compose(RxUtil.getSchedulerFlowable())
+                    .compose(scheduler(RoomExecutor.getInstance().getWriteScheduler()))
                     .subscribe(new DisposableSubscriber<T>() {
                         @Override
                         public void onNext(T t) {
@@ -246,6 +206,15 @@ public class RoomUtil {
         }
     }
 
+    /**
+     * @param scheduler 执行数据库操作的线程
+     * @return 在指定的线程中执行，在主线程中回调
+     */
+    private static <T> FlowableTransformer<T, T> scheduler(Scheduler scheduler) {
+        return upstream -> upstream.subscribeOn(scheduler)
+                .observeOn(AndroidSchedulers.mainThread());
+    }
+
     /**
      * @param tableName  表名
      * @param columnName 新增列的key
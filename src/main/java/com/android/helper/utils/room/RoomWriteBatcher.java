@@ -0,0 +1,276 @@
+package com.android.helper.utils.room;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.android.common.utils.LogUtil;
+import com.android.helper.interfaces.room.RoomDeleteListener;
+import com.android.helper.interfaces.room.RoomInsertAllListener;
+import com.android.helper.interfaces.room.RoomInsertListener;
+import com.android.helper.interfaces.room.RoomTransaction;
+import com.android.helper.interfaces.room.RoomUpdateListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Room数据库写入的合并执行器
+ * <ol>
+ *     1：所有的增删改操作都放到{@link RoomExecutor}的写入线程中排队，不会再每个操作都切换一次线程。
+ *     2：第一个操作进入队列之后等待{@link #WINDOW_MS}，或者队列达到{@link #MAX_BATCH_SIZE}的时候，把队列中所有的操作放到一个事务中执行。
+ *     3：Room生成的增删改方法会开启嵌套的事务，其中一个失败之后外层的事务只能整体回滚，所以单个操作失败的时候，
+ *     这一批的事务会直接回滚，失败的操作返回失败，其他的操作在新的事务中重新执行，直到没有操作失败为止。
+ *     因此同一个操作可能会执行多次，增删改的方法中不要做数据库之外的操作。整个事务提交失败的时候，剩下的操作都会返回失败。
+ *     4：一批操作的结果只会向主线程发送一次消息，在主线程中依次回调。
+ * </ol>
+ */
+final class RoomWriteBatcher {
+
+    /**
+     * 第一个操作进入队列之后，最多等待的时间
+     */
+    static final long WINDOW_MS = 16;
+
+    /**
+     * 队列中的操作达到这个数量的时候立刻执行
+     */
+    static final int MAX_BATCH_SIZE = 256;
+
+    private final Object mLock = new Object();
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final RoomExecutor.Pool mWriter;
+    private final Runnable mFlush = this::flush;
+    private List<WriteOp> mPending = new ArrayList<>();
+    private volatile RoomTransaction mTransaction;
+
+    RoomWriteBatcher(RoomExecutor.Pool writer) {
+        mWriter = writer;
+    }
+
+    /**
+     * @param transaction 执行事务的对象，为空的时候同一批的操作依次执行，不使用事务
+     */
+    void setTransaction(RoomTransaction transaction) {
+        mTransaction = transaction;
+    }
+
+    void enqueue(WriteOp op) {
+        int size;
+        synchronized (mLock) {
+            mPending.add(op);
+            size = mPending.size();
+        }
+        if (size == 1) {
+            mWriter.schedule(mFlush, WINDOW_MS);
+        } else if (size == MAX_BATCH_SIZE) {
+            mWriter.execute(mFlush);
+        }
+    }
+
+    /**
+     * 在写入线程中执行队列中所有的操作
+     */
+    private void flush() {
+        List<WriteOp> batch;
+        synchronized (mLock) {
+            if (mPending.isEmpty()) {
+                return;
+            }
+            batch = mPending;
+            mPending = new ArrayList<>();
+        }
+
+        RoomTransaction transaction = mTransaction;
+        if (transaction != null) {
+            runInTransaction(transaction, batch);
+        } else {
+            // 没有事务的时候每个操作都是独立的，失败的时候只影响自己的结果
+            for (WriteOp op : batch) {
+                op.run();
+            }
+        }
+
+        mHandler.post(() -> {
+            for (WriteOp op : batch) {
+                op.deliver();
+            }
+        });
+    }
+
+    /**
+     * 在事务中执行一批操作，有操作失败的时候回滚整个事务，然后把没有失败的操作放到新的事务中重新执行
+     */
+    private void runInTransaction(RoomTransaction transaction, List<WriteOp> batch) {
+        List<WriteOp> remaining = batch;
+        while (!remaining.isEmpty()) {
+            List<WriteOp> ops = remaining;
+            try {
+                transaction.runInTransaction(() -> {
+                    int failed = 0;
+                    for (WriteOp op : ops) {
+                        op.run();
+                        if (!op.mSuccess) {
+                            failed++;
+                        }
+                    }
+                    if (failed > 0) {
+                        // 抛出异常让整个事务回滚，不能让其他操作的结果和失败的操作一起被静默的回滚掉
+                        throw new RollbackException(failed);
+                    }
+                });
+                return;
+            } catch (Throwable throwable) {
+                List<WriteOp> retry = new ArrayList<>(ops.size());
+                for (WriteOp op : ops) {
+                    if (op.mSuccess) {
+                        retry.add(op);
+                    }
+                }
+                if (retry.size() == ops.size()) {
+                    // 没有单个操作失败，是事务本身提交失败了，剩下的操作都没有生效
+                    LogUtil.e("Room批量写入失败：" + throwable.getMessage());
+                    for (WriteOp op : ops) {
+                        op.fail(throwable);
+                    }
+                    return;
+                }
+                remaining = retry;
+            }
+        }
+    }
+
+    /**
+     * 一批操作中有操作失败的时候，用来回滚整个事务
+     */
+    private static final class RollbackException extends RuntimeException {
+        RollbackException(int failed) {
+            super(failed + "个操作执行失败，事务已回滚");
+        }
+    }
+
+    /**
+     * 一个写入的操作，execute在写入线程中执行，deliver在主线程中执行
+     */
+    abstract static class WriteOp {
+        boolean mSuccess;
+        String mErrorMsg = "";
+
+        abstract void execute();
+
+        abstract void deliver();
+
+        final void run() {
+            // 重新执行的时候清除上一次的结果
+            mSuccess = false;
+            try {
+                execute();
+                mSuccess = true;
+            } catch (Exception e) {
+                fail(e);
+            }
+        }
+
+        final void fail(Throwable throwable) {
+            mSuccess = false;
+            mErrorMsg = throwable.getMessage();
+        }
+    }
+
+    static final class InsertOp extends WriteOp {
+        private final RoomInsertListener mListener;
+        private long mId = -1;
+
+        InsertOp(RoomInsertListener listener) {
+            mListener = listener;
+        }
+
+        @Override
+        void execute() {
+            mId = mListener.insert();
+        }
+
+        @Override
+        void deliver() {
+            if (mSuccess) {
+                mListener.onResult(true, mId, "");
+            } else {
+                LogUtil.e("Room插入数据失败：" + mErrorMsg);
+                mListener.onResult(false, -1, mErrorMsg);
+            }
+        }
+    }
+
+    static final class InsertAllOp extends WriteOp {
+        private static final long[] EMPTY = new long[0];
+        private final RoomInsertAllListener mListener;
+        private long[] mIds = EMPTY;
+
+        InsertAllOp(RoomInsertAllListener listener) {
+            mListener = listener;
+        }
+
+        @Override
+        void execute() {
+            long[] ids = mListener.insertAll();
+            mIds = ids != null ? ids : EMPTY;
+        }
+
+        @Override
+        void deliver() {
+            if (mSuccess) {
+                mListener.onResult(true, mIds, "");
+            } else {
+                LogUtil.e("Room批量插入数据失败：" + mErrorMsg);
+                mListener.onResult(false, EMPTY, mErrorMsg);
+            }
+        }
+    }
+
+    static final class UpdateOp extends WriteOp {
+        private final RoomUpdateListener mListener;
+        private int mRow;
+
+        UpdateOp(RoomUpdateListener listener) {
+            mListener = listener;
+        }
+
+        @Override
+        void execute() {
+            mRow = mListener.update();
+        }
+
+        @Override
+        void deliver() {
+            if (mSuccess) {
+                mListener.onResult(true, mRow, "");
+            } else {
+                LogUtil.e("Room更新数据失败：" + mErrorMsg);
+                mListener.onResult(false, 0, mErrorMsg);
+            }
+        }
+    }
+
+    static final class DeleteOp extends WriteOp {
+        private final RoomDeleteListener mListener;
+        private int mRow;
+
+        DeleteOp(RoomDeleteListener listener) {
+            mListener = listener;
+        }
+
+        @Override
+        void execute() {
+            mRow = mListener.delete();
+        }
+
+        @Override
+        void deliver() {
+            if (mSuccess) {
+                mListener.onResult(true, mRow, "");
+            } else {
+                LogUtil.e("Room删除数据失败：" + mErrorMsg);
+                mListener.onResult(false, 0, mErrorMsg);
+            }
+        }
+    }
+}
@@ -7,6 +7,7 @@ public class SQLEntity {
     private String tableName; // 表名字，例如：user.db,这里只传user
     private String sql; // 具体的sql语句，可以使用SQLiteTableManager 中的 CreateSQL 方法去创建
     private int versionCode; // 版本号，在升级的时候会用到
+    private SQLitePragma pragma = new SQLitePragma(); // 连接的参数配置，默认开启WAL模式
 
     public String getTableName() {
         return tableName;
@@ -32,12 +33,21 @@ public class SQLEntity {
         this.versionCode = versionCode;
     }
 
+    public SQLitePragma getPragma() {
+        return pragma;
+    }
+
+    public void setPragma(SQLitePragma pragma) {
+        this.pragma = pragma;
+    }
+
     @Override
     public String toString() {
         return "SQLEntity{" +
                 "tableName='" + tableName + '\'' +
                 ", sql='" + sql + '\'' +
                 ", versionCode=" + versionCode +
+                ", pragma=" + pragma +
                 '}';
     }
 }
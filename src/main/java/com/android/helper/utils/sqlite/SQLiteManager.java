@@ -1,21 +1,28 @@
 package com.android.helper.utils.sqlite;
 
 import android.content.Context;
+import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.os.Build;
 import android.text.TextUtils;
 
 import androidx.annotation.NonNull;
 
 import com.android.common.utils.LogUtil;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Created by Administrator on 2019/3/26.
  */
 
 public class SQLiteManager extends SQLiteOpenHelper {
 
-    private static String mSQL;// 具体的sql语句
+    private static final Map<String, SQLiteManager> INSTANCES = new HashMap<>();
+    private final String mSQL;// 具体的sql语句
+    private final SQLitePragma mPragma;// 连接的参数配置
     private final String TAG = "SQLiteManager";
 
     /**
@@ -33,6 +40,13 @@ public class SQLiteManager extends SQLiteOpenHelper {
         // version:数据库的版本,从android4.0之后只能升不能降。
         // 数据库的版本号， 这个版本号只能增长，不能倒退
         super(context, (sqlEntity.getTableName() + ".db"), null, sqlEntity.getVersionCode());
+        mSQL = sqlEntity.getSql();
+        mPragma = sqlEntity.getPragma() != null ? sqlEntity.getPragma() : new SQLitePragma();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P && !TextUtils.isEmpty(mPragma.getSynchronous())) {
+            // 通过打开的参数设置，连接池中的每个连接打开的时候都会使用，必须在开启WAL之前设置，否则会覆盖WAL的设置
+            setOpenParams(new SQLiteDatabase.OpenParams.Builder().setSynchronousMode(mPragma.getSynchronous()).build());
+        }
+        setWriteAheadLoggingEnabled(mPragma.isWriteAheadLogging());
     }
     /**
      * + "sing_id text, " --------------->查询的唯一码
@@ -58,10 +72,74 @@ public class SQLiteManager extends SQLiteOpenHelper {
 
     /**
      * @param sqlEntity 实体对象
-     * @return 指定一个数据库对象的名字，返回一个数据库的管理对象
+     * @return 指定一个数据库对象的名字，返回一个数据库的管理对象，同一个数据库只会创建一个对象，保证只有一个连接池
      */
     public static synchronized SQLiteManager getInstance(Context context, SQLEntity sqlEntity) {
-        return new SQLiteManager(context, sqlEntity);
+        String name = sqlEntity.getTableName();
+        SQLiteManager manager = INSTANCES.get(name);
+        if (manager == null) {
+            manager = new SQLiteManager(context.getApplicationContext(), sqlEntity);
+            INSTANCES.put(name, manager);
+        }
+        return manager;
+    }
+
+    /**
+     * 数据库打开的时候设置连接的参数，每次打开数据库都会调用
+     * <p>
+     * synchronous、cache_size、mmap_size、temp_store都是每个连接单独的设置，开启WAL之后连接池中会有多个读取的连接：
+     * <ol>
+     *     1：synchronous在Android 9及以上通过{@link SQLiteDatabase.OpenParams}设置，所有的连接都会生效。
+     *     2：其他的参数在Android 11及以上通过{@link SQLiteDatabase#execPerConnectionSQL(String, Object[])}设置，所有的连接都会生效。
+     *     3：低版本中只能在当前的连接中执行，只有执行这条语句的那一个连接生效，其他读取的连接使用系统默认的配置。
+     * </ol>
+     */
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.P) {
+            pragma(db, "synchronous", mPragma.getSynchronous());
+        }
+        if (mPragma.getCacheSizeKb() > 0) {
+            // 负数代表的单位是KB
+            pragma(db, "cache_size", String.valueOf(-mPragma.getCacheSizeKb()));
+        }
+        if (mPragma.getMmapSize() > 0) {
+            pragma(db, "mmap_size", String.valueOf(mPragma.getMmapSize()));
+        }
+        pragma(db, "temp_store", mPragma.getTempStore());
+        LogUtil.e(TAG, "onConfigure：" + mPragma);
+    }
+
+    /**
+     * 优先设置到所有的连接中，不支持的时候只在当前的连接中执行。
+     * 部分PRAGMA会返回结果，execSQL和execPerConnectionSQL会抛出异常，这时候使用rawQuery执行
+     */
+    private void pragma(SQLiteDatabase db, String name, String value) {
+        if (TextUtils.isEmpty(value)) {
+            return;
+        }
+        String sql = "PRAGMA " + name + "=" + value;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            try {
+                db.execPerConnectionSQL(sql, null);
+                return;
+            } catch (Exception e) {
+                // 执行失败的时候系统会移除这条配置，不会影响之后打开的连接
+                LogUtil.e(TAG, "设置PRAGMA到所有的连接失败，只设置当前的连接：" + sql + " " + e.getMessage());
+            }
+        }
+        Cursor cursor = null;
+        try {
+            cursor = db.rawQuery(sql, null);
+            cursor.moveToFirst();
+        } catch (Exception e) {
+            LogUtil.e(TAG, "设置PRAGMA失败：" + name + "=" + value + " " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
     }
 
     /**
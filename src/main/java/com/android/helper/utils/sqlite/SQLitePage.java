@@ -0,0 +1,56 @@
+package com.android.helper.utils.sqlite;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 分页查询的结果，记录当前页的数据和最后一条数据的id，查询下一页的时候把{@link #getLastId()}传入即可
+ *
+ * @param <T> 转换之后的数据类型
+ */
+public class SQLitePage<T> {
+
+    private final List<T> list;
+    private final long lastId;
+    private final boolean hasMore;
+
+    SQLitePage(long lastId) {
+        this(Collections.emptyList(), lastId, false);
+    }
+
+    SQLitePage(List<T> list, long lastId, boolean hasMore) {
+        this.list = list;
+        this.lastId = lastId;
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * @return 当前页的数据，没有数据的时候返回空的集合
+     */
+    public List<T> getList() {
+        return list;
+    }
+
+    /**
+     * @return 当前页最后一条数据的id，没有数据的时候就是查询时传入的id
+     */
+    public long getLastId() {
+        return lastId;
+    }
+
+    /**
+     * @return 是否可能还有下一页的数据
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    @Override
+    public String toString() {
+        return "SQLitePage{" +
+                "size=" + list.size() +
+                ", lastId=" + lastId +
+                ", hasMore=" + hasMore +
+                '}';
+    }
+}
@@ -0,0 +1,77 @@
+package com.android.helper.utils.sqlite;
+
+/**
+ * SQLite连接的参数配置，在数据库打开的时候由{@link SQLiteManager#onConfigure(android.database.sqlite.SQLiteDatabase)}统一设置
+ * <p>
+ * 默认的配置：
+ * 1：开启WAL模式，写入的时候不会阻塞读取
+ * 2：synchronous = NORMAL，WAL模式下只在检查点的时候同步磁盘，断电的时候最多丢失最后的事务，不会损坏数据库
+ * 3：cache_size = 2MB，mmap_size = 0（不开启），temp_store = MEMORY
+ * <p>
+ * 这些参数都是每个连接单独的设置，Android 11以下的系统中，除了synchronous（Android 9及以上）之外，
+ * 只有执行配置的那一个连接生效，连接池中其他读取的连接使用系统默认的配置
+ */
+public class SQLitePragma {
+
+    private boolean writeAheadLogging = true; // 是否开启WAL模式
+    private String synchronous = "NORMAL"; // OFF、NORMAL、FULL、EXTRA
+    private int cacheSizeKb = 2048; // 页缓存的大小，单位是KB，小于等于0的时候使用系统默认值
+    private long mmapSize = 0; // 内存映射的大小，单位是字节，0代表不开启
+    private String tempStore = "MEMORY"; // DEFAULT、FILE、MEMORY
+
+    public boolean isWriteAheadLogging() {
+        return writeAheadLogging;
+    }
+
+    public SQLitePragma setWriteAheadLogging(boolean writeAheadLogging) {
+        this.writeAheadLogging = writeAheadLogging;
+        return this;
+    }
+
+    public String getSynchronous() {
+        return synchronous;
+    }
+
+    public SQLitePragma setSynchronous(String synchronous) {
+        this.synchronous = synchronous;
+        return this;
+    }
+
+    public int getCacheSizeKb() {
+        return cacheSizeKb;
+    }
+
+    public SQLitePragma setCacheSizeKb(int cacheSizeKb) {
+        this.cacheSizeKb = cacheSizeKb;
+        return this;
+    }
+
+    public long getMmapSize() {
+        return mmapSize;
+    }
+
+    public SQLitePragma setMmapSize(long mmapSize) {
+        this.mmapSize = mmapSize;
+        return this;
+    }
+
+    public String getTempStore() {
+        return tempStore;
+    }
+
+    public SQLitePragma setTempStore(String tempStore) {
+        this.tempStore = tempStore;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "SQLitePragma{" +
+                "writeAheadLogging=" + writeAheadLogging +
+                ", synchronous='" + synchronous + '\'' +
+                ", cacheSizeKb=" + cacheSizeKb +
+                ", mmapSize=" + mmapSize +
+                ", tempStore='" + tempStore + '\'' +
+                '}';
+    }
+}
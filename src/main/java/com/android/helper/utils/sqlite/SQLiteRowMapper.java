@@ -0,0 +1,21 @@
+package com.android.helper.utils.sqlite;
+
+import android.database.Cursor;
+
+/**
+ * 数据库查询结果的映射，把游标中的一行数据直接转换成指定的对象
+ * <p>
+ * 列的下标在查询开始的时候只解析一次，按照查询时传入的列的顺序放在indexes中，
+ * 使用的时候直接调用cursor.getLong(indexes[0])、cursor.getDouble(indexes[1])等方法读取，不需要再去调用getColumnIndex。
+ *
+ * @param <T> 转换之后的数据类型
+ */
+public interface SQLiteRowMapper<T> {
+
+    /**
+     * @param cursor  当前行的游标，不要移动游标的位置，也不要关闭游标
+     * @param indexes 查询的列对应的下标，和查询时传入的列的顺序一致
+     * @return 转换之后的对象，返回null的时候这一行会被忽略
+     */
+    T map(Cursor cursor, int[] indexes);
+}
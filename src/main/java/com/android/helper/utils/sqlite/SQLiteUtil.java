@@ -1,10 +1,11 @@
 package com.android.helper.utils.sqlite;
 
-import android.annotation.SuppressLint;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Build;
 import android.text.TextUtils;
 
 import com.android.common.utils.LogUtil;
@@ -12,7 +13,17 @@ import com.android.helper.utils.ConvertUtil;
 import com.google.gson.JsonObject;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.reactivex.Emitter;
+import io.reactivex.Flowable;
+import io.reactivex.functions.BiFunction;
+import io.reactivex.schedulers.Schedulers;
 
 /**
  * 数据库的帮助类
@@ -32,27 +43,44 @@ import java.util.List;
  * --->查询表中时候包含某个唯一的字段：{@link #queryContains(String, String)}
  * --->查询指定表中的所有数据：{@link #queryTableAll()}
  * --->查询表中某列的全部数据：{@link #queryList(String[])}
+ * --->查询并转换成指定的对象：{@link #query(String[], String, String[], String, SQLiteRowMapper)}，按照类型读取数据，不需要经过JsonObject
+ * --->查询某一列的数值：{@link #queryLongColumn(String, String, String[])}、{@link #queryDoubleColumn(String, String, String[])}
+ * --->分页查询：{@link #queryPage(String[], String, String[], long, int, SQLiteRowMapper)}按照id分页，
+ * --->或者使用{@link #queryStream(String[], String, String[], int, SQLiteRowMapper)}分块读取，适用于数据量很大的表
+ * --->批量添加或者更新：{@link #batchUpsert(List, String)}在一个事务中批量写入，重复的数据就更新，否则就添加
  * <p>
  * ------------------ 注意--------------
+ * 同一个表只会创建一个对象，数据库的连接会一直保持打开，并且默认开启了WAL模式，读写可以并发，
+ * 需要调整PRAGMA参数的话，使用{@link SQLEntity#setPragma(SQLitePragma)}。
  */
 
 public class SQLiteUtil {
+    private static final Map<String, SQLiteUtil> INSTANCES = new HashMap<>();
+    private static final String KEY_ID = "id";// 表中自增长的主键，参考SQLiteTableManager#CreateSQL
     private final String TAG = "SQL";
     private final SQLiteManager sqliteHelper;
     private String mTableName;// 数据库的表名
+    private final Set<String> mUniqueIndexes = new HashSet<>();// 已经创建过唯一索引的列
     private SQLiteDatabase mDataBase;
-    private Cursor cursor;
 
     private SQLiteUtil(Context context, SQLEntity sqlEntity) {
         sqliteHelper = SQLiteManager.getInstance(context, sqlEntity);
+        mTableName = sqlEntity.getTableName();
     }
 
     /**
      * @param sqlEntity sql的具体对象
-     * @return 返回数据库的对象
+     * @return 返回数据库的对象，同一个表只会创建一个对象，数据库的连接会一直保持打开
      */
     public static SQLiteUtil getInstance(Context context, SQLEntity sqlEntity) {
-        return new SQLiteUtil(context, sqlEntity);
+        synchronized (INSTANCES) {
+            SQLiteUtil sqLiteUtil = INSTANCES.get(sqlEntity.getTableName());
+            if (sqLiteUtil == null) {
+                sqLiteUtil = new SQLiteUtil(context, sqlEntity);
+                INSTANCES.put(sqlEntity.getTableName(), sqLiteUtil);
+            }
+            return sqLiteUtil;
+        }
     }
 
     /**
@@ -92,9 +120,6 @@ public class SQLiteUtil {
                 } catch (Exception e) {
                     LogUtil.e(TAG, "插入数据库错误：" + e.getMessage());
                     e.printStackTrace();
-                } finally {
-                    // 关闭数据库
-                    closeDb();
                 }
             }
         } else {
@@ -102,6 +127,187 @@ public class SQLiteUtil {
         }
         return isSuccess;
     }
+    /**
+     * 批量添加或者更新数据，所有的数据在同一个事务中写入，只会同步一次磁盘
+     * <ol>
+     *     1：第一次使用某个唯一列的时候，会给这个列创建唯一索引，如果表中已经存在重复的数据，会创建失败，这个时候使用先更新再添加的方式。
+     *     2：Android 11及以上系统自带的SQLite支持 INSERT ... ON CONFLICT DO UPDATE，直接使用一条语句完成，更低的版本先执行UPDATE，没有更新到数据再执行INSERT。
+     *     3：相同列组合的数据复用同一个编译好的{@link SQLiteStatement}，不会每一行都重新解析SQL。
+     *     4：写入的过程中发生异常会整体回滚。
+     * </ol>
+     *
+     * @param list        需要写入的数据，每一个ContentValues代表一行，必须包含唯一列
+     * @param conflictKey 唯一列的名字，根据这个列判断数据是否重复
+     * @return 成功写入的行数，发生异常整体回滚的时候返回0
+     */
+    public int batchUpsert(List<ContentValues> list, String conflictKey) {
+        if ((list == null) || (list.isEmpty()) || (TextUtils.isEmpty(conflictKey))) {
+            return 0;
+        }
+        int count = 0;
+        SQLiteDatabase database = getSqlDataBase();
+        boolean upsert = (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) && createUniqueIndex(database, conflictKey);
+        // 列的组合 ---> 编译好的语句，同一批数据中列相同的行复用同一个语句
+        Map<String, SQLiteStatement[]> statements = new HashMap<>();
+        database.beginTransaction();
+        try {
+            for (ContentValues values : list) {
+                if ((values == null) || (!values.containsKey(conflictKey))) {
+                    continue;
+                }
+                String[] columns = values.keySet()
+                        .toArray(new String[0]);
+                Arrays.sort(columns);
+                String columnKey = TextUtils.join(",", columns);
+                SQLiteStatement[] statement = statements.get(columnKey);
+                if (statement == null) {
+                    statement = compileUpsert(database, columns, conflictKey, upsert);
+                    statements.put(columnKey, statement);
+                }
+
+                if (upsert) {
+                    bindValues(statement[0], values, columns, null);
+                    statement[0].executeInsert();
+                    count++;
+                } else {
+                    // 先更新，没有更新到数据再添加，更新语句的最后一个参数是唯一列的值
+                    bindValues(statement[0], values, columns, conflictKey);
+                    if (statement[0].executeUpdateDelete() > 0) {
+                        count++;
+                    } else {
+                        bindValues(statement[1], values, columns, null);
+                        if (statement[1].executeInsert() != -1) {
+                            count++;
+                        }
+                    }
+                }
+            }
+            database.setTransactionSuccessful();
+        } catch (Exception e) {
+            LogUtil.e(TAG, "批量写入数据库错误：" + e.getMessage());
+            e.printStackTrace();
+            count = 0;
+        } finally {
+            database.endTransaction();
+            for (SQLiteStatement[] statement : statements.values()) {
+                for (SQLiteStatement sqLiteStatement : statement) {
+                    if (sqLiteStatement != null) {
+                        sqLiteStatement.close();
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return 给指定的列创建唯一索引，创建成功或者已经存在的时候返回true
+     */
+    private boolean createUniqueIndex(SQLiteDatabase database, String column) {
+        synchronized (mUniqueIndexes) {
+            if (mUniqueIndexes.contains(column)) {
+                return true;
+            }
+            try {
+                database.execSQL("create unique index if not exists " + "idx_" + mTableName + "_" + column + " on " + mTableName + " (" + column + ")");
+                mUniqueIndexes.add(column);
+                return true;
+            } catch (Exception e) {
+                LogUtil.e(TAG, "创建唯一索引失败，表中可能已经存在重复的数据：" + e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return upsert为true的时候返回一条 INSERT ... ON CONFLICT DO UPDATE 语句，否则返回 UPDATE 和 INSERT 两条语句
+     */
+    private SQLiteStatement[] compileUpsert(SQLiteDatabase database, String[] columns, String conflictKey, boolean upsert) {
+        StringBuilder insert = new StringBuilder("insert into ").append(mTableName)
+                .append(" (");
+        StringBuilder placeholder = new StringBuilder();
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                insert.append(",");
+                placeholder.append(",");
+            }
+            insert.append(columns[i]);
+            placeholder.append("?");
+        }
+        insert.append(") values (")
+                .append(placeholder)
+                .append(")");
+
+        StringBuilder set = new StringBuilder();
+        for (String column : columns) {
+            if (!column.equals(conflictKey)) {
+                if (set.length() > 0) {
+                    set.append(",");
+                }
+                if (upsert) {
+                    set.append(column)
+                            .append("=excluded.")
+                            .append(column);
+                } else {
+                    set.append(column)
+                            .append("=?");
+                }
+            }
+        }
+
+        if (upsert) {
+            insert.append(" on conflict(")
+                    .append(conflictKey)
+                    .append(")");
+            if (set.length() > 0) {
+                insert.append(" do update set ")
+                        .append(set);
+            } else {
+                insert.append(" do nothing");
+            }
+            return new SQLiteStatement[]{database.compileStatement(insert.toString())};
+        }
+
+        // 只有唯一列的时候，更新语句把唯一列更新为自己，保证有数据的时候可以返回更新的行数
+        String update = "update " + mTableName + " set " + (set.length() > 0 ? set : (conflictKey + "=" + conflictKey)) + " where " + conflictKey + "=?";
+        return new SQLiteStatement[]{database.compileStatement(update), database.compileStatement(insert.toString())};
+    }
+
+    /**
+     * 按照列的顺序绑定参数
+     *
+     * @param lastKey 不为空的时候，这个列不按照顺序绑定，而是绑定到最后一个参数，用于更新语句的where条件
+     */
+    private void bindValues(SQLiteStatement statement, ContentValues values, String[] columns, String lastKey) {
+        statement.clearBindings();
+        int index = 1;
+        for (String column : columns) {
+            if (lastKey != null && lastKey.equals(column)) {
+                continue;
+            }
+            bindValue(statement, index++, values.get(column));
+        }
+        if (lastKey != null) {
+            bindValue(statement, index, values.get(lastKey));
+        }
+    }
+
+    private void bindValue(SQLiteStatement statement, int index, Object value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            statement.bindLong(index, ((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            statement.bindDouble(index, ((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            statement.bindLong(index, ((Boolean) value) ? 1 : 0);
+        } else if (value instanceof byte[]) {
+            statement.bindBlob(index, (byte[]) value);
+        } else {
+            statement.bindString(index, value.toString());
+        }
+    }
+
     /**
      * @param key
      * @return 根据unid查询单个的条目
@@ -126,19 +332,19 @@ public class SQLiteUtil {
              * String groupBy, ：按什么分组
              * String having,String orderBy ：按什么排序
              */
+            Cursor cursor = null;
             try {
                 cursor = getSqlDataBase().query(mTableName, query, (selection + ("=?")), new String[]{selectonValue}, null, null, null);
                 // 4:解析cursor对象 getCount:返回结果集中的行数，如果为空的话就不必去查询了
                 if (cursor != null && cursor.getCount() > 0) {
                     list = new ArrayList<>();
                     // 下一行是否还有数据 moveToNext：如果往后面移动返回就为true，否则就是数据没有了
+                    // 列的下标只需要解析一次
+                    int[] indexes = getColumnIndexes(cursor, query);
                     while (cursor.moveToNext()) {
                         JsonObject object = new JsonObject();
                         for (int i = 0; i < query.length; i++) {
-                            String key = query[i];
-                            // 根据列中对象的名称返回该列对象的索引 getColumnIndex（）：根据该列中对象的名称返回该列对象的索引
-                            @SuppressLint("Range") String value = cursor.getString(cursor.getColumnIndex(key));
-                            object.addProperty(key, value);
+                            object.addProperty(query[i], cursor.getString(indexes[i]));
                         }
                         list.add(object);
                     }
@@ -147,7 +353,7 @@ public class SQLiteUtil {
                 LogUtil.e(TAG, "查询数据库集合错误：" + e.getMessage());
                 e.printStackTrace();
             } finally {
-                closeDb();
+                closeCursor(cursor);
             }
             return list;
         }
@@ -169,19 +375,19 @@ public class SQLiteUtil {
          * String groupBy, ：按什么分组
          * String having,String orderBy ：按什么排序
          */
+        Cursor cursor = null;
         try {
             cursor = getSqlDataBase().query(mTableName, null, null, null, null, null, null);
             // 4:解析cursor对象 getCount:返回结果集中的行数，如果为空的话就不必去查询了
             if (cursor != null && cursor.getCount() > 0) {
                 list = new ArrayList<>();
                 // 下一行是否还有数据 moveToNext：如果往后面移动返回就为true，否则就是数据没有了
+                // 查询所有列的时候，列的下标就是列名的顺序
+                String[] columnNames = cursor.getColumnNames();
                 while (cursor.moveToNext()) {
                     JsonObject object = new JsonObject();
-                    String[] columnNames = cursor.getColumnNames();
                     for (int i = 0; i < columnNames.length; i++) {
-                        String columnName = columnNames[i];
-                        @SuppressLint("Range") String value = cursor.getString(cursor.getColumnIndex(columnName));
-                        object.addProperty(columnName, value);
+                        object.addProperty(columnNames[i], cursor.getString(i));
                     }
                     list.add(object);
                 }
@@ -190,7 +396,7 @@ public class SQLiteUtil {
             LogUtil.e(TAG, "查询数据库集合错误：" + e.getMessage());
             e.printStackTrace();
         } finally {
-            closeDb();
+            closeCursor(cursor);
         }
         return list;
     }
@@ -211,25 +417,17 @@ public class SQLiteUtil {
              * String groupBy, ：按什么分组
              * String having,String orderBy ：按什么排序
              */
+            Cursor cursor = null;
             try {
-                cursor = getSqlDataBase().query(mTableName, new String[]{key}, null, null, null, null, null);
-                // 4:解析cursor对象 getCount:返回结果集中的行数，如果为空的话就不必去查询了
-                if (cursor != null && cursor.getCount() > 0) {
-                    // 下一行是否还有数据 moveToNext：如果往后面移动返回就为true，否则就是数据没有了
-                    while (cursor.moveToNext()) {
-                        // 根据列中对象的名称返回该列对象的索引 getColumnIndex（）：根据该列中对象的名称返回该列对象的索引
-                        @SuppressLint("Range") String queryValues = cursor.getString(cursor.getColumnIndex(key));
-                        if (value.equals(queryValues)) {
-                            closeDb();
-                            return true;
-                        }
-                    }
-                }
+                // 直接使用条件查询，只取一条数据，不需要把整列的数据都读出来比较
+                cursor = getSqlDataBase().query(mTableName, new String[]{key}, (key + "=?"), new String[]{value}, null, null, null, "1");
+                return (cursor != null) && (cursor.moveToFirst());
             } catch (Exception e) {
                 LogUtil.e(TAG, "查询是否包含的error：" + e.getMessage());
                 e.printStackTrace();
+            } finally {
+                closeCursor(cursor);
             }
-            closeDb();
         }
         return false;
     }
@@ -249,21 +447,19 @@ public class SQLiteUtil {
              * String groupBy, ：按什么分组
              * String having,String orderBy ：按什么排序
              */
+            Cursor cursor = null;
             try {
                 cursor = getSqlDataBase().query(mTableName, columns, null, null, null, null, null);
                 // 4:解析cursor对象 getCount:返回结果集中的行数，如果为空的话就不必去查询了
                 if (cursor != null && cursor.getCount() > 0) {
                     list = new ArrayList<>();
                     // 下一行是否还有数据 moveToNext：如果往后面移动返回就为true，否则就是数据没有了
+                    // 列的下标只需要解析一次
+                    int[] indexes = getColumnIndexes(cursor, columns);
                     while (cursor.moveToNext()) {
-                        // 根据列中对象的名称返回该列对象的索引 getColumnIndex（）：根据该列中对象的名称返回该列对象的索引
                         JsonObject object = new JsonObject();
                         for (int i = 0; i < columns.length; i++) {
-                            // 查询的列
-                            String column = columns[i];
-                            // 列中对应的数据
-                            @SuppressLint("Range") String queryValue = cursor.getString(cursor.getColumnIndex(column));
-                            object.addProperty(column, queryValue);
+                            object.addProperty(columns[i], cursor.getString(indexes[i]));
                         }
                         list.add(object);
                     }
@@ -271,12 +467,230 @@ public class SQLiteUtil {
             } catch (Exception e) {
                 LogUtil.e("查询数据库列错误：" + e.getMessage());
             } finally {
-                closeDb();
+                closeCursor(cursor);
             }
         }
         return list;
     }
 
+    /**
+     * 查询数据，并且使用{@link SQLiteRowMapper}把每一行直接转换成指定的对象，列的下标只会解析一次，
+     * 数据使用getLong、getDouble、getBlob等方法按照类型读取，不会把每个值都转换成字符串
+     *
+     * @param columns       需要查询的列，传null代表查询所有的列，这个时候indexes的顺序就是表中列的顺序
+     * @param selection     查询的条件，例如："type=? and level>?"，传null代表查询所有的数据
+     * @param selectionArgs 条件占位符的值
+     * @param orderBy       排序的规则，例如："id desc"，可以传null
+     * @param mapper        每一行数据的转换
+     * @return 转换之后的数据集合，没有数据的时候返回空的集合
+     */
+    public <T> List<T> query(String[] columns, String selection, String[] selectionArgs, String orderBy, SQLiteRowMapper<T> mapper) {
+        List<T> list = new ArrayList<>();
+        if (mapper == null) {
+            return list;
+        }
+        Cursor cursor = null;
+        try {
+            cursor = getSqlDataBase().query(mTableName, columns, selection, selectionArgs, null, null, orderBy);
+            if (cursor != null && cursor.getCount() > 0) {
+                list = new ArrayList<>(cursor.getCount());
+                int[] indexes = getColumnIndexes(cursor, columns);
+                while (cursor.moveToNext()) {
+                    T t = mapper.map(cursor, indexes);
+                    if (t != null) {
+                        list.add(t);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            LogUtil.e(TAG, "查询数据库集合错误：" + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            closeCursor(cursor);
+        }
+        return list;
+    }
+
+    /**
+     * @param column        需要查询的列，值为空的行会被读取为0
+     * @param selection     查询的条件，传null代表查询所有的数据
+     * @param selectionArgs 条件占位符的值
+     * @return 查询某一列的数据，直接放到long数组中，不会产生装箱的对象
+     */
+    public long[] queryLongColumn(String column, String selection, String[] selectionArgs) {
+        long[] result = new long[0];
+        if (TextUtils.isEmpty(column)) {
+            return result;
+        }
+        Cursor cursor = null;
+        try {
+            cursor = getSqlDataBase().query(mTableName, new String[]{column}, selection, selectionArgs, null, null, null);
+            if (cursor != null) {
+                result = new long[cursor.getCount()];
+                int position = 0;
+                while (cursor.moveToNext()) {
+                    result[position++] = cursor.getLong(0);
+                }
+            }
+        } catch (Exception e) {
+            LogUtil.e(TAG, "查询数据库列错误：" + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            closeCursor(cursor);
+        }
+        return result;
+    }
+
+    /**
+     * @param column        需要查询的列，值为空的行会被读取为0
+     * @param selection     查询的条件，传null代表查询所有的数据
+     * @param selectionArgs 条件占位符的值
+     * @return 查询某一列的数据，直接放到double数组中，不会产生装箱的对象
+     */
+    public double[] queryDoubleColumn(String column, String selection, String[] selectionArgs) {
+        double[] result = new double[0];
+        if (TextUtils.isEmpty(column)) {
+            return result;
+        }
+        Cursor cursor = null;
+        try {
+            cursor = getSqlDataBase().query(mTableName, new String[]{column}, selection, selectionArgs, null, null, null);
+            if (cursor != null) {
+                result = new double[cursor.getCount()];
+                int position = 0;
+                while (cursor.moveToNext()) {
+                    result[position++] = cursor.getDouble(0);
+                }
+            }
+        } catch (Exception e) {
+            LogUtil.e(TAG, "查询数据库列错误：" + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            closeCursor(cursor);
+        }
+        return result;
+    }
+
+    /**
+     * 按照主键id分页查询，使用 id > ? ORDER BY id LIMIT ? 的方式定位，不使用OFFSET，
+     * 数据库不需要跳过前面的数据，无论查询到第几页耗时都是一样的
+     *
+     * @param columns       需要查询的列，传null代表查询所有的列
+     * @param selection     额外的查询条件，例如："type=?"，可以传null
+     * @param selectionArgs 条件占位符的值
+     * @param afterId       上一页最后一条数据的id，查询第一页的时候传0
+     * @param limit         每页的数量
+     * @param mapper        每一行数据的转换
+     * @return 当前页的数据，如果数据的数量小于limit，说明已经是最后一页了
+     * @throws android.database.SQLException 查询数据库出错的时候直接抛出，避免调用者把查询失败当成已经读取到了最后一页
+     */
+    public <T> SQLitePage<T> queryPage(String[] columns, String selection, String[] selectionArgs, long afterId, int limit, SQLiteRowMapper<T> mapper) {
+        SQLitePage<T> page = new SQLitePage<>(afterId);
+        if (mapper == null || limit <= 0) {
+            return page;
+        }
+        // 查询指定列的时候，额外加上id列，用来记录这一页的最后一个id
+        String[] queryColumns = columns;
+        if (columns != null && !Arrays.asList(columns).contains(KEY_ID)) {
+            queryColumns = Arrays.copyOf(columns, columns.length + 1);
+            queryColumns[columns.length] = KEY_ID;
+        }
+        String where = KEY_ID + ">?";
+        if (!TextUtils.isEmpty(selection)) {
+            where = "(" + selection + ") AND " + where;
+        }
+        String[] whereArgs;
+        if (selectionArgs != null) {
+            whereArgs = Arrays.copyOf(selectionArgs, selectionArgs.length + 1);
+            whereArgs[selectionArgs.length] = String.valueOf(afterId);
+        } else {
+            whereArgs = new String[]{String.valueOf(afterId)};
+        }
+
+        Cursor cursor = null;
+        try {
+            cursor = getSqlDataBase().query(mTableName, queryColumns, where, whereArgs, null, null, KEY_ID, String.valueOf(limit));
+            if (cursor != null) {
+                int[] indexes = getColumnIndexes(cursor, columns);
+                int idIndex = cursor.getColumnIndex(KEY_ID);
+                List<T> list = new ArrayList<>(cursor.getCount());
+                long lastId = afterId;
+                int count = 0;
+                while (cursor.moveToNext()) {
+                    count++;
+                    lastId = cursor.getLong(idIndex);
+                    T t = mapper.map(cursor, indexes);
+                    if (t != null) {
+                        list.add(t);
+                    }
+                }
+                page = new SQLitePage<>(list, lastId, count >= limit);
+            }
+        } catch (RuntimeException e) {
+            LogUtil.e(TAG, "分页查询数据库错误：" + e.getMessage());
+            throw e;
+        } finally {
+            closeCursor(cursor);
+        }
+        return page;
+    }
+
+    /**
+     * 分块读取整张表的数据，每次下游请求的时候才去查询下一页，内存中最多只保留下游请求数量的几页数据。
+     * <p>
+     * 注意：如果需要在主线程接收数据，使用 observeOn(AndroidSchedulers.mainThread(), false, 1) 指定较小的缓冲区，
+     * 默认的observeOn会一次请求128页数据，就失去了分块读取的意义
+     *
+     * @param columns       需要查询的列，传null代表查询所有的列
+     * @param selection     额外的查询条件，可以传null
+     * @param selectionArgs 条件占位符的值
+     * @param pageSize      每一块的数量
+     * @param mapper        每一行数据的转换
+     * @return 按照id的顺序依次发送每一块的数据，在io线程中查询，查询数据库出错的时候通过onError发送错误
+     */
+    public <T> Flowable<List<T>> queryStream(String[] columns, String selection, String[] selectionArgs, int pageSize, SQLiteRowMapper<T> mapper) {
+        return Flowable
+                .generate(() -> new SQLitePage<T>(0), (BiFunction<SQLitePage<T>, Emitter<List<T>>, SQLitePage<T>>) (previous, emitter) -> {
+                    SQLitePage<T> page = previous;
+                    try {
+                        // 一页的数据全部被mapper过滤掉的时候继续查询下一页，每次下游的请求都必须发送数据或者结束，否则数据流会停住
+                        do {
+                            page = queryPage(columns, selection, selectionArgs, page.getLastId(), pageSize, mapper);
+                        } while (page.getList().isEmpty() && page.hasMore());
+                    } catch (Exception e) {
+                        emitter.onError(e);
+                        return page;
+                    }
+                    if (!page.getList().isEmpty()) {
+                        emitter.onNext(page.getList());
+                    }
+                    if (!page.hasMore()) {
+                        emitter.onComplete();
+                    }
+                    return page;
+                })
+                .subscribeOn(Schedulers.io());
+    }
+
+    /**
+     * @param columns 查询的列，传null的时候返回游标中所有列的下标
+     * @return 查询的列对应的下标，和传入的列的顺序一致，不存在的列下标为-1
+     */
+    private int[] getColumnIndexes(Cursor cursor, String[] columns) {
+        if (columns == null) {
+            int[] indexes = new int[cursor.getColumnCount()];
+            for (int i = 0; i < indexes.length; i++) {
+                indexes[i] = i;
+            }
+            return indexes;
+        }
+        int[] indexes = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            indexes[i] = cursor.getColumnIndex(columns[i]);
+        }
+        return indexes;
+    }
+
     /**
      * @param whereClause 需要修改的列
      * @param whereArgs   需要修改列对应的值
@@ -304,13 +718,11 @@ public class SQLiteUtil {
                 whereArgs.add(whereArgs.size(), whereValue);
                 String[] strings = ConvertUtil.ListToStringArray(whereArgs);
                 getSqlDataBase().execSQL(sql, strings);
-                closeDb();
                 return true;
             } catch (Exception e) {
                 LogUtil.e(TAG, "修改数据库错误：" + e.getMessage());
                 e.printStackTrace();
             }
-            closeDb();
         }
         return false;
     }
@@ -330,7 +742,6 @@ public class SQLiteUtil {
                 LogUtil.e(TAG, "删除数据库信息错误：" + e.getMessage());
                 e.printStackTrace();
             }
-            closeDb();
             return deleteId;
         }
         return 0;
@@ -346,32 +757,41 @@ public class SQLiteUtil {
         } catch (Exception e) {
             LogUtil.e(TAG, "删除所有的行：" + e.getMessage());
         }
-        closeDb();
-
     }
 
     /**
-     * @return 获取数据库对象
+     * @return 获取数据库对象，连接打开之后会一直保持，不会每次操作之后都去关闭
      */
     private synchronized SQLiteDatabase getSqlDataBase() {
         if ((mDataBase == null) || (!mDataBase.isOpen())) {
             if (sqliteHelper != null) {
-                mDataBase = sqliteHelper.getReadableDatabase();
+                mDataBase = sqliteHelper.getWritableDatabase();
             }
         }
         return mDataBase;
     }
 
     /**
-     * 关闭数据库
+     * 关闭查询的游标
      */
-    private void closeDb() {
-        getSqlDataBase().close();
-        if (cursor != null) {
-            boolean closed = cursor.isClosed();
-            if (!closed) {
-                cursor.close();
+    private void closeCursor(Cursor cursor) {
+        if ((cursor != null) && (!cursor.isClosed())) {
+            cursor.close();
+        }
+    }
+
+    /**
+     * 关闭数据库的连接，只有确定不再使用这个数据库的时候才需要调用，例如退出登录，关闭之后再次调用getInstance会重新创建
+     */
+    public void close() {
+        synchronized (INSTANCES) {
+            INSTANCES.remove(mTableName);
+        }
+        synchronized (this) {
+            if (sqliteHelper != null) {
+                sqliteHelper.close();
             }
+            mDataBase = null;
         }
     }
 }
@@ -0,0 +1,201 @@
+package com.android.helper.utils.tick;
+
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import io.reactivex.disposables.Disposable;
+
+/**
+ * 不会漂移的倒计时
+ * <ol>
+ *     1：开始的时候记录基于{@link SystemClock#elapsedRealtime()}的结束时间，每次回调都用结束时间减去当前的时间，
+ *     不会因为GC或者主线程卡顿累积误差，手机休眠期间的时间也会计算在内。
+ *     2：每次回调之后只在剩余时间下一次跨过interval整数倍的时候再唤醒，卡顿错过的回调直接跳过，不会补发。
+ *     3：关联页面的生命周期之后，页面不可见的时候不再唤醒，但是结束时间不变，页面重新可见的时候立刻回调一次最新的剩余时间。
+ *     4：{@link #pause()}会冻结剩余的时间，{@link #resume()}之后从冻结的时间继续。
+ *     5：所有的方法和回调都在主线程中执行。
+ * </ol>
+ */
+public final class Countdown implements Disposable {
+
+    private final long mDuration;
+    private final long mInterval;
+    private final OnCountdownListener mListener;
+    private final TickListener mTickListener = (task, count) -> tick();
+
+    private long mEndTime; // 结束的时间，基于SystemClock.elapsedRealtime()
+    private long mPausedRemain = -1; // 暂停的时候剩余的时间，-1代表没有暂停
+    private long mCount;
+    private boolean mStarted;
+    private boolean mHidden;
+    private boolean mDisposed;
+    private TickTask mTask;
+
+    /**
+     * @param duration 倒计时总的时长，单位是毫秒
+     * @param interval 剩余时间变化多少毫秒回调一次，例如按秒显示的时候传1000
+     * @param listener 倒计时的回调
+     */
+    public Countdown(long duration, long interval, @NonNull OnCountdownListener listener) {
+        mDuration = Math.max(0, duration);
+        mInterval = Math.max(TickService.TICK_MS, interval);
+        mListener = listener;
+    }
+
+    /**
+     * 立刻开始倒计时，并且立刻回调一次总的时长
+     */
+    public Countdown start() {
+        return start(0);
+    }
+
+    /**
+     * @param delay 延迟开始的时间，结束的时间会相应的推后
+     */
+    public Countdown start(long delay) {
+        cancelTask();
+        mStarted = true;
+        mPausedRemain = -1;
+        mCount = 0;
+        delay = Math.max(0, delay);
+        mEndTime = SystemClock.elapsedRealtime() + delay + mDuration;
+        if (delay == 0) {
+            tick();
+        } else if (!mHidden) {
+            mTask = TickService.getInstance().schedule(delay, 0, mTickListener);
+        }
+        return this;
+    }
+
+    /**
+     * @return 剩余的时间，单位是毫秒
+     */
+    public long getRemaining() {
+        if (mPausedRemain >= 0) {
+            return mPausedRemain;
+        }
+        if (!mStarted) {
+            return mDuration;
+        }
+        return Math.max(0, mEndTime - SystemClock.elapsedRealtime());
+    }
+
+    /**
+     * @return 已经回调的次数
+     */
+    public long getCount() {
+        return mCount;
+    }
+
+    /**
+     * 暂停倒计时，剩余的时间不再减少
+     */
+    public void pause() {
+        if (mStarted && !mDisposed && mPausedRemain < 0) {
+            mPausedRemain = getRemaining();
+            cancelTask();
+        }
+    }
+
+    /**
+     * 从暂停的剩余时间继续倒计时
+     */
+    public void resume() {
+        if (mStarted && !mDisposed && mPausedRemain >= 0) {
+            mEndTime = SystemClock.elapsedRealtime() + mPausedRemain;
+            mPausedRemain = -1;
+            if (!mHidden) {
+                tick();
+            }
+        }
+    }
+
+    public boolean isPaused() {
+        return mPausedRemain >= 0;
+    }
+
+    /**
+     * 关联页面的生命周期，页面不可见的时候不再唤醒，重新可见的时候立刻刷新，页面销毁的时候自动取消
+     */
+    public Countdown bind(@NonNull LifecycleOwner owner) {
+        owner.getLifecycle().addObserver(new LifecycleEventObserver() {
+            @Override
+            public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+                if (event == Lifecycle.Event.ON_STOP) {
+                    mHidden = true;
+                    cancelTask();
+                } else if (event == Lifecycle.Event.ON_START) {
+                    if (mHidden) {
+                        mHidden = false;
+                        if (mStarted && !mDisposed && mPausedRemain < 0) {
+                            tick();
+                        }
+                    }
+                } else if (event == Lifecycle.Event.ON_DESTROY) {
+                    dispose();
+                    source.getLifecycle().removeObserver(this);
+                }
+            }
+        });
+        return this;
+    }
+
+    @Override
+    public void dispose() {
+        mDisposed = true;
+        cancelTask();
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return mDisposed;
+    }
+
+    private void tick() {
+        mTask = null;
+        if (mDisposed) {
+            return;
+        }
+        long remaining = getRemaining();
+        mCount++;
+        if (remaining <= 0) {
+            mDisposed = true;
+            mListener.onFinish(this);
+            return;
+        }
+        mListener.onTick(this, remaining);
+        if (!mDisposed && !mHidden && mPausedRemain < 0) {
+            // 只在下一次跨过interval整数倍的时候唤醒，最后一段直接等到结束
+            long delay = remaining % mInterval;
+            if (delay == 0) {
+                delay = mInterval;
+            }
+            mTask = TickService.getInstance().schedule(delay, 0, mTickListener);
+        }
+    }
+
+    private void cancelTask() {
+        if (mTask != null) {
+            mTask.cancel();
+            mTask = null;
+        }
+    }
+
+    public interface OnCountdownListener {
+
+        /**
+         * @param countdown 当前的倒计时，可以用来暂停或者取消
+         * @param remaining 剩余的时间，单位是毫秒，显示的时候按照interval向上取整
+         */
+        void onTick(Countdown countdown, long remaining);
+
+        /**
+         * 倒计时结束
+         */
+        void onFinish(Countdown countdown);
+    }
+}
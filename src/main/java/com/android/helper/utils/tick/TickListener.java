@@ -0,0 +1,13 @@
+package com.android.helper.utils.tick;
+
+/**
+ * {@link TickService}的回调，在主线程中执行
+ */
+public interface TickListener {
+
+    /**
+     * @param task  当前的任务，可以在回调中直接取消或者暂停
+     * @param count 从开始到现在应该触发的次数，主线程卡顿的时候错过的次数不会补发，而是直接累加到这里
+     */
+    void onTick(TickTask task, long count);
+}
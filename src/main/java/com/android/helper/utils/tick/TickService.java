@@ -0,0 +1,320 @@
+package com.android.helper.utils.tick;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+
+/**
+ * 全局共享的定时器，所有的倒计时、计数器、轮询都注册到这里，使用主线程的一个Handler驱动，不需要为每个定时任务单独创建线程或者Handler
+ * <ol>
+ *     1：内部是一个分层的时间轮，最小的刻度是{@link #TICK_MS}，也就是一帧的时间，同一个刻度内到期的任务在一次唤醒中批量回调。
+ *     2：只在有任务到期的刻度唤醒，没有任务的时候不会唤醒。
+ *     3：使用{@link #scheduleAligned(long, TickListener)}注册的任务，触发时间会对齐到间隔的整数倍，
+ *     例如列表中50个按秒倒计时的条目，每秒只会唤醒一次。
+ *     4：主线程卡顿之后，错过的触发不会补发，只回调一次，错过的次数累加到count中。
+ *     5：任务可以通过{@link TickTask#bind(androidx.lifecycle.LifecycleOwner)}关联页面的生命周期，页面不可见的时候自动暂停。
+ *     6：所有的回调都在主线程中执行，在子线程中注册或者取消也是安全的。
+ * </ol>
+ */
+public final class TickService {
+
+    /**
+     * 最小的刻度，单位是毫秒
+     */
+    public static final long TICK_MS = 16;
+
+    private static final int WHEEL_BITS = 8;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 3;
+
+    private static volatile TickService INSTANCE;
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final Runnable mTick = this::onTick;
+    private final Slot[][] mWheels = new Slot[LEVELS][WHEEL_SIZE];
+    private final ArrayList<TickTask> mFiring = new ArrayList<>();
+    private final long mEpoch = SystemClock.uptimeMillis();
+    private long mCurrentTick; // 已经处理到的刻度
+    private long mScheduledTick = Long.MAX_VALUE; // 已经安排唤醒的刻度
+    private int mTaskCount;
+
+    private TickService() {
+        for (Slot[] wheel : mWheels) {
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                wheel[i] = new Slot();
+            }
+        }
+    }
+
+    public static TickService getInstance() {
+        if (INSTANCE == null) {
+            synchronized (TickService.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new TickService();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * @param delay    第一次触发的延迟时间，单位是毫秒
+     * @param period   之后每次间隔的时间，单位是毫秒，小于等于0的时候只执行一次
+     * @param listener 主线程中的回调
+     * @return 定时任务，用来暂停、恢复、取消
+     */
+    public TickTask schedule(long delay, long period, @NonNull TickListener listener) {
+        TickTask task = new TickTask(this, listener, Math.max(0, period));
+        runOnMain(() -> {
+            if (!task.isDisposed()) {
+                task.mNextTime = SystemClock.uptimeMillis() + Math.max(0, delay);
+                add(task);
+            }
+        });
+        return task;
+    }
+
+    /**
+     * 注册一个对齐的周期任务，第一次触发的时间是下一个间隔的整数倍，相同间隔的任务总是在同一次唤醒中回调
+     *
+     * @param period   间隔的时间，单位是毫秒
+     * @param listener 主线程中的回调
+     * @return 定时任务，用来暂停、恢复、取消
+     */
+    public TickTask scheduleAligned(long period, @NonNull TickListener listener) {
+        TickTask task = new TickTask(this, listener, Math.max(TICK_MS, period));
+        runOnMain(() -> {
+            if (!task.isDisposed()) {
+                long now = SystemClock.uptimeMillis() - mEpoch;
+                task.mNextTime = mEpoch + (now / task.mPeriod + 1) * task.mPeriod;
+                add(task);
+            }
+        });
+        return task;
+    }
+
+    /**
+     * @return 当前正在运行的任务数量，不包括暂停的任务
+     */
+    public int getTaskCount() {
+        return mTaskCount;
+    }
+
+    void pause(TickTask task) {
+        runOnMain(() -> {
+            if (task.mSlot != null) {
+                task.mRemain = Math.max(0, task.mNextTime - SystemClock.uptimeMillis());
+                remove(task);
+            }
+        });
+    }
+
+    void resume(TickTask task) {
+        runOnMain(() -> {
+            // 已经到期、还在等待回调的一次性任务不需要重新放回时间轮
+            if (!task.isDisposed() && !task.isPaused() && task.mSlot == null && !task.mFired) {
+                task.mNextTime = SystemClock.uptimeMillis() + task.mRemain;
+                add(task);
+            }
+        });
+    }
+
+    void cancel(TickTask task) {
+        runOnMain(() -> {
+            if (task.mSlot != null) {
+                remove(task);
+            }
+        });
+    }
+
+    private void add(TickTask task) {
+        if (mTaskCount == 0) {
+            // 空闲了一段时间之后，直接跳到当前的刻度，不需要逐个刻度的推进
+            mCurrentTick = Math.max(mCurrentTick, currentTick());
+        }
+        long tick = (task.mNextTime - mEpoch + TICK_MS - 1) / TICK_MS;
+        task.mDeadlineTick = Math.max(tick, mCurrentTick + 1);
+        insert(task);
+        mTaskCount++;
+        scheduleWakeUp();
+    }
+
+    private void remove(TickTask task) {
+        task.mSlot.remove(task);
+        mTaskCount--;
+    }
+
+    /**
+     * 根据到期的刻度放到对应层级的槽中，第0层每个槽是一个刻度，第1层每个槽是256个刻度，以此类推，
+     * 超出最高层范围的任务先放到最高层，转动到的时候再重新分配
+     */
+    private void insert(TickTask task) {
+        long delta = task.mDeadlineTick - mCurrentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (WHEEL_BITS * (level + 1)))) {
+            level++;
+        }
+        if (level == LEVELS - 1 && delta >= (1L << (WHEEL_BITS * LEVELS))) {
+            // 超出最大的范围，放到最高层中最远的槽，转动到的时候重新计算
+            int index = (int) (((mCurrentTick >>> (WHEEL_BITS * level)) - 1) & WHEEL_MASK);
+            mWheels[level][index].add(task);
+            return;
+        }
+        int index = (int) ((task.mDeadlineTick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+        mWheels[level][index].add(task);
+    }
+
+    private void onTick() {
+        mScheduledTick = Long.MAX_VALUE;
+        long now = currentTick();
+        while (mCurrentTick < now && mTaskCount > 0) {
+            mCurrentTick++;
+            cascade();
+            Slot slot = mWheels[0][(int) (mCurrentTick & WHEEL_MASK)];
+            TickTask task = slot.mHead;
+            while (task != null) {
+                TickTask next = task.mNext;
+                slot.remove(task);
+                mTaskCount--;
+                mFiring.add(task);
+                task = next;
+            }
+        }
+        if (mTaskCount == 0) {
+            mCurrentTick = Math.max(mCurrentTick, now);
+        }
+
+        // 先把周期任务重新放回时间轮，再批量回调，回调中取消或者暂停任务都是安全的，
+        // 每个任务在回调之前都会重新检查状态，前面的回调中取消或者暂停的任务不会再回调
+        long time = SystemClock.uptimeMillis();
+        for (int i = 0, size = mFiring.size(); i < size; i++) {
+            TickTask task = mFiring.get(i);
+            if (task.mPeriod > 0) {
+                long next = task.mNextTime + task.mPeriod;
+                long skipped = 0;
+                if (next <= time) {
+                    // 主线程卡顿错过的触发，直接跳过，只计入次数
+                    skipped = (time - next) / task.mPeriod + 1;
+                    next += skipped * task.mPeriod;
+                }
+                task.mCount += skipped + 1;
+                task.mNextTime = next;
+                add(task);
+            } else {
+                task.mCount++;
+                task.mFired = true;
+            }
+        }
+        for (int i = 0, size = mFiring.size(); i < size; i++) {
+            TickTask task = mFiring.get(i);
+            if (task.mPeriod <= 0) {
+                task.mFired = false;
+                if (task.isDisposed()) {
+                    continue;
+                }
+                if (task.isPaused()) {
+                    // 已经到期的一次性任务被暂停，恢复之后立刻触发
+                    task.mCount--;
+                    task.mRemain = 0;
+                    continue;
+                }
+                task.dispose();
+            } else if (task.isDisposed() || task.isPaused()) {
+                continue;
+            }
+            task.mListener.onTick(task, task.mCount);
+        }
+        mFiring.clear();
+        scheduleWakeUp();
+    }
+
+    /**
+     * 第0层转完一圈的时候，把上一层当前槽中的任务重新分配到下一层
+     */
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            if ((mCurrentTick & ((1L << (WHEEL_BITS * level)) - 1)) != 0) {
+                return;
+            }
+            Slot slot = mWheels[level][(int) ((mCurrentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK)];
+            TickTask task = slot.mHead;
+            while (task != null) {
+                TickTask next = task.mNext;
+                slot.remove(task);
+                insert(task);
+                task = next;
+            }
+        }
+    }
+
+    /**
+     * 找到下一个需要处理的刻度：第0层中下一个不为空的槽，或者第0层转完一圈需要重新分配的时候
+     */
+    private void scheduleWakeUp() {
+        if (mTaskCount == 0) {
+            mHandler.removeCallbacks(mTick);
+            mScheduledTick = Long.MAX_VALUE;
+            return;
+        }
+        long target = (mCurrentTick | WHEEL_MASK) + 1;
+        for (long tick = mCurrentTick + 1; tick < target; tick++) {
+            if (mWheels[0][(int) (tick & WHEEL_MASK)].mHead != null) {
+                target = tick;
+                break;
+            }
+        }
+        if (target < mScheduledTick) {
+            mHandler.removeCallbacks(mTick);
+            mScheduledTick = target;
+            mHandler.postAtTime(mTick, mEpoch + target * TICK_MS);
+        }
+    }
+
+    private long currentTick() {
+        return (SystemClock.uptimeMillis() - mEpoch) / TICK_MS;
+    }
+
+    private void runOnMain(Runnable runnable) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            runnable.run();
+        } else {
+            mHandler.post(runnable);
+        }
+    }
+
+    /**
+     * 时间轮中的一个槽，使用双向链表保存任务，移除的时候不需要遍历
+     */
+    static final class Slot {
+        TickTask mHead;
+
+        void add(TickTask task) {
+            task.mSlot = this;
+            task.mPrev = null;
+            task.mNext = mHead;
+            if (mHead != null) {
+                mHead.mPrev = task;
+            }
+            mHead = task;
+        }
+
+        void remove(TickTask task) {
+            if (task.mPrev != null) {
+                task.mPrev.mNext = task.mNext;
+            } else {
+                mHead = task.mNext;
+            }
+            if (task.mNext != null) {
+                task.mNext.mPrev = task.mPrev;
+            }
+            task.mPrev = null;
+            task.mNext = null;
+            task.mSlot = null;
+        }
+    }
+}
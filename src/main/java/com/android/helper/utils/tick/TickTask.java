@@ -0,0 +1,126 @@
+package com.android.helper.utils.tick;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import io.reactivex.disposables.Disposable;
+
+/**
+ * {@link TickService}中的一个定时任务，实现了{@link Disposable}，可以直接替换原来Observable.interval返回的对象
+ */
+public final class TickTask implements Disposable {
+
+    final TickService mService;
+    final TickListener mListener;
+    final long mPeriod;
+
+    // 下面的数据只在主线程中读写
+    long mNextTime; // 下一次触发的时间，基于SystemClock.uptimeMillis()
+    long mDeadlineTick; // 下一次触发的时间对应的刻度
+    long mCount;
+    long mRemain; // 暂停的时候距离下一次触发剩余的时间
+    boolean mFired; // 一次性任务已经到期，正在等待这一批的回调
+    TickTask mPrev;
+    TickTask mNext;
+    TickService.Slot mSlot;
+
+    private volatile boolean mDisposed;
+    private volatile boolean mPaused;
+    private boolean mPausedByLifecycle;
+
+    TickTask(TickService service, TickListener listener, long period) {
+        mService = service;
+        mListener = listener;
+        mPeriod = period;
+    }
+
+    /**
+     * @return 间隔的时间，0代表只执行一次
+     */
+    public long getPeriod() {
+        return mPeriod;
+    }
+
+    /**
+     * @return 已经触发的次数
+     */
+    public long getCount() {
+        return mCount;
+    }
+
+    /**
+     * 暂停任务，暂停期间不会占用任何的唤醒，恢复之后从剩余的时间继续
+     */
+    public void pause() {
+        if (!mDisposed && !mPaused) {
+            mPaused = true;
+            mService.pause(this);
+        }
+    }
+
+    /**
+     * 恢复暂停的任务
+     */
+    public void resume() {
+        mPausedByLifecycle = false;
+        if (!mDisposed && mPaused) {
+            mPaused = false;
+            mService.resume(this);
+        }
+    }
+
+    public boolean isPaused() {
+        return mPaused;
+    }
+
+    /**
+     * 取消任务，和{@link #dispose()}一致
+     */
+    public void cancel() {
+        dispose();
+    }
+
+    @Override
+    public void dispose() {
+        if (!mDisposed) {
+            mDisposed = true;
+            mService.cancel(this);
+        }
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return mDisposed;
+    }
+
+    /**
+     * 关联页面的生命周期，页面不可见的时候自动暂停，重新可见的时候自动恢复，页面销毁的时候自动取消
+     *
+     * @param owner 页面
+     * @return 当前的任务
+     */
+    public TickTask bind(@NonNull LifecycleOwner owner) {
+        owner.getLifecycle().addObserver(new LifecycleEventObserver() {
+            @Override
+            public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+                if (event == Lifecycle.Event.ON_STOP) {
+                    if (!mPaused) {
+                        pause();
+                        mPausedByLifecycle = true;
+                    }
+                } else if (event == Lifecycle.Event.ON_START) {
+                    // 只恢复因为生命周期暂停的任务，手动暂停的任务保持暂停
+                    if (mPausedByLifecycle) {
+                        resume();
+                    }
+                } else if (event == Lifecycle.Event.ON_DESTROY) {
+                    dispose();
+                    source.getLifecycle().removeObserver(this);
+                }
+            }
+        });
+        return this;
+    }
+}
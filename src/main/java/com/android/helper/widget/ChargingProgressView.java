@@ -4,7 +4,6 @@ import android.annotation.SuppressLint;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
-import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Path;
 import android.graphics.Rect;
@@ -24,6 +23,7 @@ import com.android.helper.R;
 import com.android.helper.common.CommonConstants;
 import com.android.helper.utils.CustomViewUtil;
 import com.android.helper.utils.NumberUtil;
+import com.android.helper.utils.TextMetricsCache;
 
 import java.math.BigDecimal;
 
@@ -34,6 +34,18 @@ import java.math.BigDecimal;
  */
 public class ChargingProgressView extends BaseView {
 
+    // 颜色在绘制的时候频繁使用，提前转换好，不需要每一帧都去解析字符串
+    private static final int COLOR_GRAY = 0xFFF4F4F4;
+    private static final int COLOR_BLUE = 0xFF09B6F7;
+    private static final int COLOR_DARK_BLUE = 0xFF2793DF;
+    private static final int COLOR_SECTION = 0x2BFF9C26;
+    private static final int COLOR_ORANGE = 0xFFFF9C26;
+    private static final int COLOR_SHADOW = 0xFFC9C9C9;
+    private static final int COLOR_OPTIMUM = 0xFF9AF5C1;
+    private static final int COLOR_WHITE = 0xFFFFFFFF;
+    private static final int COLOR_TEXT_GRAY = 0xFF7A8499;
+    private static final int COLOR_TEXT_DARK = 0xFF3E485A;
+
     private final float mLineWidth = ConvertUtil.dp(getContext(), 1);
     private final float mAngle = ConvertUtil.dp(getContext(), 10);
     private final float mIntervalLayer = ConvertUtil.dp(getContext(), 4);// 外层和内层圆形的间距
@@ -84,17 +96,20 @@ public class ChargingProgressView extends BaseView {
     private Paint mPaintOptimum;
     private float mOptimumPosition;
     private String OptimumContent = "";// 最佳的文字值
-    private float[] mOptimumTextSize;
+    private final float[] mOptimumTextSize = new float[2];
     private float mTopInterval = 0;// 上侧最大的高度
     private float mBottomInterval = 0;// 下方的最大高度
     // 当前电量的进度
     private Paint mPaintCharging;
     private String mCurrentChargingText = "";// 当前电量的进度条
-    private float[] mCurrentChargingTextSize; // 当前进度的
+    private final float[] mCurrentChargingTextSize = new float[2]; // 当前进度的文字宽高
+    private float mCurrentChargingBaseLine; // 当前进度文字的基线
+    private float mCurrentChargingTextX; // 当前进度文字绘制的位置
+    private float mCurrentChargingTextY;
     // 充电剩余时间
     private Paint mPaintChargingRemainingTimeText;
     private String mRemainingTimeText = ""; // 临时的充电时间
-    private float[] mRemainingTimeTextSize;
+    private final float[] mRemainingTimeTextSize = new float[2];
     // 底部的滑动条
     private float mBottomScrollProgress = 0.6f; // 默认的区间值
     private Paint mPaintBottomScrollLine;
@@ -110,6 +125,9 @@ public class ChargingProgressView extends BaseView {
     private float mStartBorder;
     private float mEndBorder;
     private float mScrollTextWidth; // 底部滑动文字的宽度
+    private final float[] mScrollTextSize = new float[2];
+    private int mRightColor = COLOR_GRAY; // 右侧方块的颜色
+    private boolean mDrawSectionRect; // 区间是绘制矩形还是绘制路径
     private boolean isCharging = false;// 是否在充电中，控制闪电符号是否显示
     private float mLeft = 0;
     private float mRight = 0;
@@ -121,19 +139,22 @@ public class ChargingProgressView extends BaseView {
     public ChargingProgressView(Context context, @Nullable AttributeSet attrs) {
         super(context, attrs);
         initView(context, attrs);
+        // 初始的文字
+        updateChargingText();
+        updateSocText();
     }
 
     @Override
     public void initView(Context context, AttributeSet attrs) {
         // 底层白色进度条的Paint
         mPaintBackground = new Paint();
-        mPaintBackground.setColor(Color.parseColor("#FFF4F4F4"));
+        mPaintBackground.setColor(COLOR_GRAY);
         mPaintBackground.setStyle(Paint.Style.FILL);
         mPaintBackground.setAntiAlias(true);
         mRectFBackground = new RectF();
         // 右侧矩形Paint
         mPaintRight = new Paint();
-        mPaintRight.setColor(Color.parseColor("#FFF4F4F4"));
+        mPaintRight.setColor(COLOR_GRAY);
         mPaintRight.setStyle(Paint.Style.FILL);
         mPaintRight.setAntiAlias(true);
         mRectFRight = new RectF();
@@ -142,13 +163,13 @@ public class ChargingProgressView extends BaseView {
         mPath_n = new Path();
         // 外层Paint
         mPaintRoundOuterLayer = new Paint();
-        mPaintRoundOuterLayer.setColor(Color.parseColor("#FF09B6F7"));
+        mPaintRoundOuterLayer.setColor(COLOR_BLUE);
         mPaintRoundOuterLayer.setStyle(Paint.Style.FILL);
         mPaintRoundOuterLayer.setAntiAlias(true);
         mRectFOuterLayer = new RectF();
         // 内层Paint
         mPaintRoundNerLayer = new Paint();
-        mPaintRoundNerLayer.setColor(Color.parseColor("#FF2793DF"));
+        mPaintRoundNerLayer.setColor(COLOR_DARK_BLUE);
         mPaintRoundNerLayer.setStyle(Paint.Style.FILL);
         mPaintRoundNerLayer.setAntiAlias(true);
         mRectFNerLayer = new RectF();
@@ -162,54 +183,54 @@ public class ChargingProgressView extends BaseView {
         // 区间
         mPath_qj = new Path();
         mPaintSection = new Paint();
-        mPaintSection.setColor(Color.parseColor("#2BFF9C26"));
+        mPaintSection.setColor(COLOR_SECTION);
         mPaintSection.setStyle(Paint.Style.FILL);
         mPaintSection.setAntiAlias(true);
         mRectFSection = new RectF();
         // 滑动的线
         mPaintBottomScrollLine = new Paint();
-        mPaintBottomScrollLine.setColor(Color.parseColor("#FFFF9C26"));
+        mPaintBottomScrollLine.setColor(COLOR_ORANGE);
         mPaintBottomScrollLine.setTextSize(ConvertUtil.sp(getContext(), 1f));
         mPaintBottomScrollLine.setStrokeWidth(mLineWidth);
         mPaintBottomScrollLine.setAntiAlias(true);
         // 区间滑动的球
         mPaintScrollRound = new Paint();
-        mPaintScrollRound.setColor(Color.parseColor("#FFF4F4F4"));
+        mPaintScrollRound.setColor(COLOR_GRAY);
         mPaintScrollRound.setStyle(Paint.Style.FILL);
         // mPaintScrollRound.setMaskFilter(new BlurMaskFilter(ConvertUtil.toDp(1),
         // BlurMaskFilter.Blur.SOLID)); // 阴影
-        mPaintScrollRound.setShadowLayer(20, 0, 0, Color.parseColor("#FFC9C9C9"));
+        mPaintScrollRound.setShadowLayer(20, 0, 0, COLOR_SHADOW);
         mPaintScrollRound.setAntiAlias(true);
         // 最佳电量值
         mPaintOptimum = new Paint();
-        mPaintOptimum.setColor(Color.parseColor("#FF9AF5C1"));
+        mPaintOptimum.setColor(COLOR_OPTIMUM);
         mPaintOptimum.setStyle(Paint.Style.FILL);
         mPaintOptimum.setStrokeWidth(mLineWidth);
         mPaintOptimum.setTextSize(ConvertUtil.sp(getContext(), 10.5f)); // 设置值的单位是像素
         mPaintOptimum.setAntiAlias(true);
         // 绘制当前的电量进度
         mPaintCharging = new Paint();
-        mPaintCharging.setColor(Color.parseColor("#FFFFFFFF"));
+        mPaintCharging.setColor(COLOR_WHITE);
         mPaintCharging.setTextSize(ConvertUtil.sp(getContext(), 18f));
         mPaintCharging.setAntiAlias(true);
         // 充电剩余时间
         mPaintChargingRemainingTimeText = new Paint();
-        mPaintChargingRemainingTimeText.setColor(Color.parseColor("#FF7A8499"));
+        mPaintChargingRemainingTimeText.setColor(COLOR_TEXT_GRAY);
         mPaintChargingRemainingTimeText.setTextSize(ConvertUtil.sp(getContext(), 13f));
         mPaintChargingRemainingTimeText.setAntiAlias(true);
         // 目标Soc
         mPaintSoc = new Paint();
-        mPaintSoc.setColor(Color.parseColor("#FF7A8499"));
+        mPaintSoc.setColor(COLOR_TEXT_GRAY);
         mPaintSoc.setTextSize(ConvertUtil.sp(getContext(), 10.5f));
         mPaintSoc.setAntiAlias(true);
         mBitmapSoc = getBitmap(context, R.mipmap.icon_charging_soc);
         // SOC的进度的画笔
         Paint paintSocText = new Paint();
-        paintSocText.setColor(Color.parseColor("#FF3E485A"));
+        paintSocText.setColor(COLOR_TEXT_DARK);
         paintSocText.setTextSize(ConvertUtil.dp(getContext(), 10.5f));
         paintSocText.setAntiAlias(true);
         mPaintScrollValue = new Paint();
-        mPaintScrollValue.setColor(Color.parseColor("#FF3E485A"));
+        mPaintScrollValue.setColor(COLOR_TEXT_DARK);
         mPaintScrollValue.setTextSize(ConvertUtil.dp(getContext(), 10.5f));
         mPaintScrollValue.setAntiAlias(true);
     }
@@ -228,6 +249,36 @@ public class ChargingProgressView extends BaseView {
         mEndBorder = mProgressWidth * mPercentageEnd; // 结束的边界
         // 当前的进度 = 进度条的宽度 * 进度的百分比
         mProgress = mProgressWidth * mPercentage;
+        // 文字都在setter中测量好了，这里只需要累加上方和下方的高度
+        // 当前剩余的充电时间
+        if (!TextUtils.isEmpty(mRemainingTimeText)) {
+            float remainingTimeTextInterval = mRemainingTimeTextSize[1] + mRemainingTimeTextInterval;
+            if (mTopInterval < remainingTimeTextInterval) {
+                mTopInterval = remainingTimeTextInterval;
+            }
+        }
+        // 最佳值的高度间隔
+        if (mShowOptimum && (mPercentageOptimum > 0) && (mOptimumTextSize[1] > 0)) {
+            // 最佳电量直的高度 = 文字本身高度 + 间距
+            float optimumTextHeight = mOptimumTextSize[1] + mOptimumTextInterval;
+            if (mTopInterval < optimumTextHeight) {
+                mTopInterval = optimumTextHeight;
+            }
+        }
+        // 比较当前的间距和总间距的大小
+        float chargingInterval = mCurrentChargingTextSize[1] + mCurrentChargingTextInterval;
+        if (mTopInterval < chargingInterval) {
+            mTopInterval = chargingInterval;
+        }
+        // SOC的图标
+        if (mBitmapSoc != null) {
+            int height = mBitmapSoc.getHeight();
+            float socBitmapBottomInterval = height + mSocBitmapTopInterval;
+            // 累加高度
+            if (mBottomInterval < socBitmapBottomInterval) {
+                mBottomInterval = socBitmapBottomInterval;
+            }
+        }
         // 底层 = 整个宽度 - 右侧矩形的宽度
         mRectFBackground.left = 0;
         mRectFBackground.top = mTopInterval;
@@ -278,19 +329,9 @@ public class ChargingProgressView extends BaseView {
                 }
             }
         }
-        // 当前电量的进度值
-        String multiply = NumberUtil.multiply(String.valueOf(mPercentage), String.valueOf(100));
-        // log("当前的进度为：" + mPercentage + " 计算后的值：" + multiply);
-        mCurrentChargingText = multiply + "%";
-        mCurrentChargingTextSize = CustomViewUtil.getTextSize(mPaintCharging, mCurrentChargingText);
-        // 当前剩余的充电时间
-        if (!TextUtils.isEmpty(mRemainingTimeText)) {
-            mRemainingTimeTextSize = CustomViewUtil.getTextSize(mPaintChargingRemainingTimeText, mRemainingTimeText);
-            float remainingTimeTextInterval = mRemainingTimeTextSize[1] + mRemainingTimeTextInterval;
-            if (mTopInterval < remainingTimeTextInterval) {
-                mTopInterval = remainingTimeTextInterval;
-            }
-        }
+        // 当前电量文字的位置，x轴 = (进度条的宽度 - 文字的宽度) / 2
+        mCurrentChargingTextX = Math.max(0, (mProgress - mCurrentChargingTextSize[0]) / 2);
+        mCurrentChargingTextY = (int) (mTopInterval + ((mProgressHeight - mCurrentChargingTextSize[1]) / 2) + mCurrentChargingBaseLine);
         // 区间的滑块
         // 右侧的默认值
         if (mRight <= 0) {
@@ -309,59 +350,20 @@ public class ChargingProgressView extends BaseView {
         mRectFSection.top = mTopInterval;
         mRectFSection.right = mRight;
         mRectFSection.bottom = mTopInterval + mProgressHeight; // 上方的距离高度 + 进度条的高度
+        updateSection();
         // 滑动的进度
         if (mBottomScrollProgress > 0) {
             mBottomScrollProgressValue = mBottomScrollProgress * mProgressWidth;
-            String multiply1 = NumberUtil.multiply(mBottomScrollProgress + "", 100 + "");
-            mSocCurrentText = multiply1 + "%";
-            float[] textSize = CustomViewUtil.getTextSize(mPaintScrollValue, mSocCurrentText);
-            if (textSize != null) {
-                mScrollTextWidth = textSize[0];
-                mScrollTextHeight = textSize[1];
-            }
+        }
+        if (mBottomScrollProgressValue <= 0) {
+            mWriteUtil.write("绘制滑动的区间值：小于0 ，不执行逻辑！");
         }
         // 最佳电量直
         if (mShowOptimum) {
             if (mPercentageOptimum > 0) {
                 mOptimumPosition = mProgressWidth * mPercentageOptimum;
-                // 最佳的数据值
-                String formatZj = NumberUtil.multiply(String.valueOf(mPercentageOptimum), String.valueOf(100));
-                OptimumContent = formatZj + "%最佳";
-                mOptimumTextSize = CustomViewUtil.getTextSize(mPaintOptimum, OptimumContent);
-            }
-        }
-        // 最佳值的高度间隔
-        if ((mOptimumTextSize != null) && (mOptimumTextSize[1] > 0)) {
-            // 最佳电量直的高度 = 文字本身高度 + 间距
-            float optimumTextHeight = mOptimumTextSize[1] + mOptimumTextInterval;
-            if (mTopInterval < optimumTextHeight) {
-                mTopInterval = optimumTextHeight;
             }
         }
-        // 比较当前的间距和总间距的大小
-        float chargingInterval = mCurrentChargingTextSize[1] + mCurrentChargingTextInterval;
-        if (mTopInterval < chargingInterval) {
-            mTopInterval = chargingInterval;
-        }
-        // SOC的图标
-        if (mBitmapSoc != null) {
-            int height = mBitmapSoc.getHeight();
-            float socBitmapBottomInterval = height + mSocBitmapTopInterval;
-            // 累加高度
-            if (mBottomInterval < socBitmapBottomInterval) {
-                mBottomInterval = socBitmapBottomInterval;
-            }
-        }
-        // SOC的文字
-        // if (!TextUtils.isEmpty(mSocText)) {
-        // mSocTextSize = CustomViewUtil.getTextSize(mPaintSoc, mSocText);
-        // if (mSocTextSize != null) {
-        // float socTextInterval = mSocTextSize[1] + mSocTextTopInterval;
-        // if (mBottomInterval < socTextInterval) {
-        // mBottomInterval = socTextInterval;
-        // }
-        // }
-        // }
         // 叠加当前的高度
         mMaxHeight += mTopInterval;
         mMaxHeight += mBottomInterval + mPaddingBottom;
@@ -371,7 +373,9 @@ public class ChargingProgressView extends BaseView {
         setMeasuredDimension(widthMeasureSpec, heightMeasureSpec);
     }
 
-    @SuppressLint("DrawAllocation")
+    /**
+     * 所有的文字、颜色、路径都在setter和onMeasure中计算好，这里只负责绘制，不创建任何对象
+     */
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
@@ -386,16 +390,12 @@ public class ChargingProgressView extends BaseView {
             canvas.drawRoundRect(mRectFOuterLayer, mAngle, mAngle, mPaintRoundOuterLayer);
             // 绘制圆角矩形
             canvas.drawRoundRect(mRectFNerLayer, mAngle, mAngle, mPaintRoundNerLayer);
-            // 绘制右侧矩形 ---> 蓝色
-            mPaintRight.setColor(Color.parseColor("#FF09B6F7"));
         } else {
             if (mPercentage > 0) {
                 // 使用路径绘制外层圆角矩形
                 canvas.drawPath(mPath_w, mPaintRoundOuterLayer);
                 // 使用路径绘制内层圆角矩形
                 canvas.drawPath(mPath_n, mPaintRoundNerLayer);
-                // 绘制右侧矩形 ---> 灰色
-                mPaintRight.setColor(Color.parseColor("#FFF4F4F4"));
             }
         }
         // 绘制闪电图标
@@ -406,65 +406,24 @@ public class ChargingProgressView extends BaseView {
         // }
         // 绘制当前电量的进度
         if (mPercentage >= 0) {
-            // 重新计算当前的电量
-            String multiply = NumberUtil.multiply(String.valueOf(mPercentage), String.valueOf(100));
-            mCurrentChargingText = multiply + "%";
-            mCurrentChargingTextSize = CustomViewUtil.getTextSize(mPaintCharging, mCurrentChargingText);
-            if (mCurrentChargingTextSize != null) {
-                // float dx = (mProgressWidth - mCurrentChargingTextSize[0]) / 2; // dx = (进度条宽度
-                // - 文字宽度)/2
-                // float dy = mMaxHeight - mProgressHeight - mCurrentChargingTextInterval -
-                // mBottomInterval; // dy = 总高度
-                // - 进度条的高度 - 间距 - 底部间距
-                // x轴 = (进度条的宽度 - 文字的宽度) / 2
-                float dx = ((mProgress - mCurrentChargingTextSize[0]) / 2);
-                if (dx < 0) {
-                    dx = 0;
-                }
-                float baseLine = CustomViewUtil.getBaseLine(mPaintCharging, mCurrentChargingText);
-                float dy = (int) (mTopInterval + ((mProgressHeight - mCurrentChargingTextSize[1]) / 2) + baseLine);
-                canvas.drawText(mCurrentChargingText, 0, mCurrentChargingText.length(), dx, dy, mPaintCharging);
-            }
+            canvas.drawText(mCurrentChargingText, 0, mCurrentChargingText.length(), mCurrentChargingTextX, mCurrentChargingTextY, mPaintCharging);
         }
         // 绘制剩余的充电时间
-        if (!TextUtils.isEmpty(mRemainingTimeText) && mRemainingTimeTextSize != null) {
+        if (!TextUtils.isEmpty(mRemainingTimeText)) {
             float dx = 0;
             float dy = mMaxHeight - mProgressHeight - mRemainingTimeTextInterval - mBottomInterval; // dy = 总高度 - 进度条 - 间距 -
             // 底部间距
             canvas.drawText(mRemainingTimeText, 0, mRemainingTimeText.length(), dx, dy, mPaintChargingRemainingTimeText);
         }
         // 区间
-        float mQjRight = mBottomScrollProgress * mProgressWidth; // 区间右侧的值
-        if (mQjRight < mProgressWidth) {
-            if (mPercentage > 0) {
-                // 如果有正常的进度，则去绘制矩形
-                canvas.drawRect(mRectFSection, mPaintSection);
-            } else {
-                // 电量的进度为空，去绘制路径 = 从头开始，到开始位置
-                mPath_qj.reset();
-                mPath_qj.addRoundRect(mProgress, mTopInterval, mQjRight, mTopInterval + mProgressHeight, mAngleArray, Path.Direction.CW);
-                canvas.drawPath(mPath_qj, mPaintSection);
-            }
-            // 绘制右侧 ---> 显示灰色
-            if (mPercentage < 1) {
-                mPaintRight.setColor(Color.parseColor("#FFF4F4F4"));
-            }
+        if (mDrawSectionRect) {
+            // 如果有正常的进度，则去绘制矩形
+            canvas.drawRect(mRectFSection, mPaintSection);
         } else {
-            // 进度大于0
-            mPath_qj.reset();
-            if (mPercentage > 0) {
-                mPath_qj.addRoundRect(mProgress, mTopInterval, mProgressWidth, mTopInterval + mProgressHeight, mAngleArrayRight, Path.Direction.CW);
-            } else {
-                mPath_qj.addRoundRect(mProgress, mTopInterval, mProgressWidth, mTopInterval + mProgressHeight, mAngleArrayLeftRight, Path.Direction.CW);
-            }
-            // 使用路径绘制内层圆角矩形
             canvas.drawPath(mPath_qj, mPaintSection);
-            if (mPercentage < 1) {
-                // 绘制右侧矩形 ---> 显示黄色
-                mPaintRight.setColor(Color.parseColor("#2BFF9C26"));
-            }
         }
         // 绘制右侧方块
+        mPaintRight.setColor(mRightColor);
         canvas.drawRect(mRectFRight, mPaintRight);
         // 绘制滑动的区间值
         if (mBottomScrollProgressValue > 0) {
@@ -491,8 +450,6 @@ public class ChargingProgressView extends BaseView {
             // 文字宽度 - 直径 - 距离
             float dy = (circleY + mScrollTextHeight / 2); // dy = 圆角的y轴 + 文字的高度 /2 +
             canvas.drawText(mSocCurrentText, 0, mSocCurrentText.length(), dx, dy, mPaintScrollValue);
-        } else {
-            mWriteUtil.write("绘制滑动的区间值：小于0 ，不执行逻辑！");
         }
         // 绘制最佳的进度
         if (mShowOptimum && (mPercentageOptimum > 0)) {
@@ -538,7 +495,7 @@ public class ChargingProgressView extends BaseView {
                 boolean b = (currentX > mStartBorder) && (currentX < mEndBorder);
                 if (b) {
                     // 改变画笔的颜色并刷新
-                    mPaintScrollRound.setColor(Color.parseColor("#FFFF9C26"));
+                    mPaintScrollRound.setColor(COLOR_ORANGE);
                     // 在点击的时候，也进行数据的计算
                     calculate(event.getX());
                 }
@@ -551,7 +508,7 @@ public class ChargingProgressView extends BaseView {
                     return super.dispatchTouchEvent(event);
                 }
             case MotionEvent.ACTION_UP:
-                mPaintScrollRound.setColor(Color.parseColor("#FFF4F4F4"));
+                mPaintScrollRound.setColor(COLOR_GRAY);
                 requestLayout();
                 invalidate();
                 break;
@@ -601,7 +558,7 @@ public class ChargingProgressView extends BaseView {
             // 文字的滑动数值
             mMultiply = NumberUtil.multiply(mBottomScrollProgress + "", 100 + "");
             // 文字的值
-            mSocCurrentText = mMultiply + "%";
+            updateSocText();
             // 区间的结束值 = 滑动的百分比值 * 进度条的总宽度
             if (mProgress < mProgressWidth * mBottomScrollProgress) {
                 mRectFSection.right = mProgressWidth * mBottomScrollProgress;
@@ -625,6 +582,7 @@ public class ChargingProgressView extends BaseView {
     public void setPercentage(float chargingPercentage) {
         mPercentage = chargingPercentage;
         log("接收到的电量：" + mPercentage);
+        updateChargingText();
         requestLayout();
     }
 
@@ -635,6 +593,7 @@ public class ChargingProgressView extends BaseView {
      */
     public void setRemainingChargeTime(String remainingChargeTime) {
         mRemainingTimeText = remainingChargeTime;
+        measureText(mPaintChargingRemainingTimeText, mRemainingTimeText, mRemainingTimeTextSize);
         requestLayout();
         invalidate();
     }
@@ -646,6 +605,11 @@ public class ChargingProgressView extends BaseView {
      */
     public void setOptimumValue(float optimumPercentage) {
         mPercentageOptimum = optimumPercentage;
+        if (mPercentageOptimum > 0) {
+            // 最佳的数据值
+            OptimumContent = percent(mPercentageOptimum) + "最佳";
+            measureText(mPaintOptimum, OptimumContent, mOptimumTextSize);
+        }
         requestLayout();
         invalidate();
     }
@@ -696,6 +660,7 @@ public class ChargingProgressView extends BaseView {
             this.mBottomScrollProgress = 0.6f;
             mWriteUtil.write("充电中心--->接收到异常的SOC值: " + socValue + "，默认设置成0.6");
         }
+        updateSocText();
         requestLayout();
         invalidate();
     }
@@ -704,6 +669,75 @@ public class ChargingProgressView extends BaseView {
         mProgressListener = progressListener;
     }
 
+    /**
+     * 当前电量的文字，只在电量变化的时候计算
+     */
+    private void updateChargingText() {
+        mCurrentChargingText = percent(mPercentage);
+        mCurrentChargingBaseLine = measureText(mPaintCharging, mCurrentChargingText, mCurrentChargingTextSize);
+    }
+
+    /**
+     * 滑动进度的文字，只在滑动进度变化的时候计算
+     */
+    private void updateSocText() {
+        if (mBottomScrollProgress > 0) {
+            mSocCurrentText = percent(mBottomScrollProgress);
+            measureText(mPaintScrollValue, mSocCurrentText, mScrollTextSize);
+            mScrollTextWidth = mScrollTextSize[0];
+            mScrollTextHeight = mScrollTextSize[1];
+        }
+    }
+
+    /**
+     * 区间的路径和右侧方块的颜色，依赖进度条的宽度，在onMeasure中计算
+     */
+    private void updateSection() {
+        float qjRight = mBottomScrollProgress * mProgressWidth; // 区间右侧的值
+        mDrawSectionRect = false;
+        mPath_qj.reset();
+        if (qjRight < mProgressWidth) {
+            if (mPercentage > 0) {
+                mDrawSectionRect = true;
+            } else {
+                // 电量的进度为空，去绘制路径 = 从头开始，到开始位置
+                mPath_qj.addRoundRect(mProgress, mTopInterval, qjRight, mTopInterval + mProgressHeight, mAngleArray, Path.Direction.CW);
+            }
+        } else if (mPercentage > 0) {
+            mPath_qj.addRoundRect(mProgress, mTopInterval, mProgressWidth, mTopInterval + mProgressHeight, mAngleArrayRight, Path.Direction.CW);
+        } else {
+            mPath_qj.addRoundRect(mProgress, mTopInterval, mProgressWidth, mTopInterval + mProgressHeight, mAngleArrayLeftRight, Path.Direction.CW);
+        }
+        // 右侧方块：充满的时候蓝色，区间到达末尾的时候黄色，其他的时候灰色
+        if (mPercentage >= 1) {
+            mRightColor = COLOR_BLUE;
+        } else if (qjRight < mProgressWidth) {
+            mRightColor = COLOR_GRAY;
+        } else {
+            mRightColor = COLOR_SECTION;
+        }
+    }
+
+    /**
+     * 测量文字的宽高，结果由{@link TextMetricsCache}缓存
+     *
+     * @param size 【0】：宽  【1】：高
+     * @return 文字的基线
+     */
+    private float measureText(Paint paint, String content, float[] size) {
+        long measure = CustomViewUtil.measureText(paint, content);
+        size[0] = TextMetricsCache.width(measure);
+        size[1] = TextMetricsCache.height(measure);
+        return CustomViewUtil.getBaseLine(paint, content);
+    }
+
+    /**
+     * @return 百分比的文字，例如：0.65 ---> 65%
+     */
+    private static String percent(float value) {
+        return NumberUtil.multiply(String.valueOf(value), String.valueOf(100)) + "%";
+    }
+
     private void log(String content) {
         LogUtil.e(content);
     }
@@ -15,6 +15,7 @@ import com.android.common.base.BaseView;
 import com.android.common.utils.ConvertUtil;
 import com.android.common.utils.LogUtil;
 import com.android.helper.utils.CustomViewUtil;
+import com.android.helper.utils.TextMetricsCache;
 import com.android.helper.utils.NumberUtil;
 
 /**
@@ -98,9 +99,9 @@ public class ElectricityView extends BaseView {
         // 右侧的电流值
         String format = NumberUtil.dataFormat(mProgressEnd + "");
         mRightTextValue = format + "A";
-        float[] rightTextSize = CustomViewUtil.getTextSize(mPaintRightText, mRightTextValue);
-        float rightTextWidth = rightTextSize[0];
-        float rightTextHeight = rightTextSize[1];
+        long rightTextSize = CustomViewUtil.measureText(mPaintRightText, mRightTextValue);
+        float rightTextWidth = TextMetricsCache.width(rightTextSize);
+        float rightTextHeight = TextMetricsCache.height(rightTextSize);
         // 测量最大的高度
         float maxHeight = Math.max(rightTextHeight, mProgressHeight);
         // 右侧文字的基准线
@@ -122,10 +123,10 @@ public class ElectricityView extends BaseView {
         mTopInterval = Math.max(v2, mTopInterval);
         // 圆球底部的文字
         mBottomTextValue = mProgressTarget + "A";
-        float[] textSizeBottomRoundText = CustomViewUtil.getTextSize(mPaintBottomRoundText, mBottomTextValue);
+        long textSizeBottomRoundText = CustomViewUtil.measureText(mPaintBottomRoundText, mBottomTextValue);
         mBaseLineBottomText = CustomViewUtil.getBaseLine(mPaintBottomRoundText, mBottomTextValue);
         // 计算最大的高度 = 文字高度 + 原先的高度 + 间距
-        maxHeight += (textSizeBottomRoundText[1] + mBottomValueInterval);
+        maxHeight += (TextMetricsCache.height(textSizeBottomRoundText) + mBottomValueInterval);
         maxHeight += mPaddingTop;
         widthMeasureSpec = resolveSize((int) maxWidth, widthMeasureSpec);
         heightMeasureSpec = resolveSize((int) maxHeight, heightMeasureSpec);
@@ -161,7 +162,7 @@ public class ElectricityView extends BaseView {
         }
         String format = NumberUtil.dataFormat(bottomTextValue + "");
         // 从新计算文字的宽度
-        float width = CustomViewUtil.getTextSize(mPaintBottomRoundText, mBottomTextValue)[0];
+        float width = TextMetricsCache.width(CustomViewUtil.measureText(mPaintBottomRoundText, mBottomTextValue));
         mBottomTextValue = format + "A";
         LogUtil.e("⭐️⭐️⭐️ mBottomTextValue：" + mBottomTextValue);
         float dx = (circleDx - width / 2);// 圆球的X轴圆心 - 文字的宽度/2
@@ -0,0 +1,77 @@
+package com.android.helper.widget;
+
+import java.util.Arrays;
+
+/**
+ * 按照权重随机选择下标的树状数组，修改某个下标的权重和按照前缀和查找下标都是O(log n)
+ */
+final class FenwickTree {
+
+    private int[] mTree = new int[1];
+    private int[] mWeights = new int[0];
+    private int mSize;
+    private int mTotal;
+
+    /**
+     * 使用指定的权重重新建立，时间是O(n)
+     *
+     * @param weights 每个下标的权重，不能小于0
+     * @param size    下标的个数
+     */
+    void build(int[] weights, int size) {
+        if (mWeights.length < size) {
+            mWeights = new int[size];
+            mTree = new int[size + 1];
+        } else {
+            Arrays.fill(mTree, 0, size + 1, 0);
+        }
+        mSize = size;
+        mTotal = 0;
+        for (int i = 0; i < size; i++) {
+            mWeights[i] = weights[i];
+            mTotal += weights[i];
+            int node = i + 1;
+            mTree[node] += weights[i];
+            int parent = node + (node & -node);
+            if (parent <= size) {
+                mTree[parent] += mTree[node];
+            }
+        }
+    }
+
+    int total() {
+        return mTotal;
+    }
+
+    int get(int index) {
+        return mWeights[index];
+    }
+
+    void set(int index, int weight) {
+        int delta = weight - mWeights[index];
+        if (delta == 0) {
+            return;
+        }
+        mWeights[index] = weight;
+        mTotal += delta;
+        for (int node = index + 1; node <= mSize; node += node & -node) {
+            mTree[node] += delta;
+        }
+    }
+
+    /**
+     * @param value 0到{@link #total()}之间的值，不包含total
+     * @return 前缀和大于value的最小下标，value是均匀随机的时候，每个下标被选中的概率和它的权重成正比
+     */
+    int find(int value) {
+        int node = 0;
+        for (int bit = Integer.highestOneBit(Math.max(1, mSize)); bit > 0; bit >>= 1) {
+            int next = node + bit;
+            if (next <= mSize && mTree[next] <= value) {
+                node = next;
+                value -= mTree[next];
+            }
+        }
+        return node;
+    }
+}
@@ -1,6 +1,5 @@
 package com.android.helper.widget;
 
-import android.annotation.SuppressLint;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
@@ -17,15 +16,14 @@ import androidx.core.content.ContextCompat;
 
 import com.android.common.utils.ConvertUtil;
 import com.android.helper.R;
-import com.android.helper.utils.CustomViewUtil;
+import com.android.helper.utils.TextMetricsCache;
 import com.android.helper.utils.TextViewUtil;
 
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 /**
  * 多列的ListView，适用于数据简单的列表，不适用于数据复杂的列表，因为里面没有做数据的复用
@@ -35,8 +33,8 @@ public class MultipleListView extends View {
     private final Paint mPaint = new Paint();
     private final Paint mPaint2 = new Paint();
     private final List<String> mList = new ArrayList<>();
-    private final Map<Integer, Float> mMapBaseLine = new HashMap<>(); // 所有view的基准线
-    private final Map<Integer, Float> mMapContentHeight = new HashMap<>(); // 所有view的高度
+    private float[] mBaseLines = new float[16]; // 所有view的基准线，和mList的角标一一对应
+    private float[] mContentHeights = new float[16]; // 所有view的高度，和mList的角标一一对应
     private int divider; // 中心线
     private float mLineHeight; // 文字之间的间隔
     private float textSize;
@@ -90,7 +88,9 @@ public class MultipleListView extends View {
      * @param textSize 指定的字体大小
      */
     public void setTextSize(float textSize) {
+        this.textSize = textSize;
         mPaint.setTextSize(textSize);
+        remeasure();
     }
 
     /**
@@ -100,6 +100,7 @@ public class MultipleListView extends View {
         Typeface typeFace = TextViewUtil.getTypeFace(context, font);
         if (typeFace != null) {
             mPaint.setTypeface(typeFace);
+            remeasure();
         }
     }
 
@@ -108,6 +109,7 @@ public class MultipleListView extends View {
      */
     public void setLineHeight(float lineHeight) {
         this.mLineHeight = lineHeight;
+        requestLayout();
     }
 
     /**
@@ -117,19 +119,61 @@ public class MultipleListView extends View {
         if ((list != null) && (list.size() > 0)) {
             this.mList.clear();
             // LogUtil.e("集合的数据为：" + list);
+            addList(list);
+        }
+    }
+
+    /**
+     * @param list 在列表的末尾追加数据，只测量新加入的数据
+     */
+    public void addList(List<String> list) {
+        if ((list != null) && (list.size() > 0)) {
+            int start = mList.size();
             for (int i = 0; i < list.size(); i++) {
                 String s = list.get(i);
                 if (!TextUtils.isEmpty(s)) {
                     mList.add(s);
-                    // 存入所有的基准线
-                    float baseLine = CustomViewUtil.getBaseLine(mPaint, s);
-                    mMapBaseLine.put(i, baseLine);
-                    // 存入所有view的高度
-                    float height = CustomViewUtil.getTextSize(mPaint, s)[1];
-                    mMapContentHeight.put(i, height);
                 }
             }
+            ensureCapacity(mList.size());
+            // 批量存入所有的基准线和所有view的高度
+            TextMetricsCache.getInstance().measure(mPaint, mList, start, mList.size(), mBaseLines, mContentHeights);
             requestLayout();
+            invalidate();
+        }
+    }
+
+    /**
+     * 更新指定位置的数据，只重新测量这一条数据
+     *
+     * @param position 角标
+     * @param content  新的内容，为空的时候不做处理
+     */
+    public void setItem(int position, String content) {
+        if ((position >= 0) && (position < mList.size()) && (!TextUtils.isEmpty(content))) {
+            mList.set(position, content);
+            TextMetricsCache.getInstance().measure(mPaint, mList, position, position + 1, mBaseLines, mContentHeights);
+            requestLayout();
+            invalidate();
+        }
+    }
+
+    /**
+     * 字体的大小或者字体改变之后，重新测量所有的数据
+     */
+    private void remeasure() {
+        if (mList.size() > 0) {
+            TextMetricsCache.getInstance().measure(mPaint, mList, 0, mList.size(), mBaseLines, mContentHeights);
+            requestLayout();
+            invalidate();
+        }
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > mBaseLines.length) {
+            int capacity = Math.max(size, mBaseLines.length * 2);
+            mBaseLines = Arrays.copyOf(mBaseLines, capacity);
+            mContentHeights = Arrays.copyOf(mContentHeights, capacity);
         }
     }
 
@@ -142,31 +186,24 @@ public class MultipleListView extends View {
         float rightHeight = 0; // 右侧的高度
         float contentHeight; // 左右最高的值
         float mTotalHeight = 0; // 累积的高度
+        int size = mList.size();
         // 循环便利测量view的高度
-        if (mList != null && mList.size() > 0) {
-            for (int i = 0; i < mList.size(); i++) {
-                if (!TextUtils.isEmpty(mList.get(i))) {
-                    // 只计算左侧的高度进行累积就行了
-                    if (i % 2 == 0) {
-                        // 左侧的高度
-                        leftHeight = mMapContentHeight.get(i);
-                        if ((i + 1) < mMapContentHeight.size()) { // 普通的行数
-                            rightHeight = mMapContentHeight.get(i + 1);
-                        } else { // 最后一行
-                            rightHeight = leftHeight;
-                        }
-                        if ((leftHeight - rightHeight) > 0) {
-                            contentHeight = leftHeight;
-                        } else {
-                            contentHeight = rightHeight;
-                        }
-                        // 累积数据的高度
-                        if (i < 2) {
-                            mTotalHeight += contentHeight;
-                        } else { // 加上分割线的高度
-                            mTotalHeight += (contentHeight + mLineHeight);
-                        }
-                    }
+        if (size > 0) {
+            // 只计算左侧的高度进行累积就行了
+            for (int i = 0; i < size; i += 2) {
+                // 左侧的高度
+                leftHeight = mContentHeights[i];
+                if ((i + 1) < size) { // 普通的行数
+                    rightHeight = mContentHeights[i + 1];
+                } else { // 最后一行
+                    rightHeight = leftHeight;
+                }
+                contentHeight = Math.max(leftHeight, rightHeight);
+                // 累积数据的高度
+                if (i < 2) {
+                    mTotalHeight += contentHeight;
+                } else { // 加上分割线的高度
+                    mTotalHeight += (contentHeight + mLineHeight);
                 }
             }
             // 四舍五入数据，只能多不能少
@@ -189,52 +226,44 @@ public class MultipleListView extends View {
         }
     }
 
-    @SuppressLint("DrawAllocation")
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
         float mTotalHeight = 0; // 累积的高度
         float mTotalViewHeights = 0; // 累积view的高度
         float totalLine;// 最大的中心线
-        if (mList.size() > 0) {
+        int size = mList.size();
+        if (size > 0) {
             // 循环便利数据
-            for (int i = 0; i < mList.size(); i++) {
-                // 每个具体的数据
+            for (int i = 0; i < size; i++) {
+                // 每个具体的数据，空的数据在添加的时候已经过滤掉了
                 String s = mList.get(i);
-                if (!TextUtils.isEmpty(s)) {
-                    /*
-                     *逻辑：
-                     *      1：计算出view的基准线
-                     *      2：累积加上 间隔高度 + view的高度 + 基准线
-                     */
-                    if (i % 2 == 0) { // 左侧的view
-                        // 计算出中心线
-                        totalLine = getLeftBaseLine(i);
-                        // 绘制view
-                        if (i < 2) { // 第一行
-                            canvas.drawText(s, 0, totalLine, mPaint);
-                            /*********************************************/
-//                            Float aFloat = mMapContentHeight.get(i);
-//                            Float aFloat1 = mMapContentHeight.get(i + 1);
-//                            float aa;
-//                            if (aFloat - aFloat1 > 0) {
-//                                aa = aFloat;
-//                            } else {
-//                                aa = aFloat1;
-//                            }
+                /*
+                 *逻辑：
+                 *      1：计算出view的基准线
+                 *      2：累积加上 间隔高度 + view的高度 + 基准线
+                 */
+                if (i % 2 == 0) { // 左侧的view
+                    // 计算出中心线
+                    totalLine = getLeftBaseLine(i);
+                    // 绘制view
+                    if (i < 2) { // 第一行
+                        canvas.drawText(s, 0, totalLine, mPaint);
+                        /*********************************************/
+//                            float aa = getLeftCurrentHeight(i);
 //                            canvas.drawLine(0, aa, getMeasuredWidth(), aa, mPaint2);
-                            /*********************************************/
-                        } else { // 后续的行
-                            // ------- 计算出上一个view的高度 --------
-                            // 对比出view的高度
-                            float height = getLeftBeforeHeight(i);
-                            // 累积view的高度
-                            mTotalViewHeights += (height + mLineHeight);
-                            // 高度 = 累积的高度  +中线的高度
-                            mTotalHeight = mTotalViewHeights + totalLine;
-                            canvas.drawText(s, 0, mTotalHeight, mPaint);
-                            /*********************************************/
-                            // 累积view的高度
+                        /*********************************************/
+                    } else { // 后续的行
+                        // ------- 计算出上一个view的高度 --------
+                        // 对比出view的高度
+                        float height = getLeftBeforeHeight(i);
+                        // 累积view的高度
+                        mTotalViewHeights += (height + mLineHeight);
+                        // 高度 = 累积的高度  +中线的高度
+                        mTotalHeight = mTotalViewHeights + totalLine;
+                        canvas.drawText(s, 0, mTotalHeight, mPaint);
+                        /*********************************************/
+                        // 累积view的高度
 //                            int measuredWidth = getMeasuredWidth();
 //
 //                            float leftCurrentHeight = getLeftCurrentHeight(i);
@@ -242,15 +271,14 @@ public class MultipleListView extends View {
 //                            float heightValue = leftCurrentHeight + mTotalViewHeights;
 //
 //                            canvas.drawLine(0, heightValue, measuredWidth, heightValue, mPaint2);
-                            /*********************************************/
-                        }
-                    } else { // 右侧的view
-                        if (i < 2) {
-                            totalLine = getRightBaseLine(i);
-                            canvas.drawText(s, divider, totalLine, mPaint);
-                        } else {
-                            canvas.drawText(s, divider, mTotalHeight, mPaint);
-                        }
+                        /*********************************************/
+                    }
+                } else { // 右侧的view
+                    if (i < 2) {
+                        totalLine = getRightBaseLine(i);
+                        canvas.drawText(s, divider, totalLine, mPaint);
+                    } else {
+                        canvas.drawText(s, divider, mTotalHeight, mPaint);
                     }
                 }
             }
@@ -264,9 +292,9 @@ public class MultipleListView extends View {
     private float getLeftBaseLine(int position) {
         float rightLine;// 右侧的中心线
         // 计算出中心线
-        float leftLien = mMapBaseLine.get(position); // 左侧的中心线
-        if ((position + 1) < mMapBaseLine.size()) {
-            rightLine = mMapBaseLine.get(position + 1);
+        float leftLien = mBaseLines[position]; // 左侧的中心线
+        if ((position + 1) < mList.size()) {
+            rightLine = mBaseLines[position + 1];
         } else {
             rightLine = leftLien;
         }
@@ -284,8 +312,8 @@ public class MultipleListView extends View {
      */
     private float getRightBaseLine(int position) {
         // 计算出中心线
-        float leftLien = mMapBaseLine.get(position);
-        float rightLine = mMapBaseLine.get(position - 1);
+        float leftLien = mBaseLines[position];
+        float rightLine = mBaseLines[position - 1];
         // 计算出最大的中心线
         if (leftLien - rightLine > 0) {
             return leftLien;
@@ -299,9 +327,9 @@ public class MultipleListView extends View {
      */
     private float getLeftBeforeHeight(int position) {
         // 上一个左侧的view
-        float leftHeight = mMapContentHeight.get(position - 2);
+        float leftHeight = mContentHeights[position - 2];
         // 上一个右侧的view
-        float rightHeight = mMapContentHeight.get(position - 1);
+        float rightHeight = mContentHeights[position - 1];
         if (leftHeight - rightHeight > 0) {
             return leftHeight;
         } else {
@@ -315,10 +343,10 @@ public class MultipleListView extends View {
     private float getLeftCurrentHeight(int position) {
         float rightHeight;
         // 上一个左侧的view
-        float leftHeight = mMapContentHeight.get(position);
+        float leftHeight = mContentHeights[position];
         // 上一个右侧的view
-        if ((position + 1) < mMapContentHeight.size()) {
-            rightHeight = mMapContentHeight.get(position + 1);
+        if ((position + 1) < mList.size()) {
+            rightHeight = mContentHeights[position + 1];
         } else {
             rightHeight = leftHeight;
         }
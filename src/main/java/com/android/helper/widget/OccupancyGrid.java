@@ -0,0 +1,134 @@
+package com.android.helper.widget;
+
+import java.util.Arrays;
+
+/**
+ * 已经放置的矩形的空间索引，把区域分成大小相同的格子，每个格子记录和它相交的矩形。
+ * 判断一个新的矩形是否和已有的矩形重叠的时候，只需要检查它覆盖的几个格子，不需要遍历所有的矩形，也不需要创建Rect。
+ */
+final class OccupancyGrid {
+
+    private int mCellSize;
+    private int mColumns;
+    private int mRows;
+    private int[][] mCells = new int[0][]; // 每个格子中矩形的下标
+    private int[] mCellCounts = new int[0];
+    private int[] mRects = new int[64]; // 每个矩形占用4个int：left、top、right、bottom
+    private int mCount;
+
+    /**
+     * @param width    区域的宽度
+     * @param height   区域的高度
+     * @param cellSize 格子的大小，接近矩形的平均大小的时候效率最高
+     */
+    void reset(int width, int height, int cellSize) {
+        mCellSize = Math.max(1, cellSize);
+        mColumns = Math.max(1, (width + mCellSize - 1) / mCellSize);
+        mRows = Math.max(1, (height + mCellSize - 1) / mCellSize);
+        int cells = mColumns * mRows;
+        if (mCells.length < cells) {
+            mCells = new int[cells][];
+            mCellCounts = new int[cells];
+        } else {
+            Arrays.fill(mCellCounts, 0, cells, 0);
+        }
+        mCount = 0;
+    }
+
+    int size() {
+        return mCount;
+    }
+
+    /**
+     * 添加一个矩形，right和bottom不包含在矩形内
+     *
+     * @return 矩形的下标
+     */
+    int add(int left, int top, int right, int bottom) {
+        if (mRects.length < (mCount + 1) * 4) {
+            mRects = Arrays.copyOf(mRects, mRects.length * 2);
+        }
+        int index = mCount++;
+        int offset = index * 4;
+        mRects[offset] = left;
+        mRects[offset + 1] = top;
+        mRects[offset + 2] = right;
+        mRects[offset + 3] = bottom;
+        int startColumn = column(left);
+        int endColumn = column(right - 1);
+        int startRow = row(top);
+        int endRow = row(bottom - 1);
+        for (int row = startRow; row <= endRow; row++) {
+            for (int column = startColumn; column <= endColumn; column++) {
+                int cell = row * mColumns + column;
+                int[] items = mCells[cell];
+                int count = mCellCounts[cell];
+                if (items == null) {
+                    items = mCells[cell] = new int[4];
+                } else if (items.length == count) {
+                    items = mCells[cell] = Arrays.copyOf(items, count * 2);
+                }
+                items[count] = index;
+                mCellCounts[cell] = count + 1;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @return 指定的矩形是否和已有的矩形相交，right和bottom不包含在矩形内
+     */
+    boolean intersects(int left, int top, int right, int bottom) {
+        return findIntersecting(left, top, right, bottom) >= 0;
+    }
+
+    /**
+     * @return 和指定的矩形相交的任意一个矩形的下标，没有相交的时候返回-1
+     */
+    int findIntersecting(int left, int top, int right, int bottom) {
+        if (right <= left || bottom <= top) {
+            return -1;
+        }
+        int startColumn = column(left);
+        int endColumn = column(right - 1);
+        int startRow = row(top);
+        int endRow = row(bottom - 1);
+        for (int row = startRow; row <= endRow; row++) {
+            for (int column = startColumn; column <= endColumn; column++) {
+                int cell = row * mColumns + column;
+                int[] items = mCells[cell];
+                for (int i = 0, count = mCellCounts[cell]; i < count; i++) {
+                    int offset = items[i] * 4;
+                    if (left < mRects[offset + 2] && mRects[offset] < right && top < mRects[offset + 3] && mRects[offset + 1] < bottom) {
+                        return items[i];
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    int getLeft(int index) {
+        return mRects[index * 4];
+    }
+
+    int getTop(int index) {
+        return mRects[index * 4 + 1];
+    }
+
+    int getRight(int index) {
+        return mRects[index * 4 + 2];
+    }
+
+    int getBottom(int index) {
+        return mRects[index * 4 + 3];
+    }
+
+    private int column(int x) {
+        return Math.min(mColumns - 1, Math.max(0, x / mCellSize));
+    }
+
+    private int row(int y) {
+        return Math.min(mRows - 1, Math.max(0, y / mCellSize));
+    }
+}
@@ -1,18 +1,25 @@
 package com.android.helper.widget;
 
 import android.content.Context;
-import android.graphics.Rect;
 import android.util.AttributeSet;
 import android.view.View;
 import android.view.ViewGroup;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
-import java.util.Set;
 
+/**
+ * 按照区域随机分布子View的布局
+ * <ol>
+ *     1：每个区域剩余可以放置的个数保存在{@link FenwickTree}中，按照剩余的个数加权随机选择区域，越空的区域越容易被选中，选择和修改都是O(log n)。
+ *     2：已经放置的View保存在{@link OccupancyGrid}中，判断重叠只检查附近的格子。
+ *     3：已经确定位置的View在LayoutParams中做标记，新添加的View放入待布局的集合，layout的时候只处理新添加的View，
+ *     重新分配所有View的时间是O(n log n)。
+ * </ol>
+ */
 public class RandomHmLayout extends ViewGroup {
 
     /**
@@ -33,13 +40,28 @@ public class RandomHmLayout extends ViewGroup {
      */
     private int mAreaCount;
     /**
-     * 区域的二维数组
+     * 每个区域已经放置的View的个数，下标 = 行 * mXRegularity + 列
      */
-    private int[][] mAreaDensity;
+    private int[] mAreaDensity;
     /**
-     * 存放已经确定位置的View
+     * 每个区域剩余可以放置的个数，用来加权随机选择区域
      */
-    private Set<View> mFixedViews;
+    private final FenwickTree mAvailAreas = new FenwickTree();
+    private int[] mAreaWeights;
+    /**
+     * 已经确定位置的View的空间索引
+     */
+    private final OccupancyGrid mOccupancy = new OccupancyGrid();
+    /**
+     * 还没有确定位置的View
+     */
+    private final List<View> mPendingViews = new ArrayList<>();
+    /**
+     * 需要重新分配所有View的位置，例如View被删除或者自身的大小发生了变化
+     */
+    private boolean mResetAreas = true;
+    private int mLayoutWidth = -1;
+    private int mLayoutHeight = -1;
     /**
      * 提供子View的adapter
      */
@@ -70,7 +92,6 @@ public class RandomHmLayout extends ViewGroup {
         mLayouted = false;
         mRdm = new Random();
         setRegularity(1, 1);
-        mFixedViews = new HashSet<View>();
         mRecycledViews = new LinkedList<View>();
     }
 
@@ -93,7 +114,9 @@ public class RandomHmLayout extends ViewGroup {
             this.mYRegularity = 1;
         }
         this.mAreaCount = mXRegularity * mYRegularity;//个数等于x方向的个数*y方向的个数
-        this.mAreaDensity = new int[mYRegularity][mXRegularity];//存放区域的二维数组
+        this.mAreaDensity = new int[mAreaCount];//存放区域的数组
+        this.mAreaWeights = new int[mAreaCount];
+        resetAllAreas();
     }
 
     /**
@@ -107,12 +130,8 @@ public class RandomHmLayout extends ViewGroup {
      * 重新设置区域，把所有的区域记录都归0
      */
     private void resetAllAreas() {
-        mFixedViews.clear();
-        for (int i = 0; i < mYRegularity; i++) {
-            for (int j = 0; j < mXRegularity; j++) {
-                mAreaDensity[i][j] = 0;
-            }
-        }
+        Arrays.fill(mAreaDensity, 0);
+        mResetAreas = true;
     }
 
     /**
@@ -192,6 +211,24 @@ public class RandomHmLayout extends ViewGroup {
         resetAllAreas();//重新设置所有区域
     }
 
+    @Override
+    public void onViewAdded(View child) {
+        super.onViewAdded(child);
+        mPendingViews.add(child);
+    }
+
+    @Override
+    public void onViewRemoved(View child) {
+        super.onViewRemoved(child);
+        // 空间索引不支持删除，已经放置的View被删除之后重新分配
+        if (child.getLayoutParams() instanceof LayoutParams && ((LayoutParams) child.getLayoutParams()).mFixed) {
+            ((LayoutParams) child.getLayoutParams()).mFixed = false;
+            resetAllAreas();
+        } else {
+            mPendingViews.remove(child);
+        }
+    }
+
     /**
      * 确定子View的位置，这个就是区域分布的关键
      */
@@ -201,102 +238,126 @@ public class RandomHmLayout extends ViewGroup {
         // 确定自身的宽高
         int thisW = r - l - this.getPaddingLeft() - this.getPaddingRight();
         int thisH = b - t - this.getPaddingTop() - this.getPaddingBottom();
+        if (thisW != mLayoutWidth || thisH != mLayoutHeight) {
+            mLayoutWidth = thisW;
+            mLayoutHeight = thisH;
+            resetAllAreas();
+        }
+        if (mResetAreas) {
+            // 重新分配所有的View
+            mResetAreas = false;
+            Arrays.fill(mAreaDensity, 0);
+            mPendingViews.clear();
+            for (int i = 0; i < count; i++) {
+                View child = getChildAt(i);
+                ((LayoutParams) child.getLayoutParams()).mFixed = false;
+                mPendingViews.add(child);
+            }
+            // 格子的大小使用区域的大小，不小于子View的最小尺寸
+            mOccupancy.reset(thisW, thisH, Math.max(8, Math.min(thisW / mXRegularity, thisH / mYRegularity)));
+        }
+        if (mPendingViews.isEmpty()) {
+            mLayouted = true;
+            return;
+        }
         // 自身内容区域的右边和下边
-        int contentRight = r - getPaddingRight();
-        int contentBottom = b - getPaddingBottom();
-        // 按照顺序存放把区域存放到集合中
-        List<Integer> availAreas = new ArrayList<Integer>(mAreaCount);
+        int contentRight = r - l - getPaddingRight();
+        int contentBottom = b - t - getPaddingBottom();
+        int areaCapacity = (count + 1) / mAreaCount + 1;  //区域密度，表示一个区域内可以放几个View，+1表示至少要放一个
+        // 每次layout都重新计算一次可用的区域，和之前每次重新创建区域集合的规则一致，时间是O(区域个数)
         for (int i = 0; i < mAreaCount; i++) {
-            availAreas.add(i);
+            mAreaWeights[i] = Math.max(0, areaCapacity - mAreaDensity[i]);
         }
-        int areaCapacity = (count + 1) / mAreaCount + 1;  //区域密度，表示一个区域内可以放几个View，+1表示至少要放一个
-        int availAreaCount = mAreaCount; //可用的区域个数
-        for (int i = 0; i < count; i++) {
-            final View child = getChildAt(i);
+        mAvailAreas.build(mAreaWeights, mAreaCount);
+        // 用自身的高度去除以分配值，可以算出每一个区域的宽和高
+        float colW = thisW / (float) mXRegularity;
+        float rowH = thisH / (float) mYRegularity;
+        int childWidthMeasureSpec = MeasureSpec.makeMeasureSpec(this.getMeasuredWidth(), MeasureSpec.AT_MOST);//为子View准备测量的参数
+        int childHeightMeasureSpec = MeasureSpec.makeMeasureSpec(this.getMeasuredHeight(), MeasureSpec.AT_MOST);
+        for (int i = 0, size = mPendingViews.size(); i < size; i++) {
+            final View child = mPendingViews.get(i);
             if (child.getVisibility() == View.GONE) { // gone掉的view是不参与布局
                 continue;
             }
-            if (!mFixedViews.contains(child)) {//mFixedViews用于存放已经确定好位置的View，存到了就没必要再次存放
-                LayoutParams params = (LayoutParams) child.getLayoutParams();
-                // 先测量子View的大小
-                int childWidthMeasureSpec = MeasureSpec.makeMeasureSpec(this.getMeasuredWidth(), MeasureSpec.AT_MOST);//为子View准备测量的参数
-                int childHeightMeasureSpec = MeasureSpec.makeMeasureSpec(this.getMeasuredHeight(), MeasureSpec.AT_MOST);
-                child.measure(childWidthMeasureSpec, childHeightMeasureSpec);
-                // 子View测量之后的宽和高
-                int childW = child.getMeasuredWidth();
-                int childH = child.getMeasuredHeight();
-                // 用自身的高度去除以分配值，可以算出每一个区域的宽和高
-                float colW = thisW / (float) mXRegularity;
-                float rowH = thisH / (float) mYRegularity;
-                while (availAreaCount > 0) { //如果使用区域大于0，就可以为子View尝试分配
-                    int arrayIdx = mRdm.nextInt(availAreaCount);//随机一个list中的位置
-                    int areaIdx = availAreas.get(arrayIdx);//再根据list中的位置获取一个区域编号
-                    int col = areaIdx % mXRegularity;//计算出在二维数组中的位置
-                    int row = areaIdx / mXRegularity;
-                    if (mAreaDensity[row][col] < areaCapacity) {// 区域密度未超过限定，将view置入该区域
-                        int xOffset = (int) colW - childW; //区域宽度 和 子View的宽度差值，差值可以用来做区域内的位置随机
-                        if (xOffset <= 0) {
-                            xOffset = 1;
-                        }
-                        int yOffset = (int) rowH - childH;
-                        if (yOffset <= 0) {
-                            yOffset = 1;
-                        }
-                        // 确定左边，等于区域宽度*左边的区域
-                        params.mLeft = getPaddingLeft() + (int) (colW * col + mRdm.nextInt(xOffset));
-                        int rightEdge = contentRight - childW;
-                        if (params.mLeft > rightEdge) {//加上子View的宽度后不能超出右边界
-                            params.mLeft = rightEdge;
-                        }
-                        params.mRight = params.mLeft + childW;
-                        params.mTop = getPaddingTop() + (int) (rowH * row + mRdm.nextInt(yOffset));
-                        int bottomEdge = contentBottom - childH;
-                        if (params.mTop > bottomEdge) {//加上子View的宽度后不能超出右边界
-                            params.mTop = bottomEdge;
-                        }
-                        params.mBottom = params.mTop + childH;
-                        if (!isOverlap(params)) {//判断是否和别的View重叠了
-                            mAreaDensity[row][col]++;//没有重叠，把该区域的密度加1
-                            child.layout(params.mLeft, params.mTop, params.mRight, params.mBottom);//布局子View
-                            mFixedViews.add(child);//添加到已经布局的集合中
-                            break;
-                        } else {//如果重叠了，把该区域移除，
-                            availAreas.remove(arrayIdx);
-                            availAreaCount--;
-                        }
-                    } else {// 区域密度超过限定，将该区域从可选区域中移除
-                        availAreas.remove(arrayIdx);
-                        availAreaCount--;
-                    }
+            LayoutParams params = (LayoutParams) child.getLayoutParams();
+            // 先测量子View的大小
+            child.measure(childWidthMeasureSpec, childHeightMeasureSpec);
+            // 子View测量之后的宽和高
+            int childW = child.getMeasuredWidth();
+            int childH = child.getMeasuredHeight();
+            while (mAvailAreas.total() > 0) { //如果还有可用的区域，就可以为子View尝试分配
+                int areaIdx = mAvailAreas.find(mRdm.nextInt(mAvailAreas.total()));//按照剩余的个数加权随机一个区域
+                int col = areaIdx % mXRegularity;//计算出在二维数组中的位置
+                int row = areaIdx / mXRegularity;
+                int xOffset = (int) colW - childW; //区域宽度 和 子View的宽度差值，差值可以用来做区域内的位置随机
+                if (xOffset <= 0) {
+                    xOffset = 1;
+                }
+                int yOffset = (int) rowH - childH;
+                if (yOffset <= 0) {
+                    yOffset = 1;
+                }
+                // 确定左边，等于区域宽度*左边的区域
+                params.mLeft = getPaddingLeft() + (int) (colW * col + mRdm.nextInt(xOffset));
+                int rightEdge = contentRight - childW;
+                if (params.mLeft > rightEdge) {//加上子View的宽度后不能超出右边界
+                    params.mLeft = rightEdge;
+                }
+                params.mRight = params.mLeft + childW;
+                params.mTop = getPaddingTop() + (int) (rowH * row + mRdm.nextInt(yOffset));
+                int bottomEdge = contentBottom - childH;
+                if (params.mTop > bottomEdge) {//加上子View的宽度后不能超出右边界
+                    params.mTop = bottomEdge;
+                }
+                params.mBottom = params.mTop + childH;
+                if (!isOverlap(params)) {//判断是否和别的View重叠了
+                    mAreaDensity[areaIdx]++;//没有重叠，把该区域的密度加1
+                    mAvailAreas.set(areaIdx, mAvailAreas.get(areaIdx) - 1);
+                    child.layout(params.mLeft, params.mTop, params.mRight, params.mBottom);//布局子View
+                    mOccupancy.add(params.mLeft - getPaddingLeft(), params.mTop - getPaddingTop(), params.mRight - getPaddingLeft(), params.mBottom - getPaddingTop());
+                    params.mFixed = true;//标记为已经布局
+                    break;
+                } else {//如果重叠了，这次layout不再使用该区域
+                    mAvailAreas.set(areaIdx, 0);
                 }
             }
         }
+        // 没有放下的View留在集合中，下次layout的时候再尝试
+        int remain = 0;
+        for (int i = 0, size = mPendingViews.size(); i < size; i++) {
+            View child = mPendingViews.get(i);
+            if (!((LayoutParams) child.getLayoutParams()).mFixed) {
+                mPendingViews.set(remain++, child);
+            }
+        }
+        mPendingViews.subList(remain, mPendingViews.size()).clear();
         mLayouted = true;
     }
 
     /**
-     * 计算两个View是否重叠，如果重叠，那么他们之间一定有一个矩形区域是共有的
+     * 计算两个View是否重叠，两个View各自向外扩大mOverlapAdd之后有共同的部分就算重叠
      */
     private boolean isOverlap(LayoutParams params) {
-        int l = params.mLeft - mOverlapAdd;
-        int t = params.mTop - mOverlapAdd;
-        int r = params.mRight + mOverlapAdd;
-        int b = params.mBottom + mOverlapAdd;
-        Rect rect = new Rect();
-        for (View v : mFixedViews) {
-            int vl = v.getLeft() - mOverlapAdd;
-            int vt = v.getTop() - mOverlapAdd;
-            int vr = v.getRight() + mOverlapAdd;
-            int vb = v.getBottom() + mOverlapAdd;
-            rect.left = Math.max(l, vl);
-            rect.top = Math.max(t, vt);
-            rect.right = Math.min(r, vr);
-            rect.bottom = Math.min(b, vb);
-            if (rect.right >= rect.left && rect.bottom >= rect.top) {
-                return true;
-            }
-        }
-        return false;
+        // 两个扩大之后的闭区间相交，等价于原始的区域向外扩大2 * mOverlapAdd + 1之后和半开区间相交
+        int add = mOverlapAdd * 2 + 1;
+        int l = params.mLeft - getPaddingLeft();
+        int t = params.mTop - getPaddingTop();
+        return mOccupancy.intersects(l - add, t - add, params.mRight - getPaddingLeft() + add, params.mBottom - getPaddingTop() + add);
+    }
+
+    @Override
+    protected boolean checkLayoutParams(ViewGroup.LayoutParams p) {
+        return p instanceof LayoutParams;
+    }
+
+    @Override
+    protected ViewGroup.LayoutParams generateDefaultLayoutParams() {
+        return new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
+    }
+
+    @Override
+    protected ViewGroup.LayoutParams generateLayoutParams(ViewGroup.LayoutParams p) {
+        return new LayoutParams(p);
     }
 
     /**
@@ -315,6 +376,7 @@ public class RandomHmLayout extends ViewGroup {
         private int mRight;
         private int mTop;
         private int mBottom;
+        private boolean mFixed; // 是否已经确定了位置
 
         public LayoutParams(ViewGroup.LayoutParams source) {
             super(source);
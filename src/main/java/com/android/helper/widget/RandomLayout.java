@@ -1,10 +1,8 @@
 package com.android.helper.widget;
 
-import android.annotation.SuppressLint;
 import android.content.Context;
-import android.graphics.Canvas;
-import android.graphics.Rect;
 import android.util.AttributeSet;
+import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
@@ -13,29 +11,31 @@ import com.android.helper.interfaces.listener.OnItemClickListener;
 
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
 /**
  * 随机生成一个View
+ * <ol>
+ *     1：{@link #setDataList(List)}的时候直接添加所有的view，在onMeasure中测量，在onLayout中一次性计算所有的位置。
+ *     2：位置由{@link RandomPlacer}计算，重叠的判断使用格子索引，候选位置使用泊松圆盘采样，总的尝试次数有上限，不会无限的重试。
+ *     3：区域内实在放不下的view不会显示，不会因为放不下而重新开始整个流程。
+ *     4：大小和数据不变的时候，再次layout直接使用上一次的位置。
+ * </ol>
  */
 public class RandomLayout extends ViewGroup {
 
-    private final List<TextView> mTemporaryViewList = new ArrayList<>();// 临时存放生成view的集合
-    private List<String> mRandomDataList; // 随机布局的内容数据
     private TextView mTextView = new TextView(getContext()); // textView的模板
-    private List<TextView> mRandomViewList;// view的集合
     private Random mRandom; // 随机数
-    private int mLeft, mTop, mRight, mBottom;// 整个view真实可用的区域
-    private int mLoopCount;// 默认如果超过500次就开始重新轮训
-    private boolean mLoopFlag;// 循环的标记
-    private int mRadioWidth;
-    private int mRadioHeight;
+    private RandomPlacer mPlacer; // 位置的计算
+    private int mItemGap = 20; // view之间最小的间距
     private boolean mIsRatioView;// 是要旋转view
     private OnItemClickListener<String> mClickListener; // 事件的回调
-    private int measuredWidth;
-    private int measuredHeight;
+    private int[] mPositions = new int[0]; // 每个view的位置，每个view占用两个int：x、y，放不下的时候x为-1
+    private int mLayoutWidth = -1; // 上一次计算位置时可用区域的宽高
+    private int mLayoutHeight = -1;
+    private boolean mPlacementDirty = true; // 是否需要重新计算位置
 
     public RandomLayout(Context context) {
         super(context);
@@ -49,40 +49,47 @@ public class RandomLayout extends ViewGroup {
 
     private void init(Context context, AttributeSet attrs) {
         mRandom = new Random();
+        mPlacer = new RandomPlacer(mRandom);
     }
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
         super.onMeasure(widthMeasureSpec, heightMeasureSpec);
-        measuredWidth = getMeasuredWidth();
-        measuredHeight = getMeasuredHeight();
+        // 子view的大小不超过整个布局
+        int childWidthMeasureSpec = MeasureSpec.makeMeasureSpec(getMeasuredWidth(), MeasureSpec.AT_MOST);
+        int childHeightMeasureSpec = MeasureSpec.makeMeasureSpec(getMeasuredHeight(), MeasureSpec.AT_MOST);
+        for (int i = 0, count = getChildCount(); i < count; i++) {
+            View child = getChildAt(i);
+            int width = child.getMeasuredWidth();
+            int height = child.getMeasuredHeight();
+            child.measure(childWidthMeasureSpec, childHeightMeasureSpec);
+            if (width != child.getMeasuredWidth() || height != child.getMeasuredHeight()) {
+                mPlacementDirty = true;
+            }
+        }
     }
 
     public void setDataList(List<String> list) {
         if (list != null && list.size() > 0) {
-            // 重新设置循环的次数
-            mLoopCount = 0;
-            // 设置数据的集合
-            this.mRandomDataList = list;
-            // 重新设置循环标记
-            mLoopFlag = false;
             // 清空所有的view
             this.removeAllViews();
-            // 清空临时的view集合
-            this.mTemporaryViewList.clear();
-            // 存放view的集合
-            if (this.mRandomViewList == null) {
-                this.mRandomViewList = new ArrayList<>();
-            } else {
-                mRandomViewList.clear();
-            }
-            // 把view临时存放到一个集合中去
             for (String content : list) {
                 TextView textView = getTextView();
                 textView.setText(content);
-                mTemporaryViewList.add(textView);
+                // 设置view的旋转
+                if (mIsRatioView) {
+                    textView.setRotation(getAngleValue(5, -5));
+                }
+                // 设置点击事件
+                textView.setOnClickListener(v -> {
+                    if (mClickListener != null) {
+                        mClickListener.onItemClick(textView, 0, content);
+                    }
+                });
+                addView(textView);
             }
-            invalidate();
+            mPlacementDirty = true;
+            requestLayout();
         }
     }
 
@@ -102,144 +109,92 @@ public class RandomLayout extends ViewGroup {
         this.mTextView = templateTextView;
     }
 
-    @SuppressLint("DrawAllocation")
-    @Override
-    protected void onLayout(boolean changed, int l, int t, int r, int b) {
-        LogUtil.e(" --- > onLayout  <----");
-        this.mLeft = l + getPaddingLeft();
-        this.mTop = t + getPaddingTop();
-        this.mRight = (r - getPaddingRight());
-        this.mBottom = (b - getPaddingBottom());
-    }
-
-    @Override
-    protected void onDraw(Canvas canvas) {
-        super.onDraw(canvas);
-        LogUtil.e(" --- > onDraw  <----");
-        post(() -> {
-            LogUtil.e("整个布局的位置：left:" + mLeft + "  top: " + mTop + "  right:" + mRight + "  bottom:" + mBottom);
-            for (int i = 0; i < mTemporaryViewList.size(); i++) {
-                TextView child = mTemporaryViewList.get(i);
-                // 先测量子View的大小
-                int childWidthMeasureSpec = MeasureSpec.makeMeasureSpec(getMeasuredWidth(), MeasureSpec.AT_MOST);// 为子View准备测量的参数
-                int childHeightMeasureSpec = MeasureSpec.makeMeasureSpec(getMeasuredHeight(), MeasureSpec.AT_MOST);
-                child.measure(childWidthMeasureSpec, childHeightMeasureSpec);
-                // 子View测量之后的宽和高
-                int childW = child.getMeasuredWidth();
-                int childH = child.getMeasuredHeight();
-                mRadioWidth = 20;
-                mRadioHeight = 20;
-                while ((!mRandomViewList.contains(child)) && (!mLoopFlag)) {
-                    ++mLoopCount;
-                    if (mLoopCount > 500) {
-                        mLoopFlag = true;
-                    }
-                    // 随机一个新的坐标系
-                    int[] viewLocal = getViewLocal(childW, childH);
-                    int newX = viewLocal[0]; // x轴坐标
-                    int newY = viewLocal[1];
-                    // view 交集的结果
-                    boolean overlap = isOverlap(newX, newY, childW + mRadioWidth, childH + mRadioHeight);
-                    LogUtil.e("新产生的view是否会和其他的view相交叉：" + overlap);
-                    // 随机数的X坐标 + view的宽，是否小于 整体布局的右侧边距
-                    boolean lessRight = (newX + childW + mRadioWidth) < (mRight + mRadioWidth); // 此处多加了一个最小的宽度，避免两个view左右挨得太近
-                    // 随机数的Y轴坐标 + view的高度 ，是否小于布局的底部
-                    boolean lessBottom = (newY + childH + mRadioHeight) < (mBottom + mRadioHeight);// 此处多加了一个最小的高度，避免两个view上下挨得太近
-                    /*
-                     * 只有同时满足三个条件才去添加view
-                     * 1：新生成的随机view 不能和之前的view 交集
-                     * 2：新生成的view右侧不能大于布局的最右侧
-                     * 3：新生成的view底部不能大于布局的最下方
-                     */
-                    if ((!overlap) && (lessRight) && (lessBottom)) {
-                        // 添加一个view，
-                        if (child.getParent() != null) {
-                            removeView(child);
-                        }
-                        addView(child);
-                        // 标记
-                        mRandomViewList.add(child);
-                        // 改变位置
-                        child.layout(newX, newY, (newX + childW + mRadioWidth), (newY + childH + mRadioHeight));
-                        LogUtil.e("成功添加了view ！");
-                        // 设置view的旋转
-                        if (mIsRatioView) {
-                            int randomAngle = getAngleValue(5, -5);
-                            LogUtil.e("随机的角度为：" + randomAngle);
-                            child.setRotation(randomAngle);
-                        }
-                        // 设置点击事件
-                        child.setOnClickListener(v -> {
-                            if (mClickListener != null) {
-                                mClickListener.onItemClick(child, 0, child.getText().toString());
-                            }
-                        });
-
-                    } else {
-                        LogUtil.e("交叉：" + overlap + "  lessRight：" + lessRight + "  lessBottom：" + lessBottom);
-                    }
-                }
-                if (mLoopFlag) {
-                    // 重新开始计算所有
-                    LogUtil.e("---> 重新开始执行流程！");
-                    setDataList(mRandomDataList);
-                }
-            }
-        });
-    }
-
     /**
-     * @return 获取一个范围内的随机数组 xy【0】 获取 X轴的随机数 xy【1】 获取Y轴随机数
+     * @param gap view之间最小的间距，单位是像素，默认20
      */
-    private int[] getViewLocal(int width, int height) {
-        return createXY(width, height);
+    public void setItemGap(int gap) {
+        this.mItemGap = Math.max(0, gap);
+        mPlacementDirty = true;
+        requestLayout();
     }
 
     /**
-     * @param newX   随机的X轴
-     * @param newY   随机的Y轴
-     * @param width  view的宽
-     * @param height view的高
-     * @return 判断新生成的view，是否和之前生成的view 相交，如果相交就返回true，否则就返回false
+     * 重新随机所有view的位置
      */
-    private boolean isOverlap(int newX, int newY, int width, int height) {
-        boolean isOverlap = false;
-        int childCount = getChildCount();
-        if (childCount > 0) {
-            for (int i = 0; i < childCount; i++) {
-                TextView child = (TextView) getChildAt(i);
-                int left = child.getLeft();
-                int right = child.getRight();
-                int top = child.getTop();
-                int bottom = child.getBottom();
-                // 之前添加的view
-                Rect rect = new Rect(left, top, right, bottom);
-                // 随机生成的view
-                Rect rect1 = new Rect((newX + mRadioWidth), (newY + mRadioHeight), (newX + width + mRadioWidth), (newY + height + mRadioHeight));
-                // 交集的结果
-                isOverlap = Rect.intersects(rect, rect1);
-                if (isOverlap) {
-                    isOverlap = true;
-                    break; // 停止整个轮训
-                }
+    public void shuffle() {
+        mPlacementDirty = true;
+        requestLayout();
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        int count = getChildCount();
+        int width = r - l - getPaddingLeft() - getPaddingRight();
+        int height = b - t - getPaddingTop() - getPaddingBottom();
+        if (mPlacementDirty || width != mLayoutWidth || height != mLayoutHeight || mPositions.length != count * 2) {
+            place(count, width, height);
+        }
+        for (int i = 0; i < count; i++) {
+            View child = getChildAt(i);
+            int x = mPositions[i * 2];
+            if (x < 0) {
+                // 放不下的view不显示
+                child.layout(0, 0, 0, 0);
+            } else {
+                int left = getPaddingLeft() + x;
+                int top = getPaddingTop() + mPositions[i * 2 + 1];
+                child.layout(left, top, left + child.getMeasuredWidth(), top + child.getMeasuredHeight());
             }
-        } else {
-            isOverlap = false;
         }
-        return isOverlap;
-
     }
 
     /**
-     * @param min 最小值
-     * @param max 最大值
-     * @return 生成指定范围内的随机数
+     * 计算所有view的位置，大的view先放置，小的view更容易填进剩下的空隙中
      */
-    private int getRandomPosition(int min, int max) {
-        if (max < 0) {
-            max = max * -1;
+    private void place(int count, int width, int height) {
+        mPlacementDirty = false;
+        mLayoutWidth = width;
+        mLayoutHeight = height;
+        if (mPositions.length != count * 2) {
+            mPositions = new int[count * 2];
+        }
+        Arrays.fill(mPositions, -1);
+        if (count == 0 || width <= 0 || height <= 0) {
+            return;
+        }
+        // 按照面积从大到小排序，面积放在高位，下标放在低位，排序之后不需要额外的对象
+        long[] order = new long[count];
+        long totalWidth = 0;
+        long totalHeight = 0;
+        for (int i = 0; i < count; i++) {
+            View child = getChildAt(i);
+            long area = (long) child.getMeasuredWidth() * child.getMeasuredHeight();
+            order[i] = (area << 20) | i;
+            totalWidth += child.getMeasuredWidth();
+            totalHeight += child.getMeasuredHeight();
+        }
+        Arrays.sort(order);
+        // 格子的大小使用view的平均大小
+        int cellSize = (int) Math.max(totalWidth, totalHeight) / count + mItemGap;
+        mPlacer.reset(width, height, mItemGap, cellSize);
+        int[] position = new int[2];
+        int skipped = 0;
+        for (int i = count - 1; i >= 0; i--) {
+            int index = (int) (order[i] & 0xFFFFF);
+            View child = getChildAt(index);
+            if (child.getVisibility() == View.GONE) {
+                continue;
+            }
+            if (mPlacer.place(child.getMeasuredWidth(), child.getMeasuredHeight(), position)) {
+                mPositions[index * 2] = position[0];
+                mPositions[index * 2 + 1] = position[1];
+            } else {
+                skipped++;
+            }
+        }
+        if (skipped > 0) {
+            LogUtil.e("RandomLayout区域不够，有" + skipped + "个view没有显示");
         }
-        return mRandom.nextInt(max) % (max - min + 1) + min;
     }
 
     /**
@@ -259,26 +214,4 @@ public class RandomLayout extends ViewGroup {
     public void setRandomClickListener(OnItemClickListener<String> clickListener) {
         this.mClickListener = clickListener;
     }
-
-    /**
-     * 根据传入的宽和高返回一个随机的坐标!
-     */
-    private int[] createXY(int width, int height) {
-        int[] xyRet = new int[]{0, 0};
-        // 注意，要减去内部填充!!!
-        int i = measuredWidth - (width + getPaddingLeft() + getPaddingRight());
-        if (i > 0) {
-            xyRet[0] = mRandom.nextInt(i);
-        } else {
-            xyRet[0] = mRandom.nextInt(width);
-        }
-        int i1 = measuredHeight - (height + getPaddingBottom() + getPaddingTop());
-        if (i1 > 0) {
-            xyRet[1] = mRandom.nextInt(i1);
-        } else {
-            xyRet[1] = mRandom.nextInt(height);
-        }
-        return xyRet;
-    }
-
 }
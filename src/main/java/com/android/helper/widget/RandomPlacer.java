@@ -0,0 +1,161 @@
+package com.android.helper.widget;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 随机布局的位置计算，不依赖View，可以单独使用
+ * <ol>
+ *     1：已经放置的矩形保存在{@link OccupancyGrid}中，判断是否重叠只检查附近的格子。
+ *     2：候选的位置按照泊松圆盘采样的方式生成：随机选择一个已经放置的矩形，在它周围的圆环内尝试{@link #CANDIDATES}次，
+ *     都失败的时候把这个矩形从活跃的集合中移除，之后不会再以它为中心尝试，所以总的尝试次数是有上限的。
+ *     3：活跃的集合为空的时候，按照从左到右、从上到下的顺序扫描一遍，找到第一个可以放下的位置，扫描也放不下的时候返回false。
+ *     扫描遇到相交的矩形时直接跳过这个矩形，所以不需要逐个像素的尝试。放不下的大小会被记录下来，更大的矩形直接返回false。
+ * </ol>
+ */
+final class RandomPlacer {
+
+    static final int CANDIDATES = 30; // 每个中心点尝试的次数
+    private static final int RANDOM_ATTEMPTS = 10; // 第一个矩形和没有中心点的时候，完全随机尝试的次数
+
+    private final OccupancyGrid mGrid = new OccupancyGrid();
+    private final Random mRandom;
+    private int mWidth;
+    private int mHeight;
+    private int mGap;
+    private int[] mActive = new int[16]; // 活跃的矩形的下标
+    private int mActiveCount;
+    private int[] mFailed = new int[8]; // 已经放不下的大小，每个大小占用两个int：宽、高
+    private int mFailedCount;
+
+    RandomPlacer(Random random) {
+        mRandom = random;
+    }
+
+    /**
+     * @param width    可用区域的宽度
+     * @param height   可用区域的高度
+     * @param gap      矩形之间最小的间距
+     * @param cellSize 索引格子的大小，一般使用矩形的平均大小
+     */
+    void reset(int width, int height, int gap, int cellSize) {
+        mWidth = width;
+        mHeight = height;
+        mGap = Math.max(0, gap);
+        mGrid.reset(width, height, cellSize);
+        mActiveCount = 0;
+        mFailedCount = 0;
+    }
+
+    /**
+     * 放置一个矩形
+     *
+     * @param out 放置成功之后写入左上角的坐标，【0】：x 【1】：y
+     * @return 是否放置成功，区域内已经放不下的时候返回false
+     */
+    boolean place(int width, int height, int[] out) {
+        if (width > mWidth || height > mHeight || hasFailed(width, height)) {
+            return false;
+        }
+        int maxX = mWidth - width;
+        int maxY = mHeight - height;
+        // 还没有中心点的时候完全随机
+        if (mActiveCount == 0 && mGrid.size() == 0) {
+            for (int i = 0; i < RANDOM_ATTEMPTS; i++) {
+                if (tryPlace(mRandom.nextInt(maxX + 1), mRandom.nextInt(maxY + 1), width, height, out)) {
+                    return true;
+                }
+            }
+        }
+        while (mActiveCount > 0) {
+            int activeIndex = mRandom.nextInt(mActiveCount);
+            int index = mActive[activeIndex];
+            int centerX = (mGrid.getLeft(index) + mGrid.getRight(index)) / 2;
+            int centerY = (mGrid.getTop(index) + mGrid.getBottom(index)) / 2;
+            int activeWidth = mGrid.getRight(index) - mGrid.getLeft(index);
+            int activeHeight = mGrid.getBottom(index) - mGrid.getTop(index);
+            // 圆环的内径是两个矩形沿着短边方向刚好不重叠的距离，外径是沿着对角线方向刚好不重叠的距离
+            double inner = (Math.min(activeWidth, activeHeight) + Math.min(width, height)) / 2.0 + mGap;
+            double outer = Math.max(inner + 1, (Math.hypot(activeWidth, activeHeight) + Math.hypot(width, height)) / 2 + mGap);
+            for (int i = 0; i < CANDIDATES; i++) {
+                double angle = mRandom.nextDouble() * Math.PI * 2;
+                double distance = inner + mRandom.nextDouble() * (outer - inner);
+                int x = (int) (centerX + Math.cos(angle) * distance) - width / 2;
+                int y = (int) (centerY + Math.sin(angle) * distance) - height / 2;
+                if (x >= 0 && y >= 0 && x <= maxX && y <= maxY && tryPlace(x, y, width, height, out)) {
+                    return true;
+                }
+            }
+            // 这个中心点周围已经放不下了
+            mActive[activeIndex] = mActive[--mActiveCount];
+        }
+        if (scan(width, height, maxX, maxY, out)) {
+            return true;
+        }
+        // 已经放置的矩形只会增加，宽高都不小于这个大小的矩形之后也放不下
+        if (mFailed.length < (mFailedCount + 1) * 2) {
+            mFailed = Arrays.copyOf(mFailed, mFailed.length * 2);
+        }
+        mFailed[mFailedCount * 2] = width;
+        mFailed[mFailedCount * 2 + 1] = height;
+        mFailedCount++;
+        return false;
+    }
+
+    private boolean hasFailed(int width, int height) {
+        for (int i = 0; i < mFailedCount; i++) {
+            if (width >= mFailed[i * 2] && height >= mFailed[i * 2 + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 从左上角开始逐行扫描，结果是确定的。遇到相交的矩形时直接跳到它的右侧，每一行只需要检查少数几个位置
+     */
+    private boolean scan(int width, int height, int maxX, int maxY, int[] out) {
+        int step = Math.max(1, Math.min(width, height) / 4);
+        for (int y = 0; y <= maxY; y = next(y, step, maxY)) {
+            int x = 0;
+            while (x <= maxX) {
+                int hit = mGrid.findIntersecting(x - mGap, y - mGap, x + width + mGap, y + height + mGap);
+                if (hit < 0) {
+                    add(x, y, width, height, out);
+                    return true;
+                }
+                x = mGrid.getRight(hit) + mGap;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return 下一行扫描的位置，保证最后一次扫描贴着边界
+     */
+    private static int next(int value, int step, int max) {
+        if (value == max) {
+            return max + 1;
+        }
+        return Math.min(value + step, max);
+    }
+
+    private boolean tryPlace(int x, int y, int width, int height, int[] out) {
+        // 新的矩形向四周扩大一个间距之后不能和已有的矩形相交
+        if (mGrid.intersects(x - mGap, y - mGap, x + width + mGap, y + height + mGap)) {
+            return false;
+        }
+        add(x, y, width, height, out);
+        return true;
+    }
+
+    private void add(int x, int y, int width, int height, int[] out) {
+        int index = mGrid.add(x, y, x + width, y + height);
+        if (mActive.length == mActiveCount) {
+            mActive = Arrays.copyOf(mActive, mActiveCount * 2);
+        }
+        mActive[mActiveCount++] = index;
+        out[0] = x;
+        out[1] = y;
+    }
+}
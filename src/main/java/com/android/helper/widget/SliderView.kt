@@ -12,6 +12,7 @@ import com.android.common.utils.LogUtil
 import com.android.helper.R
 import com.android.helper.utils.BitmapUtil
 import com.android.helper.utils.CustomViewUtil
+import com.android.helper.utils.TextMetricsCache
 import com.android.helper.utils.ToastUtil
 
 /**
@@ -114,11 +115,11 @@ class SliderView(
             )
 
             // 绘制背景的文字
-            val textArray = CustomViewUtil.getTextSize(mPaintBackgroundText, mTextContent)
+            val textSize = CustomViewUtil.measureText(mPaintBackgroundText, mTextContent)
 
-            val lineX = measuredWidth - mPaddingRight - textArray[0]
+            val lineX = measuredWidth - mPaddingRight - TextMetricsCache.width(textSize)
 
-            val fl1 = (measuredHeight - textArray[1]) / 2
+            val fl1 = (measuredHeight - TextMetricsCache.height(textSize)) / 2f
 
             val baseLine = CustomViewUtil.getBaseLine(mPaintBackgroundText, mTextContent)
 
@@ -17,6 +17,7 @@ import androidx.annotation.Nullable;
 
 import com.android.helper.R;
 import com.android.helper.utils.CustomViewUtil;
+import com.android.helper.utils.TextMetricsCache;
 
 public class TextViewGradient extends View {
 
@@ -60,9 +61,9 @@ public class TextViewGradient extends View {
         if (!TextUtils.isEmpty(mContent)) {
             // 获取textView的宽高
             if (mContentHeight <= 0 || mContentWidth <= 0) {
-                float[] textSize = CustomViewUtil.getTextSize(mPaint, mContent);
-                mContentWidth = textSize[0];
-                mContentHeight = textSize[1];
+                long textSize = CustomViewUtil.measureText(mPaint, mContent);
+                mContentWidth = TextMetricsCache.width(textSize);
+                mContentHeight = TextMetricsCache.height(textSize);
             }
             // 设置权重
             if (mIntsPositions == null) {
@@ -90,9 +91,9 @@ public class TextViewGradient extends View {
         super.onMeasure(widthMeasureSpec, heightMeasureSpec);
         if (!TextUtils.isEmpty(mContent)) {
             if (mContentHeight <= 0 || mContentWidth <= 0) {
-                float[] textSize = CustomViewUtil.getTextSize(mPaint, mContent);
-                mContentWidth = textSize[0];
-                mContentHeight = textSize[1];
+                long textSize = CustomViewUtil.measureText(mPaint, mContent);
+                mContentWidth = TextMetricsCache.width(textSize);
+                mContentHeight = TextMetricsCache.height(textSize);
             }
             int i1 = resolveSize(MeasureSpec.getSize(widthMeasureSpec), widthMeasureSpec);
             int i2 = resolveSize((int) mContentHeight, heightMeasureSpec);
@@ -3,8 +3,6 @@ package com.android.helper.widget.banner;
 import android.annotation.SuppressLint;
 import android.app.Activity;
 import android.content.Context;
-import android.os.Handler;
-import android.os.Message;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
 import android.view.View;
@@ -18,6 +16,8 @@ import androidx.viewpager.widget.ViewPager;
 
 import com.android.common.utils.LogUtil;
 import com.android.helper.interfaces.lifecycle.BaseLifecycleObserver;
+import com.android.helper.utils.tick.TickService;
+import com.android.helper.utils.tick.TickTask;
 
 import org.jetbrains.annotations.NotNull;
 
@@ -38,7 +38,6 @@ import java.util.List;
  * 让ScrollView去允许子view自控扩展高度
  */
 public class BannerView extends ViewPager implements BaseLifecycleObserver {
-    private final int CODE_WHAT_LOOP = 1000;// 轮询的code值
     private final boolean isLast = true; // 滑动是否可用
     private String TAG = "";
     private int CODE_LOOP_INTERVAL = 3 * 1000;// 轮询的时间间隔，默认5s
@@ -54,6 +53,7 @@ public class BannerView extends ViewPager implements BaseLifecycleObserver {
     private BannerAdapter mBannerAdapter;
     private boolean isVisibility; // view是否可见，只有布局显示完全了，才会去设置为可见
     private boolean isSetAdapter; // 是否已经设置了adapter
+    private TickTask mLoopTask; // 轮询的定时任务
 
     public BannerView(@NonNull @NotNull Context context, @Nullable @org.jetbrains.annotations.Nullable AttributeSet attrs) {
         super(context, attrs);
@@ -118,7 +118,7 @@ public class BannerView extends ViewPager implements BaseLifecycleObserver {
                 }
                 isSetAdapter = true;
                 // 发送轮询
-                mHandler.sendEmptyMessage(CODE_WHAT_LOOP);
+                startLoop(0);
             }
         }
     }
@@ -128,14 +128,36 @@ public class BannerView extends ViewPager implements BaseLifecycleObserver {
      */
     private void sendMessage() {
         // 发送轮询
-        if ((mHandler != null) && mAutoLoop && (mListData != null)) {
+        if (mAutoLoop && (mListData != null)) {
             if (mListData.size() <= 1) {
                 return;
             }
-            mHandler.sendEmptyMessageDelayed(CODE_WHAT_LOOP, CODE_LOOP_INTERVAL);
+            startLoop(CODE_LOOP_INTERVAL);
         }
     }
 
+    /**
+     * 注册到全局共享的TickService中，到期之后切换到下一页，重复调用的时候只保留最后一次
+     *
+     * @param delay 延迟的时间
+     */
+    private void startLoop(long delay) {
+        onStop();
+        mLoopTask = TickService.getInstance().schedule(delay, 0, (task, count) -> {
+            LogUtil.e(TAG, "----->Banner---loop:" + getCurrentItem() + "    mCurrent：" + mCurrent);
+            if (mListData != null) {
+                if (mListData.size() <= 1) { // 如果数据小于1，则停止
+                    setCurrentItem(0);
+                } else { // 数据大于1
+                    // 自动轮询下一个数据
+                    setCurrentItem(++mCurrent);
+                    // 自动轮播下一个
+                    onStart();
+                }
+            }
+        });
+    }
+
     @SuppressLint("ClickableViewAccessibility")
     private void addPageListener() {
         addOnPageChangeListener(new OnPageChangeListener() {
@@ -335,28 +357,7 @@ public class BannerView extends ViewPager implements BaseLifecycleObserver {
     @Override
     public void onResume() {
         onStart();
-    }    @SuppressLint("HandlerLeak")
-    private Handler mHandler = new Handler() {
-        @Override
-        public void handleMessage(@NonNull @NotNull Message msg) {
-            super.handleMessage(msg);
-            LogUtil.e(TAG, "----->Banner---mHandler:" + getCurrentItem() + "    mCurrent：" + mCurrent);
-            // :移除掉所有的回调和message的消息，如果传入null的话
-            onStop();
-            if (mListData != null) {
-                if (msg.what == CODE_WHAT_LOOP) {
-                    if (mListData.size() <= 1) { // 如果数据小于1，则停止
-                        setCurrentItem(0);
-                    } else { // 数据大于1
-                        // 自动轮询下一个数据
-                        setCurrentItem(++mCurrent);
-                        // 自动轮播下一个
-                        onStart();
-                    }
-                }
-            }
-        }
-    };
+    }
 
     @Override
     public void onPause() {
@@ -365,8 +366,9 @@ public class BannerView extends ViewPager implements BaseLifecycleObserver {
 
     @Override
     public void onStop() {
-        if (mHandler != null) {
-            mHandler.removeMessages(CODE_WHAT_LOOP);
+        if (mLoopTask != null) {
+            mLoopTask.cancel();
+            mLoopTask = null;
         }
     }
 
@@ -383,9 +385,6 @@ public class BannerView extends ViewPager implements BaseLifecycleObserver {
         if (mBannerAdapter != null) {
             mBannerAdapter = null;
         }
-        if (mHandler != null) {
-            mHandler = null;
-        }
     }
 
     @Override
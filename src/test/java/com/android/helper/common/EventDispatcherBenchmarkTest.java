@@ -0,0 +1,169 @@
+package com.android.helper.common;
+
+import com.android.helper.interfaces.listener.EventMessageListener;
+
+import org.greenrobot.eventbus.EventBus;
+import org.greenrobot.eventbus.Subscribe;
+import org.greenrobot.eventbus.ThreadMode;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 在电脑的JVM上对比{@link EventDispatcher}和EventBus分发{@link EventMessage}的耗时，
+ * 参考JMH的方式，先预热再分多轮计时，两边都使用在发送线程中直接回调的模式。
+ */
+public class EventDispatcherBenchmarkTest {
+
+    private static final int CODES = 32;
+    private static final int LISTENERS_PER_CODE = 4;
+    private static final int WARMUP = 5;
+    private static final int ITERATIONS = 10;
+    private static final int OPS = 200_000;
+
+    private EventMessage[] mMessages;
+
+    @Before
+    public void setUp() {
+        mMessages = new EventMessage[CODES];
+        for (int i = 0; i < CODES; i++) {
+            mMessages[i] = new EventMessage(CommonConstants.CODE_DIALOG_SHOW + i);
+        }
+    }
+
+    @Test
+    public void registerAndUnregister() {
+        EventDispatcher dispatcher = new EventDispatcher();
+        dispatcher.setForwardToEventBus(false);
+        Counter first = new Counter(-1);
+        Counter second = new Counter(-1);
+        // 超过初始容量，触发扩容
+        for (int code = 0; code < 100; code++) {
+            dispatcher.register(code, EventDispatcher.ThreadMode.POSTING, first);
+        }
+        dispatcher.register(7, EventDispatcher.ThreadMode.POSTING, second);
+        dispatcher.post(new EventMessage(7));
+        dispatcher.post(new EventMessage(99));
+        dispatcher.post(new EventMessage(100));
+        assertEquals(2, first.mCount);
+        assertEquals(1, second.mCount);
+
+        dispatcher.unregister(7, first);
+        dispatcher.post(new EventMessage(7));
+        assertEquals(2, first.mCount);
+        assertEquals(2, second.mCount);
+
+        dispatcher.unregister(first);
+        assertFalse(dispatcher.hasListener(99));
+        assertTrue(dispatcher.hasListener(7));
+    }
+
+    @Test
+    public void unregisterListenerFromAllCodes() {
+        // 不同的数量覆盖移除过程中表缩小、重新排列的情况
+        for (int count : new int[]{10, 20, 50, 100, 500}) {
+            EventDispatcher dispatcher = new EventDispatcher();
+            dispatcher.setForwardToEventBus(false);
+            Counter listener = new Counter(-1);
+            Counter other = new Counter(-1);
+            for (int code = 0; code < count; code++) {
+                dispatcher.register(code, EventDispatcher.ThreadMode.POSTING, listener);
+            }
+            dispatcher.register(count / 2, EventDispatcher.ThreadMode.POSTING, other);
+
+            dispatcher.unregister(listener);
+            for (int code = 0; code < count; code++) {
+                dispatcher.post(new EventMessage(code));
+                assertEquals(code == count / 2, dispatcher.hasListener(code));
+            }
+            assertEquals(0, listener.mCount);
+            assertEquals(1, other.mCount);
+        }
+    }
+
+    @Test
+    public void compareWithEventBus() {
+        EventDispatcher dispatcher = new EventDispatcher();
+        dispatcher.setForwardToEventBus(false);
+        EventBus eventBus = EventBus.builder().build();
+        Counter[] dispatcherCounters = new Counter[CODES * LISTENERS_PER_CODE];
+        BusSubscriber[] busSubscribers = new BusSubscriber[CODES * LISTENERS_PER_CODE];
+        for (int i = 0; i < dispatcherCounters.length; i++) {
+            int code = mMessages[i % CODES].getCode();
+            dispatcherCounters[i] = new Counter(code);
+            dispatcher.register(code, EventDispatcher.ThreadMode.POSTING, dispatcherCounters[i]);
+            // EventBus只能按照类型订阅，需要在回调中自己判断code
+            busSubscribers[i] = new BusSubscriber(code);
+            eventBus.register(busSubscribers[i]);
+        }
+
+        double bus = measure(() -> {
+            for (int i = 0; i < OPS; i++) {
+                eventBus.post(mMessages[i & (CODES - 1)]);
+            }
+        });
+        double current = measure(() -> {
+            for (int i = 0; i < OPS; i++) {
+                dispatcher.post(mMessages[i & (CODES - 1)]);
+            }
+        });
+
+        long expected = (long) (WARMUP + ITERATIONS) * OPS / CODES;
+        for (int i = 0; i < dispatcherCounters.length; i++) {
+            assertEquals(expected, dispatcherCounters[i].mCount);
+            assertEquals(expected, busSubscribers[i].mCount);
+        }
+        System.out.println(String.format(Locale.CHINA, "post  EventBus: %.1f ns/op  EventDispatcher: %.1f ns/op", bus, current));
+    }
+
+    /**
+     * @return 平均每次发送的耗时，单位是纳秒
+     */
+    private static double measure(Runnable task) {
+        for (int i = 0; i < WARMUP; i++) {
+            task.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            task.run();
+        }
+        return (System.nanoTime() - start) / (double) ITERATIONS / OPS;
+    }
+
+    private static final class Counter implements EventMessageListener {
+        private final int mCode;
+        long mCount;
+
+        Counter(int code) {
+            mCode = code;
+        }
+
+        @Override
+        public void onEvent(EventMessage message) {
+            if (mCode < 0 || message.getCode() == mCode) {
+                mCount++;
+            }
+        }
+    }
+
+    public static final class BusSubscriber {
+        private final int mCode;
+        long mCount;
+
+        BusSubscriber(int code) {
+            mCode = code;
+        }
+
+        @Subscribe(threadMode = ThreadMode.POSTING)
+        public void onEvent(EventMessage message) {
+            if (message.getCode() == mCode) {
+                mCount++;
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.android.helper.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 在电脑的JVM上对比{@link StreamUtil}中基于FileChannel、Okio、内存映射的实现和原来的流循环实现，
+ * 每个用例先预热再计时，输出平均每次的耗时，结果一致性通过断言保证。
+ */
+public class StreamUtilBenchmarkTest {
+
+    private static final int SIZE = 8 * 1024 * 1024;
+    private static final int WARMUP = 3;
+    private static final int ITERATIONS = 10;
+
+    private File mDir;
+    private File mSource;
+    private File mTarget;
+    private byte[] mData;
+
+    @Before
+    public void setUp() throws IOException {
+        mDir = File.createTempFile("stream", "bench");
+        mDir.delete();
+        mDir.mkdirs();
+        mSource = new File(mDir, "source.txt");
+        mTarget = new File(mDir, "target.txt");
+
+        // 可见字符加上换行符，读取字符串的对比也可以使用同一份数据
+        mData = new byte[SIZE];
+        Random random = new Random(1);
+        for (int i = 0; i < SIZE; i++) {
+            mData[i] = (i % 100 == 99) ? (byte) '\n' : (byte) ('a' + random.nextInt(26));
+        }
+        try (FileOutputStream out = new FileOutputStream(mSource)) {
+            out.write(mData);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        mSource.delete();
+        mTarget.delete();
+        mDir.delete();
+    }
+
+    @Test
+    public void copyFile() throws Exception {
+        long legacy = measure(() -> legacyCopy(new FileInputStream(mSource), mTarget));
+        long channel = measure(() -> StreamUtil.copyFile(mSource, mTarget));
+        assertArrayEquals(mData, readBytes(mTarget));
+        print("copyFile", legacy, channel);
+    }
+
+    @Test
+    public void writeInputStreamToFile() throws Exception {
+        long legacy = measure(() -> legacyCopy(new ByteArrayInputStream(mData), mTarget));
+        long okio = measure(() -> StreamUtil.writeToFile(new ByteArrayInputStream(mData), mTarget));
+        assertArrayEquals(mData, readBytes(mTarget));
+        print("writeInputStreamToFile", legacy, okio);
+    }
+
+    @Test
+    public void getContentForFile() throws Exception {
+        String expected = legacyRead(mSource);
+        long legacy = measure(() -> legacyRead(mSource));
+        long current = measure(() -> StreamUtil.readStringWithoutLineBreaks(mSource, StandardCharsets.UTF_8));
+        assertEquals(expected, StreamUtil.readStringWithoutLineBreaks(mSource, StandardCharsets.UTF_8));
+        print("getContentForFile", legacy, current);
+    }
+
+    @Test
+    public void readString() throws Exception {
+        String expected = new String(mData, StandardCharsets.UTF_8);
+        long okio = measure(() -> StreamUtil.readString(mSource, StandardCharsets.UTF_8));
+        long mapped = measure(() -> StreamUtil.readStringMapped(mSource, StandardCharsets.UTF_8));
+        assertEquals(expected, StreamUtil.readString(mSource, StandardCharsets.UTF_8));
+        assertEquals(expected, StreamUtil.readStringMapped(mSource, StandardCharsets.UTF_8));
+        print("readString(okio -> mapped)", okio, mapped);
+    }
+
+    private static long measure(Task task) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            task.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            task.run();
+        }
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+
+    private static void print(String name, long legacy, long current) {
+        System.out.println(String.format(Locale.CHINA, "%s  原来的实现: %.2f ms/op  新的实现: %.2f ms/op", name, legacy / 1e6, current / 1e6));
+    }
+
+    private static byte[] readBytes(File file) throws IOException {
+        byte[] bytes = new byte[(int) file.length()];
+        try (FileInputStream in = new FileInputStream(file)) {
+            int offset = 0;
+            while (offset < bytes.length) {
+                offset += in.read(bytes, offset, bytes.length - offset);
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 原来的FileUtil#writeInputStreamToFile的实现
+     */
+    private static void legacyCopy(InputStream inputStream, File file) throws IOException {
+        try (BufferedInputStream in = new BufferedInputStream(inputStream); BufferedOutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            int len;
+            byte[] b = new byte[1024];
+            while ((len = in.read(b)) != -1) {
+                out.write(b, 0, len);
+            }
+        }
+    }
+
+    /**
+     * 原来的FileUtil#getContentForFile的实现
+     */
+    private static String legacyRead(File file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            StringBuilder builder = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                builder.append(line);
+            }
+            return builder.toString();
+        }
+    }
+
+    private interface Task {
+        void run() throws Exception;
+    }
+}
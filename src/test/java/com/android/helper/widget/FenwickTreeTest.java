@@ -0,0 +1,62 @@
+package com.android.helper.widget;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 在电脑的JVM上把{@link FenwickTree}的结果和直接遍历前缀和的结果对比
+ */
+public class FenwickTreeTest {
+
+    @Test
+    public void buildSetAndFind() {
+        Random random = new Random(1);
+        FenwickTree tree = new FenwickTree();
+        // 同一个对象重复使用，覆盖扩大和缩小的情况
+        for (int size : new int[]{1, 7, 64, 1000, 33, 0, 257}) {
+            int[] weights = new int[size];
+            for (int i = 0; i < size; i++) {
+                // 包含权重为0的下标，不能被选中
+                weights[i] = random.nextInt(4) == 0 ? 0 : random.nextInt(20);
+            }
+            tree.build(weights, size);
+            check(tree, weights);
+
+            for (int i = 0; i < size * 2; i++) {
+                int index = random.nextInt(size);
+                weights[index] = random.nextInt(20);
+                tree.set(index, weights[index]);
+                assertEquals(weights[index], tree.get(index));
+            }
+            check(tree, weights);
+        }
+    }
+
+    private static void check(FenwickTree tree, int[] weights) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        assertEquals(total, tree.total());
+        for (int value = 0; value < total; value++) {
+            assertEquals(bruteFind(weights, value), tree.find(value));
+        }
+    }
+
+    /**
+     * @return 前缀和大于value的最小下标
+     */
+    private static int bruteFind(int[] weights, int value) {
+        int sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            if (sum > value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
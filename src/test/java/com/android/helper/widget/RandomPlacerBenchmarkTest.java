@@ -0,0 +1,182 @@
+package com.android.helper.widget;
+
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 在电脑的JVM上验证{@link RandomPlacer}和{@link OccupancyGrid}：
+ * <ol>
+ *     1：格子索引的查询结果和逐个对比的结果一致。
+ *     2：100、300、2000个矩形放置之后不重叠、间距不小于gap、不超出区域，随机尝试的次数不超过上限，并输出平均每次布局的耗时。
+ *     3：随机的候选位置都失败的时候，按照扫描的顺序确定的放置。
+ * </ol>
+ */
+public class RandomPlacerBenchmarkTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+    private static final int GAP = 8;
+    private static final int CELL_SIZE = 80;
+    private static final int WARMUP = 5;
+    private static final int ITERATIONS = 20;
+
+    @Test
+    public void occupancyGridMatchesBruteForce() {
+        Random random = new Random(1);
+        OccupancyGrid grid = new OccupancyGrid();
+        grid.reset(WIDTH, HEIGHT, CELL_SIZE);
+        int[][] rects = new int[500][];
+        for (int i = 0; i < rects.length; i++) {
+            int left = random.nextInt(WIDTH - 100);
+            int top = random.nextInt(HEIGHT - 100);
+            rects[i] = new int[]{left, top, left + 1 + random.nextInt(100), top + 1 + random.nextInt(100)};
+            assertEquals(i, grid.add(rects[i][0], rects[i][1], rects[i][2], rects[i][3]));
+        }
+        assertEquals(rects.length, grid.size());
+
+        for (int i = 0; i < 5000; i++) {
+            // 查询的区域允许超出边界，和放置时向四周扩大间距的情况一致
+            int left = random.nextInt(WIDTH + 40) - 20;
+            int top = random.nextInt(HEIGHT + 40) - 20;
+            int right = left + 1 + random.nextInt(150);
+            int bottom = top + 1 + random.nextInt(150);
+            boolean expected = false;
+            for (int[] rect : rects) {
+                expected |= intersects(rect, left, top, right, bottom);
+            }
+            assertEquals(expected, grid.intersects(left, top, right, bottom));
+            int hit = grid.findIntersecting(left, top, right, bottom);
+            if (expected) {
+                assertTrue(intersects(rects[hit], left, top, right, bottom));
+            } else {
+                assertEquals(-1, hit);
+            }
+        }
+    }
+
+    @Test
+    public void place100() {
+        place(100);
+    }
+
+    @Test
+    public void place300() {
+        place(300);
+    }
+
+    @Test
+    public void place2000() {
+        place(2000);
+    }
+
+    @Test
+    public void scanFallbackIsDeterministic() {
+        // 候选的角度总是朝向左侧，只有一行的高度，以任何矩形为中心都会超出区域，只能依靠扫描放置
+        Random random = new Random() {
+            @Override
+            public int nextInt(int bound) {
+                return 0;
+            }
+
+            @Override
+            public double nextDouble() {
+                return 0.5;
+            }
+        };
+        RandomPlacer placer = new RandomPlacer(random);
+        placer.reset(100, 10, 0, 10);
+        int[] out = new int[2];
+        for (int i = 0; i < 10; i++) {
+            assertTrue(placer.place(10, 10, out));
+            assertEquals(i * 10, out[0]);
+            assertEquals(0, out[1]);
+        }
+        assertFalse(placer.place(10, 10, out));
+        // 更大的矩形直接返回失败
+        assertFalse(placer.place(20, 10, out));
+    }
+
+    private void place(int count) {
+        int[][] sizes = new int[count][];
+        Random sizeRandom = new Random(count);
+        for (int i = 0; i < count; i++) {
+            sizes[i] = new int[]{40 + sizeRandom.nextInt(120), 30 + sizeRandom.nextInt(40)};
+        }
+        int[][] positions = new int[count][2];
+        boolean[] placed = new boolean[count];
+
+        for (int i = 0; i < WARMUP; i++) {
+            layout(new RandomPlacer(new Random(i)), sizes, positions, placed);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            layout(new RandomPlacer(new Random(i)), sizes, positions, placed);
+        }
+        long cost = (System.nanoTime() - start) / ITERATIONS;
+
+        CountingRandom random = new CountingRandom(count);
+        int placedCount = layout(new RandomPlacer(random), sizes, positions, placed);
+        assertTrue(placedCount > 0);
+        for (int i = 0; i < count; i++) {
+            if (!placed[i]) {
+                continue;
+            }
+            int left = positions[i][0];
+            int top = positions[i][1];
+            int right = left + sizes[i][0];
+            int bottom = top + sizes[i][1];
+            assertTrue(left >= 0 && top >= 0 && right <= WIDTH && bottom <= HEIGHT);
+            for (int j = i + 1; j < count; j++) {
+                if (placed[j]) {
+                    // 扩大间距之后依旧不相交，说明不重叠并且间距不小于gap
+                    int[] other = {positions[j][0], positions[j][1], positions[j][0] + sizes[j][0], positions[j][1] + sizes[j][1]};
+                    assertFalse(intersects(other, left - GAP, top - GAP, right + GAP, bottom + GAP));
+                }
+            }
+        }
+        // 每次候选使用两个随机数，每个中心点最多连续失败CANDIDATES次就会被移除，每次放置最多再有CANDIDATES次失败
+        long candidates = random.mDoubles / 2;
+        assertTrue(candidates <= (long) RandomPlacer.CANDIDATES * (placedCount + count));
+
+        System.out.println(String.format(Locale.CHINA, "place%d  放置: %d  候选: %d  平均耗时: %.3f ms/op", count, placedCount, candidates, cost / 1e6));
+    }
+
+    private static int layout(RandomPlacer placer, int[][] sizes, int[][] positions, boolean[] placed) {
+        placer.reset(WIDTH, HEIGHT, GAP, CELL_SIZE);
+        int count = 0;
+        for (int i = 0; i < sizes.length; i++) {
+            placed[i] = placer.place(sizes[i][0], sizes[i][1], positions[i]);
+            if (placed[i]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean intersects(int[] rect, int left, int top, int right, int bottom) {
+        return left < rect[2] && rect[0] < right && top < rect[3] && rect[1] < bottom;
+    }
+
+    /**
+     * 统计候选位置使用的随机数的个数
+     */
+    private static final class CountingRandom extends Random {
+        long mDoubles;
+
+        CountingRandom(long seed) {
+            super(seed);
+        }
+
+        @Override
+        public double nextDouble() {
+            mDoubles++;
+            return super.nextDouble();
+        }
+    }
+}